@@ -0,0 +1,46 @@
+package benchmarks;
+
+import common.Location;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import utilities.DistanceUtilities;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the distance between all pairs of a set of random locations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+    @Param({"100"})
+    public int numLocations;
+
+    @Param("0")
+    public long seed;
+
+    private Location[] locations;
+
+    @Setup(Level.Trial)
+    public void setUpLocations() {
+        Random random = new Random(this.seed);
+        this.locations = new Location[this.numLocations];
+        for (int locationIndex = 0; locationIndex < this.numLocations; locationIndex++)
+            this.locations[locationIndex] = new Location(
+                    41.0 + random.nextDouble() * 0.1, 29.0 + random.nextDouble() * 0.1);
+    }
+
+    @Benchmark
+    public void distanceInKm(Blackhole blackhole) {
+        for (Location from : this.locations) {
+            for (Location to : this.locations)
+                blackhole.consume(DistanceUtilities.distanceInKm(from, to));
+        }
+    }
+}
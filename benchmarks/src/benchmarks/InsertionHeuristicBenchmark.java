@@ -0,0 +1,53 @@
+package benchmarks;
+
+import algorithms.*;
+import exceptions.InfeasibleRouteException;
+import exceptions.UnserviceableOrderException;
+import org.openjdk.jmh.annotations.*;
+import output.Solution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks repairing a solution after a random removal of the configured number of orders. The removal is done once
+ * per trial, so every invocation repairs the same partial solution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertionHeuristicBenchmark extends SolutionState {
+
+    @Param({"GREEDY_INSERTION", "REGRET_BASED_INSERTION"})
+    public InsertionHeuristicType heuristicType;
+
+    @Param("0")
+    public int numNearestNeighbours;
+
+    private InsertionHeuristic heuristic;
+    private PartialSolution partialSolution;
+
+    @Override
+    protected void setUpBenchmark() throws InfeasibleRouteException {
+        OrderNeighbourGraph orderNeighbourGraph = this.numNearestNeighbours > 0 ?
+                new OrderNeighbourGraph(this.instance, this.numNearestNeighbours) : null;
+        if (this.heuristicType.equals(InsertionHeuristicType.GREEDY_INSERTION))
+            this.heuristic = new GreedyInsertionHeuristic(this.instance, orderNeighbourGraph, this.routeCostFunction);
+        else
+            this.heuristic = new RegretBasedInsertionHeuristic(
+                    this.instance, orderNeighbourGraph, this.routeCostFunction,
+                    this.configuration.getRegretHorizon());
+        RemovalHeuristic removalHeuristic = new RandomRemovalHeuristic(
+                this.instance, this.configuration.getNumOrdersToRemove(), new Random(this.seed),
+                this.routeCostFunction);
+        this.partialSolution = removalHeuristic.run(this.solution);
+    }
+
+    @Benchmark
+    public Solution run() throws UnserviceableOrderException {
+        this.heuristic.clear();
+        return this.heuristic.run(this.partialSolution);
+    }
+}
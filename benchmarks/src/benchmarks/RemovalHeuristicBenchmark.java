@@ -0,0 +1,49 @@
+package benchmarks;
+
+import algorithms.*;
+import exceptions.InfeasibleRouteException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks removing the configured number of orders from the greedy solution. The heuristics copy the routes they
+ * modify, so the solution is shared by the invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemovalHeuristicBenchmark extends SolutionState {
+
+    @Param({"RANDOM_REMOVAL", "GREEDY_REMOVAL", "SHAW_REMOVAL"})
+    public RemovalHeuristicType heuristicType;
+
+    private RemovalHeuristic heuristic;
+
+    @Override
+    protected void setUpBenchmark() {
+        int numOrdersToRemove = this.configuration.getNumOrdersToRemove();
+        Random random = new Random(this.seed);
+        double randomizationCoefficient = this.configuration.getRandomizationCoefficient();
+        if (this.heuristicType.equals(RemovalHeuristicType.RANDOM_REMOVAL))
+            this.heuristic = new RandomRemovalHeuristic(
+                    this.instance, numOrdersToRemove, random, this.routeCostFunction);
+        else if (this.heuristicType.equals(RemovalHeuristicType.GREEDY_REMOVAL))
+            this.heuristic = new GreedyRemovalHeuristic(
+                    this.instance, numOrdersToRemove, random, randomizationCoefficient, this.routeCostFunction);
+        else
+            this.heuristic = new ShawRemovalHeuristic(
+                    this.instance, numOrdersToRemove,
+                    new OrderSimilarityCache(this.instance, this.orderSimilarityFunction),
+                    this.orderSimilarityFunction, random, randomizationCoefficient, this.routeCostFunction);
+    }
+
+    @Benchmark
+    public PartialSolution run() throws InfeasibleRouteException {
+        this.heuristic.clear();
+        return this.heuristic.run(this.solution);
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import algorithms.OrderInsertion;
+import common.Order;
+import common.Task;
+import exceptions.InfeasibleRouteException;
+import org.openjdk.jmh.annotations.*;
+import output.Route;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks scheduling a route from scratch and updating it by inserting or removing the order picked up in the
+ * middle of the route. The longest route of the solution is used. Inserting and removing work on a fresh copy of the
+ * route, whose cost is measured separately by {@link #copy()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark extends SolutionState {
+
+    private Order order;
+    private OrderInsertion orderInsertion;
+    private Route route;
+    private Route routeWithoutOrder;
+
+    @Override
+    protected void setUpBenchmark() throws InfeasibleRouteException {
+        this.route = findLongestRoute();
+        Task middleTask = this.route.getTasks().get(this.route.getTasks().size() / 2);
+        this.order = this.instance.getOrders().get(middleTask.getOrderIndex());
+        this.orderInsertion = new OrderInsertion(
+                this.route.getDeliveryTaskIndex(this.order.getIndex()), this.route.getDriver().getId(),
+                this.order.getId(), this.route.getPickupTaskIndex(this.order.getIndex()));
+        this.routeWithoutOrder = new Route(this.route);
+        this.routeWithoutOrder.remove(this.order);
+    }
+
+    @Benchmark
+    public Route copy() {
+        return new Route(this.route);
+    }
+
+    @Benchmark
+    public Route insert() throws InfeasibleRouteException {
+        Route route = new Route(this.routeWithoutOrder);
+        route.insert(this.order, this.orderInsertion);
+        return route;
+    }
+
+    @Benchmark
+    public Route remove() throws InfeasibleRouteException {
+        Route route = new Route(this.route);
+        route.remove(this.order);
+        return route;
+    }
+
+    @Benchmark
+    public Route schedule() throws InfeasibleRouteException {
+        return new Route(this.instance.getDistanceMatrix(), this.route.getDriver(), this.route.getTasks());
+    }
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import algorithms.OrderInsertionImpact;
+import common.Order;
+import common.Task;
+import exceptions.InfeasibleRouteException;
+import org.openjdk.jmh.annotations.*;
+import output.Route;
+import utilities.SearchUtilities;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks finding the best insertion of the order picked up in the middle of the longest route into the rest of the
+ * route.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchUtilitiesBenchmark extends SolutionState {
+
+    private Order order;
+    private Route routeWithoutOrder;
+
+    @Override
+    protected void setUpBenchmark() throws InfeasibleRouteException {
+        Route route = findLongestRoute();
+        Task middleTask = route.getTasks().get(route.getTasks().size() / 2);
+        this.order = this.instance.getOrders().get(middleTask.getOrderIndex());
+        this.routeWithoutOrder = new Route(route);
+        this.routeWithoutOrder.remove(this.order);
+        this.routeWithoutOrder.evaluate(this.routeCostFunction);
+    }
+
+    @Benchmark
+    public OrderInsertionImpact findBestOrderInsertion() throws InfeasibleRouteException {
+        return SearchUtilities.findBestOrderInsertion(this.routeWithoutOrder, this.order, this.routeCostFunction);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import exceptions.NoSolutionException;
+import input.Instance;
+import org.openjdk.jmh.annotations.*;
+import output.Solution;
+import solver.SimulatedAnnealingAlgorithm;
+import solver.SimulatedAnnealingConfiguration;
+import solver.SimulatedAnnealingConfigurationBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a complete run of the simulated annealing algorithm for a fixed number of iterations, including the
+ * construction of the initial solution.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulatedAnnealingBenchmark {
+
+    @Param({"10"})
+    public int numDrivers;
+
+    @Param("100")
+    public int numIterations;
+
+    @Param("0")
+    public int numNearestNeighbours;
+
+    @Param({"5", "15"})
+    public int numOrdersPerDriver;
+
+    @Param("0")
+    public long seed;
+
+    private SimulatedAnnealingConfiguration configuration;
+    private Instance instance;
+
+    @Setup(Level.Trial)
+    public void setUpInstance() {
+        this.configuration = new SimulatedAnnealingConfigurationBuilder()
+                .setNumIterations(this.numIterations)
+                .setNumNearestNeighbours(this.numNearestNeighbours)
+                .build();
+        this.instance = SyntheticInstances.create(this.numDrivers, this.numOrdersPerDriver, this.seed);
+    }
+
+    @Benchmark
+    public Solution run() throws NoSolutionException {
+        return new SimulatedAnnealingAlgorithm(this.instance, this.configuration).run();
+    }
+}
@@ -0,0 +1,22 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import output.Solution;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the copy of a solution, which shares the routes of the solution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionBenchmark extends SolutionState {
+
+    @Benchmark
+    public Solution copy() {
+        return new Solution(this.solution);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import algorithms.GreedyInsertionHeuristic;
+import algorithms.OrderNeighbourGraph;
+import algorithms.OrderSimilarityFunction;
+import algorithms.PartialSolution;
+import common.RouteCostFunction;
+import common.ScalingFunction;
+import exceptions.InfeasibleRouteException;
+import exceptions.UnserviceableOrderException;
+import input.Instance;
+import org.openjdk.jmh.annotations.*;
+import output.Route;
+import output.Solution;
+import solver.SimulatedAnnealingConfiguration;
+import solver.SimulatedAnnealingConfigurationBuilder;
+
+/**
+ * A synthetic instance with a greedy solution, built once per trial. The greedy insertion only considers the drivers
+ * near each order to keep the setup of large instances short. The functions are set up as in the simulated annealing
+ * algorithm with the default configuration.
+ */
+@State(Scope.Benchmark)
+public class SolutionState {
+
+    private static final int NUM_NEAREST_NEIGHBOURS = 8;
+
+    @Param({"10", "25"})
+    public int numDrivers;
+
+    @Param({"5", "15"})
+    public int numOrdersPerDriver;
+
+    @Param("0")
+    public long seed;
+
+    SimulatedAnnealingConfiguration configuration;
+    Instance instance;
+    OrderSimilarityFunction orderSimilarityFunction;
+    RouteCostFunction routeCostFunction;
+    Solution solution;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InfeasibleRouteException, UnserviceableOrderException {
+        setUpSolution();
+        setUpBenchmark();
+    }
+
+    /**
+     * Prepares the state of a benchmark once the solution is built.
+     */
+    protected void setUpBenchmark() throws InfeasibleRouteException {
+    }
+
+    private void setUpSolution() throws UnserviceableOrderException {
+        this.configuration = new SimulatedAnnealingConfigurationBuilder().build();
+        this.instance = SyntheticInstances.create(this.numDrivers, this.numOrdersPerDriver, this.seed);
+        this.orderSimilarityFunction = new OrderSimilarityFunction(
+                new ScalingFunction(2000, 0), new ScalingFunction(10, 0), new ScalingFunction(20, 0),
+                this.configuration.getOrderSimilarityTaskCompletionTimeCoefficient(),
+                this.configuration.getOrderSimilarityTaskDistanceCoefficient(),
+                this.configuration.getOrderSimilarityTaskLoadCoefficient());
+        this.routeCostFunction = new RouteCostFunction(
+                this.configuration.getDistanceTravelledCostWeight(),
+                this.configuration.getNumLateDeliveriesCostWeight(),
+                this.configuration.getTotalDeliveryDelayCostWeight(),
+                this.configuration.getTravelTimeCostWeight());
+        GreedyInsertionHeuristic heuristic = new GreedyInsertionHeuristic(
+                this.instance, new OrderNeighbourGraph(this.instance, NUM_NEAREST_NEIGHBOURS), this.routeCostFunction);
+        this.solution = heuristic.run(new PartialSolution(this.instance.getOrders()));
+    }
+
+    /**
+     * Returns the route with the most tasks, the first one among the longest routes in driver order.
+     */
+    Route findLongestRoute() {
+        Route longestRoute = null;
+        for (Route route : this.solution.getDriverId2route().values()) {
+            if (longestRoute == null || route.getTasks().size() > longestRoute.getTasks().size() ||
+                    (route.getTasks().size() == longestRoute.getTasks().size() &&
+                            route.getDriver().getId() < longestRoute.getDriver().getId()))
+                longestRoute = route;
+        }
+        return longestRoute;
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import common.*;
+import input.Instance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible instances of a given size. The locations are spread uniformly over a square of about 11 km,
+ * the pickup ready times over an eight hour horizon, and the delivery due times 20 to 80 minutes after the ready times.
+ */
+public class SyntheticInstances {
+
+    private static final double AREA_SIZE_IN_DEGREES = 0.1;
+    private static final int DELIVERY_DUE_TIME_MIN_OFFSET_IN_SECONDS = 1200;
+    private static final int DELIVERY_DUE_TIME_OFFSET_RANGE_IN_SECONDS = 3600;
+    private static final int DRIVER_SHIFT_END_IN_SECONDS = 24 * 3600;
+    private static final int HORIZON_IN_SECONDS = 8 * 3600;
+    private static final double MIN_LATITUDE = 41.0;
+    private static final double MIN_LONGITUDE = 29.0;
+
+    /**
+     * Creates an instance whose number of orders is the number of drivers times the number of orders per driver, so
+     * that a solution has about twice the number of orders per driver tasks per route.
+     */
+    public static Instance create(int numDrivers, int numOrdersPerDriver, long seed) {
+        Random random = new Random(seed);
+        List<Driver> drivers = new ArrayList<>();
+        for (int driverIndex = 0; driverIndex < numDrivers; driverIndex++) {
+            TimeWindow shift = new TimeWindow(DRIVER_SHIFT_END_IN_SECONDS, random.nextInt(3600));
+            drivers.add(new Driver(4 + random.nextInt(6), 100 + driverIndex, createLocation(random), shift));
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int orderIndex = 0; orderIndex < numDrivers * numOrdersPerDriver; orderIndex++) {
+            int orderId = 1000 + orderIndex;
+            int numItems = 1 + random.nextInt(4);
+            int readyTime = random.nextInt(HORIZON_IN_SECONDS);
+            int dueTime = readyTime + DELIVERY_DUE_TIME_MIN_OFFSET_IN_SECONDS +
+                    random.nextInt(DELIVERY_DUE_TIME_OFFSET_RANGE_IN_SECONDS);
+            Task pickup = new Task(
+                    createLocation(random), numItems, orderId, new TimeWindow(Integer.MAX_VALUE, readyTime),
+                    TaskType.PICKUP);
+            Task delivery = new Task(
+                    createLocation(random), -numItems, orderId, new TimeWindow(dueTime, 0), TaskType.DELIVERY);
+            orders.add(new Order(delivery, orderId, pickup));
+        }
+        return new Instance(drivers, orders);
+    }
+
+    private static Location createLocation(Random random) {
+        return new Location(
+                MIN_LATITUDE + random.nextDouble() * AREA_SIZE_IN_DEGREES,
+                MIN_LONGITUDE + random.nextDouble() * AREA_SIZE_IN_DEGREES);
+    }
+}
@@ -2,64 +2,93 @@ package algorithms;
 
 import common.Driver;
 import common.Order;
-import common.OrderIdAndDriverId;
 import common.RouteCostFunction;
-import exceptions.InfeasibleRouteException;
+import common.VersionedMinHeap;
 import exceptions.UnserviceableOrderException;
 import input.Instance;
 import output.Route;
 import output.Solution;
 import utilities.SearchUtilities;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Inserts the pending order with the cheapest insertion first. The feasible insertions are kept in a min-heap, where
+ * the insertions into a route become stale once the route changes. Each route has a version incremented when an order
+ * is inserted into it, and the heap entries with an older version are discarded when they reach the top, so that only
+ * the insertions into the changed route are evaluated again after each insertion.
+ */
 public class GreedyInsertionHeuristic implements InsertionHeuristic {
 
-    private Map<OrderIdAndDriverId, OrderInsertionImpact> orderIdAndDriverId2orderInsertionImpact;
+    /**
+     * Versions of the routes indexed by the driver index
+     */
+    private int[] driverIndex2version;
     private Instance instance;
+    /**
+     * Insertion impacts of the pending orders indexed by the order index and the driver index, null for the orders
+     * that are not pending and for the infeasible or not evaluated insertions
+     */
+    private OrderInsertionImpact[][] orderIndex2driverIndex2orderInsertionImpact;
+    private int[] orderIndex2driverIndex;
+    /**
+     * Insertions indexed by the order index times the number of drivers plus the driver index
+     */
+    private VersionedMinHeap orderInsertionHeap;
+    /**
+     * Neighbour graph restricting the drivers evaluated for an order, or null if all drivers are evaluated
+     */
+    private OrderNeighbourGraph orderNeighbourGraph;
     private PartialSolution partialSolution;
     private RouteCostFunction routeCostFunction;
 
     public GreedyInsertionHeuristic(Instance instance, RouteCostFunction routeCostFunction) {
+        this(instance, null, routeCostFunction);
+    }
+
+    public GreedyInsertionHeuristic(
+            Instance instance, OrderNeighbourGraph orderNeighbourGraph, RouteCostFunction routeCostFunction) {
         this.instance = instance;
-        this.orderIdAndDriverId2orderInsertionImpact = new HashMap<>();
+        this.orderInsertionHeap = new VersionedMinHeap();
+        this.orderNeighbourGraph = orderNeighbourGraph;
         this.routeCostFunction = routeCostFunction;
     }
 
     @Override
     public Solution run(PartialSolution partialSolution) throws UnserviceableOrderException {
-        this.setPartialSolution(new PartialSolution(partialSolution));
+        this.setPartialSolution(partialSolution.copyUnlessModifiedInPlace());
         List<Order> pendingOrders = this.getPartialSolution().getPendingOrders();
-        Map<Integer, Order> orderId2order = pendingOrders.stream().collect(
-                Collectors.toMap(Order::getId, order -> order));
-        initializeOrderInsertionImpacts(pendingOrders, instance.getDrivers());
+        if (this.getOrderNeighbourGraph() != null)
+            this.setOrderIndex2driverIndex(this.getOrderNeighbourGraph().assignDrivers(this.getPartialSolution()));
+        initializeOrderInsertionImpacts(pendingOrders);
+        int numDrivers = this.getInstance().getDrivers().size();
         while (pendingOrders.size() > 0){
-            Map<Integer, OrderInsertionImpact> orderId2bestOrderInsertionImpact = new HashMap<>();
-            for (Order order : pendingOrders){
-                int driverId = findBestDriver(order);
-                OrderIdAndDriverId orderIdAndDriverId = new OrderIdAndDriverId(driverId, order.getId());
-                OrderInsertionImpact orderInsertionImpact = this.getOrderIdAndDriverId2orderInsertionImpact().get(
-                        orderIdAndDriverId);
-                orderId2bestOrderInsertionImpact.put(order.getId(), orderInsertionImpact);
-            }
-            int nextOrderId = findBestOrder(orderId2bestOrderInsertionImpact);
-            OrderInsertionImpact orderInsertionImpact = orderId2bestOrderInsertionImpact.get(nextOrderId);
-            int assignedDriverId = orderInsertionImpact.getOrderInsertion().getDriverId();
-            this.getPartialSolution().updateRoute(assignedDriverId, orderInsertionImpact.getRoute());
-            updateOrderInsertionImpacts(orderId2order, orderInsertionImpact.getOrderInsertion());
-            pendingOrders.remove(orderId2order.get(nextOrderId));
+            OrderInsertionImpact orderInsertionImpact = pollOrderInsertionImpact();
+            Order nextOrder = this.getInstance().getOrders().get(
+                    this.getOrderInsertionHeap().peekIndex() / numDrivers);
+            this.getOrderInsertionHeap().poll();
+            Route route = orderInsertionImpact.getRoute();
+            int driverIndex = route.getDriver().getIndex();
+            this.getPartialSolution().updateRoute(route.getDriver().getId(), route);
+            if (this.getOrderNeighbourGraph() != null)
+                this.getOrderIndex2driverIndex()[nextOrder.getIndex()] = driverIndex;
+            pendingOrders.remove(nextOrder);
+            this.getOrderIndex2driverIndex2orderInsertionImpact()[nextOrder.getIndex()] = null;
+            this.getDriverIndex2version()[driverIndex]++;
+            updateOrderInsertionImpacts(pendingOrders, nextOrder, route);
         }
-        Solution solution = new Solution(this.getPartialSolution().getDriverId2route());
-        solution.evaluate();
-        return solution;
+        return this.getPartialSolution().createSolution();
     }
 
     public void clear(){
+        this.setDriverIndex2version(null);
+        this.getOrderInsertionHeap().clear();
+        this.setOrderIndex2driverIndex(null);
+        this.setOrderIndex2driverIndex2orderInsertionImpact(null);
         this.setPartialSolution(null);
-        this.getOrderIdAndDriverId2orderInsertionImpact().clear();
     }
 
     @Override
@@ -67,81 +96,152 @@ public class GreedyInsertionHeuristic implements InsertionHeuristic {
         return InsertionHeuristicType.GREEDY_INSERTION;
     }
 
-    private int findBestOrder(Map<Integer, OrderInsertionImpact> orderId2bestOrderInsertionImpact){
-        assert orderId2bestOrderInsertionImpact.size() > 1;
-        int bestOrderId = -1;
-        double minCostDelta = Double.POSITIVE_INFINITY;
-        for (Map.Entry<Integer, OrderInsertionImpact> entry: orderId2bestOrderInsertionImpact.entrySet()){
-            if (entry.getValue().getCostDelta() < minCostDelta){
-                bestOrderId = entry.getKey();
-                minCostDelta = entry.getValue().getCostDelta();
-            }
+    /**
+     * Returns the cheapest insertion that is not stale, which is left at the top of the heap.
+     */
+    private OrderInsertionImpact pollOrderInsertionImpact(){
+        VersionedMinHeap orderInsertionHeap = this.getOrderInsertionHeap();
+        int numDrivers = this.getInstance().getDrivers().size();
+        while (true) {
+            int index = orderInsertionHeap.peekIndex();
+            int driverIndex = index % numDrivers;
+            OrderInsertionImpact[] driverIndex2orderInsertionImpact =
+                    this.getOrderIndex2driverIndex2orderInsertionImpact()[index / numDrivers];
+            if (driverIndex2orderInsertionImpact != null &&
+                    orderInsertionHeap.peekVersion() == this.getDriverIndex2version()[driverIndex])
+                return driverIndex2orderInsertionImpact[driverIndex];
+            orderInsertionHeap.poll();
+        }
+    }
+
+    /**
+     * Makes sure that the order has a feasible insertion, evaluating the drivers outside its neighbourhood if needed.
+     */
+    private void checkOrderInsertionImpacts(Order order) throws UnserviceableOrderException {
+        OrderInsertionImpact[] driverIndex2orderInsertionImpact =
+                this.getOrderIndex2driverIndex2orderInsertionImpact()[order.getIndex()];
+        for (OrderInsertionImpact orderInsertionImpact : driverIndex2orderInsertionImpact) {
+            if (orderInsertionImpact != null)
+                return;
         }
-        assert bestOrderId != -1;
-        return bestOrderId;
-    }
-
-    private int findBestDriver(Order order) throws UnserviceableOrderException {
-        int bestDriverId = -1;
-        double minCostDelta = Double.POSITIVE_INFINITY;
-        for (Map.Entry<OrderIdAndDriverId, OrderInsertionImpact> entry:
-                this.getOrderIdAndDriverId2orderInsertionImpact().entrySet()){
-            int orderId = entry.getKey().getOrderId();
-            if (orderId != order.getId())
-                continue;
-            if (entry.getValue().getCostDelta() < minCostDelta) {
-                bestDriverId = entry.getKey().getDriverId();
-                minCostDelta = entry.getValue().getCostDelta();
+        // the order may be feasible for a driver outside its neighbourhood
+        if (this.getOrderNeighbourGraph() != null && addOrderInsertionImpacts(Collections.singletonList(order),
+                Collections.singletonList(this.getInstance().getDrivers())))
+            return;
+        throw new UnserviceableOrderException(String.format("Cannot assign the order %d", order.getId()));
+    }
+
+    /**
+     * Adds the insertion impacts of each order for the drivers at the same index to the table and the heap, and
+     * returns true if any of them is feasible. The impacts are evaluated in parallel.
+     */
+    private boolean addOrderInsertionImpacts(List<Order> orders, List<List<Driver>> drivers){
+        Route[] driverIndex2route = new Route[this.getInstance().getDrivers().size()];
+        List<List<Route>> routes = new ArrayList<>();
+        for (List<Driver> driversOfOrder : drivers) {
+            List<Route> routesOfOrder = new ArrayList<>();
+            for (Driver driver : driversOfOrder) {
+                if (driverIndex2route[driver.getIndex()] == null)
+                    driverIndex2route[driver.getIndex()] = findRoute(driver);
+                routesOfOrder.add(driverIndex2route[driver.getIndex()]);
             }
+            routes.add(routesOfOrder);
         }
-        if (bestDriverId == -1)
-            throw new UnserviceableOrderException(String.format("Cannot assign the order %d", order.getId()));
-        return bestDriverId;
-    }
-
-    private void initializeOrderInsertionImpacts(List<Order> orders, List<Driver> drivers){
-        Map<OrderIdAndDriverId, OrderInsertionImpact> orderIdAndDriverId2orderInsertionImpact = new HashMap<>();
-        for (Order order : orders){
-            for (Driver driver: drivers){
-                OrderIdAndDriverId orderIdAndDriverId = new OrderIdAndDriverId(driver.getId(), order.getId());
-                Route route = this.getPartialSolution().getDriverId2route().getOrDefault(
-                        driver.getId(), new Route(driver));
-                OrderInsertionImpact orderInsertionImpact = null;
-                try {
-                    orderInsertionImpact = SearchUtilities.findBestOrderInsertion(
-                            route, order, this.getRouteCostFunction());
-                } catch (InfeasibleRouteException e) {
+        OrderInsertionImpact[][] orderInsertionImpacts = SearchUtilities.findBestOrderInsertions(
+                orders, routes, this.getRouteCostFunction());
+        boolean feasible = false;
+        for (int index = 0; index < orders.size(); index++) {
+            Order order = orders.get(index);
+            List<Driver> driversOfOrder = drivers.get(index);
+            for (int driverIndex = 0; driverIndex < driversOfOrder.size(); driverIndex++) {
+                OrderInsertionImpact orderInsertionImpact = orderInsertionImpacts[index][driverIndex];
+                if (orderInsertionImpact == null)
                     continue;
-                }
-                orderIdAndDriverId2orderInsertionImpact.put(orderIdAndDriverId, orderInsertionImpact);
+                putOrderInsertionImpact(order, driversOfOrder.get(driverIndex).getIndex(), orderInsertionImpact);
+                feasible = true;
             }
         }
-        this.setOrderIdAndDriverId2orderInsertionImpact(orderIdAndDriverId2orderInsertionImpact);
-    }
-
-    private void updateOrderInsertionImpacts(Map<Integer, Order> orderId2order, OrderInsertion lastOrderInsertion){
-        Map<OrderIdAndDriverId, OrderInsertionImpact> updatedOrderIdAndDriverId2orderInsertionImpact = new HashMap<>();
-        for (Map.Entry<OrderIdAndDriverId, OrderInsertionImpact> entry:
-                this.getOrderIdAndDriverId2orderInsertionImpact().entrySet()){
-            int orderId = entry.getKey().getOrderId();
-            if (orderId == lastOrderInsertion.getOrderId())
-                continue;
-            int driverId = entry.getKey().getDriverId();
-            if (driverId != lastOrderInsertion.getDriverId()) {
-                updatedOrderIdAndDriverId2orderInsertionImpact.put(entry.getKey(), entry.getValue());
-                continue;
-            }
-            OrderInsertionImpact updatedOrderInsertionImpact = null;
-            try {
-                updatedOrderInsertionImpact = SearchUtilities.findBestOrderInsertion(
-                        this.getPartialSolution().getDriverId2route().get(driverId), orderId2order.get(orderId),
-                        this.getRouteCostFunction());
-            } catch (InfeasibleRouteException e) {
-                continue;
+        return feasible;
+    }
+
+    /**
+     * Puts the insertion impact into the table, and into the heap with the current version of the route if it is
+     * feasible.
+     */
+    private void putOrderInsertionImpact(Order order, int driverIndex, OrderInsertionImpact orderInsertionImpact){
+        this.getOrderIndex2driverIndex2orderInsertionImpact()[order.getIndex()][driverIndex] = orderInsertionImpact;
+        if (orderInsertionImpact != null)
+            this.getOrderInsertionHeap().add(
+                    order.getIndex() * this.getInstance().getDrivers().size() + driverIndex,
+                    this.getDriverIndex2version()[driverIndex], orderInsertionImpact.getCostDelta());
+    }
+
+    private List<Driver> findCandidateDrivers(Order order){
+        if (this.getOrderNeighbourGraph() == null)
+            return this.getInstance().getDrivers();
+        return this.getOrderNeighbourGraph().findCandidateDrivers(order, this.getOrderIndex2driverIndex());
+    }
+
+    private Route findRoute(Driver driver){
+        Route route = this.getPartialSolution().getDriverId2route().get(driver.getId());
+        return route != null ? route : new Route(this.getInstance().getDistanceMatrix(), driver);
+    }
+
+    private void initializeOrderInsertionImpacts(List<Order> orders) throws UnserviceableOrderException {
+        int numDrivers = this.getInstance().getDrivers().size();
+        this.setDriverIndex2version(new int[numDrivers]);
+        this.getOrderInsertionHeap().clear();
+        this.setOrderIndex2driverIndex2orderInsertionImpact(
+                new OrderInsertionImpact[this.getInstance().getOrders().size()][]);
+        for (Order order : orders)
+            this.getOrderIndex2driverIndex2orderInsertionImpact()[order.getIndex()] =
+                    new OrderInsertionImpact[numDrivers];
+        List<List<Driver>> drivers = orders.stream().map(this::findCandidateDrivers).collect(Collectors.toList());
+        addOrderInsertionImpacts(orders, drivers);
+        for (Order order : orders)
+            checkOrderInsertionImpacts(order);
+    }
+
+    /**
+     * Reevaluates the insertions of the pending orders into the route of the last inserted order in place.
+     */
+    private void updateOrderInsertionImpacts(List<Order> pendingOrders, Order lastOrder, Route route) throws
+            UnserviceableOrderException {
+        OrderInsertionImpact[][] orderIndex2driverIndex2orderInsertionImpact =
+                this.getOrderIndex2driverIndex2orderInsertionImpact();
+        int driverIndex = route.getDriver().getIndex();
+        // the insertions into the route of the last order are evaluated together
+        List<Order> reevaluatedOrders = new ArrayList<>();
+        for (Order order : pendingOrders) {
+            if (orderIndex2driverIndex2orderInsertionImpact[order.getIndex()][driverIndex] != null)
+                reevaluatedOrders.add(order);
+        }
+        // the driver of the last order has become a candidate for the pending orders near the last order
+        if (this.getOrderNeighbourGraph() != null) {
+            for (int orderIndex :
+                    this.getOrderNeighbourGraph().getOrderIndex2reverseNearestOrderIndices()[lastOrder.getIndex()]) {
+                if (this.getOrderIndex2driverIndex()[orderIndex] == OrderNeighbourGraph.NO_DRIVER_INDEX &&
+                        orderIndex2driverIndex2orderInsertionImpact[orderIndex][driverIndex] == null)
+                    reevaluatedOrders.add(this.getInstance().getOrders().get(orderIndex));
             }
-            updatedOrderIdAndDriverId2orderInsertionImpact.put(entry.getKey(), updatedOrderInsertionImpact);
         }
-        this.setOrderIdAndDriverId2orderInsertionImpact(updatedOrderIdAndDriverId2orderInsertionImpact);
+        OrderInsertionImpact[] reevaluatedOrderInsertionImpacts = SearchUtilities.findBestOrderInsertions(
+                reevaluatedOrders, route, this.getRouteCostFunction());
+        for (int index = 0; index < reevaluatedOrders.size(); index++) {
+            Order order = reevaluatedOrders.get(index);
+            boolean feasible = orderIndex2driverIndex2orderInsertionImpact[order.getIndex()][driverIndex] != null;
+            putOrderInsertionImpact(order, driverIndex, reevaluatedOrderInsertionImpacts[index]);
+            if (feasible && reevaluatedOrderInsertionImpacts[index] == null)
+                checkOrderInsertionImpacts(order);
+        }
+    }
+
+    public int[] getDriverIndex2version() {
+        return driverIndex2version;
+    }
+
+    public void setDriverIndex2version(int[] driverIndex2version) {
+        this.driverIndex2version = driverIndex2version;
     }
 
     public Instance getInstance() {
@@ -152,13 +252,37 @@ public class GreedyInsertionHeuristic implements InsertionHeuristic {
         this.instance = instance;
     }
 
-    public Map<OrderIdAndDriverId, OrderInsertionImpact> getOrderIdAndDriverId2orderInsertionImpact() {
-        return orderIdAndDriverId2orderInsertionImpact;
+    public OrderInsertionImpact[][] getOrderIndex2driverIndex2orderInsertionImpact() {
+        return orderIndex2driverIndex2orderInsertionImpact;
+    }
+
+    public void setOrderIndex2driverIndex2orderInsertionImpact(
+            OrderInsertionImpact[][] orderIndex2driverIndex2orderInsertionImpact) {
+        this.orderIndex2driverIndex2orderInsertionImpact = orderIndex2driverIndex2orderInsertionImpact;
+    }
+
+    public int[] getOrderIndex2driverIndex() {
+        return orderIndex2driverIndex;
+    }
+
+    public void setOrderIndex2driverIndex(int[] orderIndex2driverIndex) {
+        this.orderIndex2driverIndex = orderIndex2driverIndex;
+    }
+
+    public VersionedMinHeap getOrderInsertionHeap() {
+        return orderInsertionHeap;
+    }
+
+    public void setOrderInsertionHeap(VersionedMinHeap orderInsertionHeap) {
+        this.orderInsertionHeap = orderInsertionHeap;
+    }
+
+    public OrderNeighbourGraph getOrderNeighbourGraph() {
+        return orderNeighbourGraph;
     }
 
-    public void setOrderIdAndDriverId2orderInsertionImpact(Map<OrderIdAndDriverId,
-            OrderInsertionImpact> orderIdAndDriverId2orderInsertionImpact) {
-        this.orderIdAndDriverId2orderInsertionImpact = orderIdAndDriverId2orderInsertionImpact;
+    public void setOrderNeighbourGraph(OrderNeighbourGraph orderNeighbourGraph) {
+        this.orderNeighbourGraph = orderNeighbourGraph;
     }
 
     public PartialSolution getPartialSolution() {
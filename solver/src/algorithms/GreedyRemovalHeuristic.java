@@ -1,7 +1,10 @@
 package algorithms;
 
+import common.BoundedMaxHeap;
 import common.Order;
 import common.RouteCostFunction;
+import common.Task;
+import common.TaskType;
 import exceptions.InfeasibleRouteException;
 import input.Instance;
 import output.Route;
@@ -9,56 +12,66 @@ import output.Solution;
 import utilities.SearchUtilities;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class GreedyRemovalHeuristic implements RemovalHeuristic {
 
-    private final static Random random = new Random(0);
-
-    private Map<Integer, OrderRemovalImpact> orderId2orderRemovalImpact;
     private Instance instance;
+    /**
+     * Removal impacts of the orders in the partial solution indexed by the order index, null for the removed orders
+     */
+    private OrderRemovalImpact[] orderIndex2orderRemovalImpact;
+    /**
+     * Number of the orders with a removal impact
+     */
+    private int numOrderRemovalImpacts;
     private int numOrdersToRemove;
     private PartialSolution partialSolution;
+    private Random random;
     private double randomizationCoefficient;
     private RouteCostFunction routeCostFunction;
+    /**
+     * The removal impacts up to the selected rank, with the removal impact at that rank at the top
+     */
+    private BoundedMaxHeap smallestOrderRemovalImpacts;
 
     public GreedyRemovalHeuristic(
-            Instance instance, int numOrdersToRemove, double randomizationCoefficient,
+            Instance instance, int numOrdersToRemove, Random random, double randomizationCoefficient,
             RouteCostFunction routeCostFunction) {
         this.instance = instance;
         this.numOrdersToRemove = numOrdersToRemove;
-        this.orderId2orderRemovalImpact = new HashMap<>();
+        this.random = random;
         this.randomizationCoefficient = randomizationCoefficient;
         this.routeCostFunction = routeCostFunction;
+        this.smallestOrderRemovalImpacts = new BoundedMaxHeap(0);
     }
 
     @Override
     public PartialSolution run(Solution solution) throws InfeasibleRouteException {
-        Map<Integer, Order> orderId2order = this.getInstance().getOrders().stream().collect(
-                Collectors.toMap(Order::getId, order -> order));
         List<Order> pendingOrders = new ArrayList<>();
-        this.setPartialSolution(new PartialSolution(solution.getDriverId2route(), pendingOrders));
+        this.setPartialSolution(new PartialSolution(solution, pendingOrders));
         initializeOrderRemovalImpacts();
         int numOrdersToRemove = this.getNumOrdersToRemove();
         while (numOrdersToRemove > 0){
-            int selectedOrderId = selectOrderIdToRemove();
-            Order selectedOrder = orderId2order.get(selectedOrderId);
-            OrderRemovalImpact orderRemovalImpact = this.getOrderId2orderRemovalImpact().get(selectedOrderId);
+            OrderRemovalImpact orderRemovalImpact = selectOrderRemovalImpact();
+            Order selectedOrder = this.getInstance().getOrders().get(orderRemovalImpact.getOrderIndex());
             int driverIdToUpdate = orderRemovalImpact.getDriverId();
-            Route routeToUpdate = this.getPartialSolution().getDriverId2route().get(driverIdToUpdate);
-            routeToUpdate.remove(selectedOrderId);
+            Route routeToUpdate = this.getPartialSolution().getRouteToModify(driverIdToUpdate);
+            routeToUpdate.remove(selectedOrder);
             routeToUpdate.evaluate(this.getRouteCostFunction());
             this.getPartialSolution().getPendingOrders().add(selectedOrder);
+            this.getOrderIndex2orderRemovalImpact()[selectedOrder.getIndex()] = null;
+            this.setNumOrderRemovalImpacts(this.getNumOrderRemovalImpacts() - 1);
             numOrdersToRemove--;
-            updateOrderRemovalImpacts(selectedOrderId, driverIdToUpdate);
+            // only the removals from the updated route change
+            putOrderRemovalImpacts(routeToUpdate);
         }
         return this.getPartialSolution();
     }
 
     @Override
     public void clear(){
+        this.setOrderIndex2orderRemovalImpact(null);
         this.setPartialSolution(null);
-        this.getOrderId2orderRemovalImpact().clear();
     }
 
     @Override
@@ -66,59 +79,47 @@ public class GreedyRemovalHeuristic implements RemovalHeuristic {
         return RemovalHeuristicType.GREEDY_REMOVAL;
     }
 
-    private void updateOrderRemovalImpacts(int lastRemovedOrderId, int lastUpdatedDriverId) throws
-            InfeasibleRouteException {
-        Map<Integer, OrderRemovalImpact> updatedOrderId2orderRemovalImpact = new HashMap<>();
-        for (Map.Entry<Integer, OrderRemovalImpact> entry : this.getOrderId2orderRemovalImpact().entrySet()){
-            int orderId = entry.getKey();
-            if (orderId == lastRemovedOrderId)
-                continue;
-            OrderRemovalImpact orderRemovalImpact = entry.getValue();
-            int driverId = orderRemovalImpact.getDriverId();
-            if (driverId != lastUpdatedDriverId) {
-                updatedOrderId2orderRemovalImpact.put(orderId, orderRemovalImpact);
-                continue;
-            }
-            Route route = this.getPartialSolution().getDriverId2route().get(driverId);
-            double currentCost = route.getCost();
-            Route updatedRoute = SearchUtilities.removeOrder(route, orderId, this.getRouteCostFunction());
-            double costDelta = updatedRoute.getCost() - currentCost;
-            OrderRemovalImpact updatedOrderRemovalImpact = new OrderRemovalImpact(driverId, orderId, costDelta);
-            updatedOrderId2orderRemovalImpact.put(orderId, updatedOrderRemovalImpact);
+    /**
+     * Selects the removal impact at a random rank in the increasing order of the cost deltas, where the equal cost
+     * deltas are ordered by the order indices. Only the removal impacts up to the rank are kept in a heap.
+     */
+    private OrderRemovalImpact selectOrderRemovalImpact(){
+        int selectedRank = (int) (Math.pow(this.getRandom().nextDouble(), this.getRandomizationCoefficient()) *
+                this.getNumOrderRemovalImpacts());
+        BoundedMaxHeap smallestOrderRemovalImpacts = this.getSmallestOrderRemovalImpacts();
+        smallestOrderRemovalImpacts.clear(selectedRank + 1);
+        for (OrderRemovalImpact orderRemovalImpact : this.getOrderIndex2orderRemovalImpact()) {
+            if (orderRemovalImpact != null)
+                smallestOrderRemovalImpacts.offer(
+                        orderRemovalImpact.getOrderIndex(), orderRemovalImpact.getCostDelta());
         }
-        this.setOrderId2orderRemovalImpact(updatedOrderId2orderRemovalImpact);
-    }
-
-    private int selectOrderIdToRemove(){
-        List<OrderRemovalImpact> orderRemovalImpacts = new ArrayList<>(this.getOrderId2orderRemovalImpact().values());
-        Collections.sort(orderRemovalImpacts);
-        int selectedIndex = (int) (Math.pow(random.nextDouble(), this.getRandomizationCoefficient()) *
-                orderRemovalImpacts.size());
-        return orderRemovalImpacts.get(selectedIndex).getOrderId();
+        return this.getOrderIndex2orderRemovalImpact()[smallestOrderRemovalImpacts.peekIndex()];
     }
 
     private void initializeOrderRemovalImpacts() throws InfeasibleRouteException {
-        Map<Integer, OrderRemovalImpact> orderId2orderRemovalImpact = new HashMap<>();
-        for (Map.Entry<Integer, Route> entry : this.getPartialSolution().getDriverId2route().entrySet()){
-            int driverId = entry.getKey();
-            Route route = entry.getValue();
-            double currentCost = route.getCost();
-            for (Integer orderId : route.getOrderIds()){
-                Route updatedRoute = SearchUtilities.removeOrder(route, orderId, this.getRouteCostFunction());
-                double costDelta = updatedRoute.getCost() - currentCost;
-                OrderRemovalImpact orderRemovalImpact = new OrderRemovalImpact(driverId, orderId, costDelta);
-                orderId2orderRemovalImpact.put(orderId, orderRemovalImpact);
-            }
+        this.setOrderIndex2orderRemovalImpact(new OrderRemovalImpact[this.getInstance().getOrders().size()]);
+        this.setNumOrderRemovalImpacts(0);
+        for (Route route : this.getPartialSolution().getDriverId2route().values()) {
+            putOrderRemovalImpacts(route);
+            this.setNumOrderRemovalImpacts(this.getNumOrderRemovalImpacts() + route.getTasks().size() / 2);
         }
-        this.setOrderId2orderRemovalImpact(orderId2orderRemovalImpact);
-    }
-
-    public Map<Integer, OrderRemovalImpact> getOrderId2orderRemovalImpact() {
-        return orderId2orderRemovalImpact;
     }
 
-    public void setOrderId2orderRemovalImpact(Map<Integer, OrderRemovalImpact> orderId2orderRemovalImpact) {
-        this.orderId2orderRemovalImpact = orderId2orderRemovalImpact;
+    /**
+     * Evaluates the removal of each order served by the route.
+     */
+    private void putOrderRemovalImpacts(Route route) throws InfeasibleRouteException {
+        int driverId = route.getDriver().getId();
+        double currentCost = route.getCost();
+        for (Task task : route.getTasks()){
+            if (task.getType().equals(TaskType.DELIVERY))
+                continue;
+            Order order = this.getInstance().getOrders().get(task.getOrderIndex());
+            Route updatedRoute = SearchUtilities.removeOrder(route, order, this.getRouteCostFunction());
+            double costDelta = updatedRoute.getCost() - currentCost;
+            this.getOrderIndex2orderRemovalImpact()[order.getIndex()] = new OrderRemovalImpact(
+                    driverId, order.getIndex(), costDelta);
+        }
     }
 
     public Instance getInstance() {
@@ -129,6 +130,22 @@ public class GreedyRemovalHeuristic implements RemovalHeuristic {
         this.instance = instance;
     }
 
+    public OrderRemovalImpact[] getOrderIndex2orderRemovalImpact() {
+        return orderIndex2orderRemovalImpact;
+    }
+
+    public void setOrderIndex2orderRemovalImpact(OrderRemovalImpact[] orderIndex2orderRemovalImpact) {
+        this.orderIndex2orderRemovalImpact = orderIndex2orderRemovalImpact;
+    }
+
+    public int getNumOrderRemovalImpacts() {
+        return numOrderRemovalImpacts;
+    }
+
+    public void setNumOrderRemovalImpacts(int numOrderRemovalImpacts) {
+        this.numOrderRemovalImpacts = numOrderRemovalImpacts;
+    }
+
     public int getNumOrdersToRemove() {
         return numOrdersToRemove;
     }
@@ -145,6 +162,14 @@ public class GreedyRemovalHeuristic implements RemovalHeuristic {
         this.partialSolution = partialSolution;
     }
 
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
     public double getRandomizationCoefficient() {
         return randomizationCoefficient;
     }
@@ -160,4 +185,12 @@ public class GreedyRemovalHeuristic implements RemovalHeuristic {
     public void setRouteCostFunction(RouteCostFunction routeCostFunction) {
         this.routeCostFunction = routeCostFunction;
     }
+
+    public BoundedMaxHeap getSmallestOrderRemovalImpacts() {
+        return smallestOrderRemovalImpacts;
+    }
+
+    public void setSmallestOrderRemovalImpacts(BoundedMaxHeap smallestOrderRemovalImpacts) {
+        this.smallestOrderRemovalImpacts = smallestOrderRemovalImpacts;
+    }
 }
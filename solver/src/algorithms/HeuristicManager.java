@@ -1,13 +1,12 @@
 package algorithms;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Random;
 
 public class HeuristicManager {
 
-    private final static Random random = new Random(0);
-
+    private Random random;
     private double reactionFactor;
     private HeuristicScoringFunction heuristicScoringFunction;
     private Map<InsertionHeuristicType, InsertionHeuristic> insertionHeuristicType2heuristic;
@@ -19,10 +18,11 @@ public class HeuristicManager {
 
     public HeuristicManager(
             Map<InsertionHeuristicType, InsertionHeuristic> insertionHeuristicType2heuristic,
-            Map<RemovalHeuristicType, RemovalHeuristic> removalHeuristicType2heuristic, double reactionFactor,
-            HeuristicScoringFunction heuristicScoringFunction) {
+            Map<RemovalHeuristicType, RemovalHeuristic> removalHeuristicType2heuristic, Random random,
+            double reactionFactor, HeuristicScoringFunction heuristicScoringFunction) {
         this.insertionHeuristicType2heuristic = insertionHeuristicType2heuristic;
         this.removalHeuristicType2heuristic = removalHeuristicType2heuristic;
+        this.random = random;
         assert (reactionFactor >= 0 & reactionFactor <= 1);
         this.reactionFactor = reactionFactor;
         this.heuristicScoringFunction = heuristicScoringFunction;
@@ -52,7 +52,7 @@ public class HeuristicManager {
             cumulativeProbabilities[index] = cumulativeProbability;
             index++;
         }
-        double randomVariate = random.nextDouble();
+        double randomVariate = this.getRandom().nextDouble();
         InsertionHeuristicType selectedHeuristicType = null;
         for (int i = 0; i < cumulativeProbabilities.length ; i++) {
             if (randomVariate <= cumulativeProbabilities[i]){
@@ -86,7 +86,7 @@ public class HeuristicManager {
             cumulativeProbabilities[index] = cumulativeProbability;
             index++;
         }
-        double randomVariate = random.nextDouble();
+        double randomVariate = this.getRandom().nextDouble();
         RemovalHeuristicType selectedHeuristicType = null;
         for (int i = 0; i < cumulativeProbabilities.length ; i++) {
             if (randomVariate <= cumulativeProbabilities[i]){
@@ -136,7 +136,8 @@ public class HeuristicManager {
     }
 
     public void updateHeuristicWeights(){
-        Map<InsertionHeuristicType, Double> updatedInsertionHeuristicType2weight = new HashMap<>();
+        Map<InsertionHeuristicType, Double> updatedInsertionHeuristicType2weight = new EnumMap<>(
+                InsertionHeuristicType.class);
         for (Map.Entry<InsertionHeuristicType, Double> entry: this.getInsertionHeuristicType2weight().entrySet()){
             InsertionHeuristicType heuristicType = entry.getKey();
             double currentWeight = entry.getValue();
@@ -148,7 +149,8 @@ public class HeuristicManager {
             updatedInsertionHeuristicType2weight.put(heuristicType, updatedWeight);
         }
         this.setInsertionHeuristicType2weight(updatedInsertionHeuristicType2weight);
-        Map<RemovalHeuristicType, Double> updatedRemovalHeuristicType2weight = new HashMap<>();
+        Map<RemovalHeuristicType, Double> updatedRemovalHeuristicType2weight = new EnumMap<>(
+                RemovalHeuristicType.class);
         for (Map.Entry<RemovalHeuristicType, Double> entry: this.getRemovalHeuristicType2weight().entrySet()){
             RemovalHeuristicType heuristicType = entry.getKey();
             double currentWeight = entry.getValue();
@@ -162,6 +164,33 @@ public class HeuristicManager {
         this.setRemovalHeuristicType2weight(updatedRemovalHeuristicType2weight);
     }
 
+    /**
+     * Moves the heuristic weights towards the given weights, e.g. the weights of other searches, by the given share.
+     * The heuristics without a given weight keep their weights.
+     */
+    public void blendHeuristicWeights(
+            Map<InsertionHeuristicType, Double> insertionHeuristicType2weight,
+            Map<RemovalHeuristicType, Double> removalHeuristicType2weight, double share){
+        Map<InsertionHeuristicType, Double> blendedInsertionHeuristicType2weight = new EnumMap<>(
+                InsertionHeuristicType.class);
+        for (Map.Entry<InsertionHeuristicType, Double> entry: this.getInsertionHeuristicType2weight().entrySet()){
+            Double weight = insertionHeuristicType2weight.get(entry.getKey());
+            double ownWeight = entry.getValue();
+            blendedInsertionHeuristicType2weight.put(
+                    entry.getKey(), weight == null ? ownWeight : (1 - share) * ownWeight + share * weight);
+        }
+        this.setInsertionHeuristicType2weight(blendedInsertionHeuristicType2weight);
+        Map<RemovalHeuristicType, Double> blendedRemovalHeuristicType2weight = new EnumMap<>(
+                RemovalHeuristicType.class);
+        for (Map.Entry<RemovalHeuristicType, Double> entry: this.getRemovalHeuristicType2weight().entrySet()){
+            Double weight = removalHeuristicType2weight.get(entry.getKey());
+            double ownWeight = entry.getValue();
+            blendedRemovalHeuristicType2weight.put(
+                    entry.getKey(), weight == null ? ownWeight : (1 - share) * ownWeight + share * weight);
+        }
+        this.setRemovalHeuristicType2weight(blendedRemovalHeuristicType2weight);
+    }
+
     private void initialize(){
         int numInsertionHeuristics = this.getInsertionHeuristicType2heuristic().size();
         int numRemovalHeuristics = this.getRemovalHeuristicType2heuristic().size();
@@ -170,10 +199,12 @@ public class HeuristicManager {
 
         double insertionHeuristicWeight = (double) 1 / numInsertionHeuristics;
         double removalHeuristicWeight = (double) 1 / numRemovalHeuristics;
-        Map<InsertionHeuristicType, HeuristicStatistics> insertionHeuristicType2statistics = new HashMap<>();
-        Map<InsertionHeuristicType, Double> insertionHeuristicType2weight = new HashMap<>();
-        Map<RemovalHeuristicType, HeuristicStatistics> removalHeuristicType2statistics = new HashMap<>();
-        Map<RemovalHeuristicType, Double> removalHeuristicType2weight = new HashMap<>();
+        Map<InsertionHeuristicType, HeuristicStatistics> insertionHeuristicType2statistics = new EnumMap<>(
+                InsertionHeuristicType.class);
+        Map<InsertionHeuristicType, Double> insertionHeuristicType2weight = new EnumMap<>(InsertionHeuristicType.class);
+        Map<RemovalHeuristicType, HeuristicStatistics> removalHeuristicType2statistics = new EnumMap<>(
+                RemovalHeuristicType.class);
+        Map<RemovalHeuristicType, Double> removalHeuristicType2weight = new EnumMap<>(RemovalHeuristicType.class);
 
         for (InsertionHeuristicType insertionHeuristicType : this.getInsertionHeuristicType2heuristic().keySet()){
             insertionHeuristicType2statistics.put(insertionHeuristicType, new HeuristicStatistics());
@@ -189,6 +220,14 @@ public class HeuristicManager {
         this.setRemovalHeuristicType2weight(removalHeuristicType2weight);
     }
 
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
     public HeuristicScoringFunction getHeuristicScoringFunction() {
         return heuristicScoringFunction;
     }
@@ -0,0 +1,26 @@
+package algorithms;
+
+import exceptions.InfeasibleRouteException;
+import output.Solution;
+
+import java.util.List;
+
+/**
+ * Improves the routes of a complete solution by moving its tasks until no improving move is left.
+ */
+public interface ImprovementHeuristic {
+
+    /**
+     * Minimum cost decrease of an improving move, so that the rounding errors of the cost deltas do not make a move
+     * look improving
+     */
+    double MIN_COST_DECREASE = 1e-6;
+
+    /**
+     * Applies the improving moves to the routes of the given drivers, and returns the improved solution, which is the
+     * given solution modified in place if it has a journal.
+     */
+    Solution run (Solution solution, List<Integer> driverIds) throws InfeasibleRouteException;
+
+    ImprovementHeuristicType getType();
+}
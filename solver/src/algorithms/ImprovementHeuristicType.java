@@ -0,0 +1,7 @@
+package algorithms;
+
+public enum ImprovementHeuristicType {
+    OR_OPT,
+    PICKUP_DELIVERY_EXCHANGE,
+    PICKUP_DELIVERY_RELOCATE
+}
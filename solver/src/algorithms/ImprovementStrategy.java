@@ -0,0 +1,15 @@
+package algorithms;
+
+/**
+ * Selects the move an improvement heuristic applies among the improving moves it evaluates.
+ */
+public enum ImprovementStrategy {
+    /**
+     * Every improving move is evaluated, and the one with the largest cost decrease is applied
+     */
+    BEST_IMPROVEMENT,
+    /**
+     * The first improving move found is applied
+     */
+    FIRST_IMPROVEMENT
+}
@@ -6,30 +6,60 @@ import exceptions.UnserviceableOrderException;
 import input.Instance;
 import output.Solution;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class LocalSearch {
 
+    /**
+     * Improvement heuristics applied in the given order to the routes changed by the removal and insertion heuristics
+     */
+    private List<ImprovementHeuristic> improvementHeuristics;
     private Instance instance;
     private InsertionHeuristic insertionHeuristic;
     private RemovalHeuristic removalHeuristic;
 
     public LocalSearch(Instance instance) {
+        this.improvementHeuristics = new ArrayList<>();
         this.instance = instance;
     }
 
+    /**
+     * Returns the candidate solution of the removal and insertion heuristics, which is the given solution modified in
+     * place if it has a journal. The journal then rolls back the changes made before an exception is thrown. The
+     * routes changed by the heuristics, or all routes if the solution has no journal, are then improved by the
+     * improvement heuristics.
+     */
     public Solution run (Solution solution) throws
             UnserviceableOrderException, InfeasibleRouteException, InfeasibleSolutionException {
-        Solution initialSolution = new Solution(solution);
         RemovalHeuristic removalHeuristic = this.getRemovalHeuristic();
         InsertionHeuristic insertionHeuristic = this.getInsertionHeuristic();
         removalHeuristic.clear();
         insertionHeuristic.clear();
-        PartialSolution partialSolution = removalHeuristic.run(initialSolution);
+        PartialSolution partialSolution = removalHeuristic.run(solution);
         partialSolution.validate(this.getInstance());
         Solution candidateSolution = insertionHeuristic.run(partialSolution);
+        if (!this.getImprovementHeuristics().isEmpty()) {
+            List<Integer> driverIds = new ArrayList<>(candidateSolution.getJournal() != null ?
+                    candidateSolution.getJournal().getDriverId2previousRoute().keySet() :
+                    candidateSolution.getDriverId2route().keySet());
+            // the order of the drivers is fixed so that the search is reproducible
+            driverIds.sort(null);
+            for (ImprovementHeuristic improvementHeuristic : this.getImprovementHeuristics())
+                candidateSolution = improvementHeuristic.run(candidateSolution, driverIds);
+        }
         candidateSolution.validate(this.getInstance());
         return candidateSolution;
     }
 
+    public List<ImprovementHeuristic> getImprovementHeuristics() {
+        return improvementHeuristics;
+    }
+
+    public void setImprovementHeuristics(List<ImprovementHeuristic> improvementHeuristics) {
+        this.improvementHeuristics = improvementHeuristics;
+    }
+
     public InsertionHeuristic getInsertionHeuristic() {
         return insertionHeuristic;
     }
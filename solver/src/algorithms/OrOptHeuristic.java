@@ -0,0 +1,248 @@
+package algorithms;
+
+import common.DistanceMatrix;
+import common.RouteCostFunction;
+import common.Task;
+import common.TaskType;
+import input.Instance;
+import output.Route;
+import output.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves a block of consecutive tasks to another position in the same route. A move is evaluated from the schedule
+ * kept on the route: only the tasks from the first moved position onwards are rescheduled, and the evaluation stops
+ * at the first following task whose completion time does not change.
+ */
+public class OrOptHeuristic implements ImprovementHeuristic {
+
+    /**
+     * Maximum number of consecutive tasks moved together
+     */
+    public static final int MAX_BLOCK_LENGTH = 3;
+
+    private ImprovementStrategy improvementStrategy;
+    private Instance instance;
+    private RouteCostFunction routeCostFunction;
+    /**
+     * Task indices of the route being evaluated at the positions changed by the move under evaluation
+     */
+    private int[] taskIndices;
+
+    public OrOptHeuristic(
+            Instance instance, ImprovementStrategy improvementStrategy, RouteCostFunction routeCostFunction) {
+        this.improvementStrategy = improvementStrategy;
+        this.instance = instance;
+        this.routeCostFunction = routeCostFunction;
+        this.taskIndices = new int[0];
+    }
+
+    @Override
+    public Solution run(Solution solution, List<Integer> driverIds) {
+        PartialSolution partialSolution = new PartialSolution(solution, new ArrayList<>());
+        for (int driverId : driverIds) {
+            Route route = partialSolution.getDriverId2route().get(driverId);
+            Route improvedRoute = route != null ? findImprovedRoute(route) : null;
+            while (improvedRoute != null) {
+                partialSolution.updateRoute(driverId, improvedRoute);
+                improvedRoute = findImprovedRoute(improvedRoute);
+            }
+        }
+        return partialSolution.createSolution();
+    }
+
+    @Override
+    public ImprovementHeuristicType getType() {
+        return ImprovementHeuristicType.OR_OPT;
+    }
+
+    /**
+     * Returns the route with a block of tasks moved as selected by the improvement strategy, or null if no move
+     * improves the route. The block starting at the first task index is moved before the task at the target index.
+     */
+    private Route findImprovedRoute(Route route){
+        int numTasks = route.getTasks().size();
+        if (this.getTaskIndices().length < numTasks)
+            this.setTaskIndices(new int[numTasks]);
+        double minCostDelta = -MIN_COST_DECREASE;
+        int bestFirstTaskIndex = -1;
+        int bestBlockLength = 0;
+        int bestTargetTaskIndex = -1;
+        search:
+        for (int blockLength = 1; blockLength <= Math.min(MAX_BLOCK_LENGTH, numTasks - 1); blockLength++) {
+            for (int firstTaskIndex = 0; firstTaskIndex + blockLength <= numTasks; firstTaskIndex++) {
+                for (int targetTaskIndex = 0; targetTaskIndex <= numTasks; targetTaskIndex++) {
+                    if (targetTaskIndex >= firstTaskIndex && targetTaskIndex <= firstTaskIndex + blockLength)
+                        continue;
+                    if (!isPrecedenceFeasible(route, firstTaskIndex, blockLength, targetTaskIndex))
+                        continue;
+                    double costDelta = calculateCostDelta(route, firstTaskIndex, blockLength, targetTaskIndex);
+                    if (costDelta < minCostDelta) {
+                        minCostDelta = costDelta;
+                        bestFirstTaskIndex = firstTaskIndex;
+                        bestBlockLength = blockLength;
+                        bestTargetTaskIndex = targetTaskIndex;
+                        if (this.getImprovementStrategy().equals(ImprovementStrategy.FIRST_IMPROVEMENT))
+                            break search;
+                    }
+                }
+            }
+        }
+        if (bestFirstTaskIndex == -1)
+            return null;
+        List<Task> tasks = new ArrayList<>(route.getTasks());
+        List<Task> block = new ArrayList<>(tasks.subList(bestFirstTaskIndex, bestFirstTaskIndex + bestBlockLength));
+        tasks.subList(bestFirstTaskIndex, bestFirstTaskIndex + bestBlockLength).clear();
+        tasks.addAll(bestTargetTaskIndex < bestFirstTaskIndex ?
+                bestTargetTaskIndex : bestTargetTaskIndex - bestBlockLength, block);
+        Route improvedRoute = Route.createIfFeasible(route.getDistanceMatrix(), route.getDriver(), tasks);
+        if (improvedRoute == null)
+            return null;
+        improvedRoute.evaluate(this.getRouteCostFunction());
+        if (improvedRoute.getCost() > route.getCost() - MIN_COST_DECREASE)
+            return null;
+        return improvedRoute;
+    }
+
+    /**
+     * Returns true if no order of the block is delivered before it is picked up after the block is moved. The tasks
+     * of the block keep their order, so that only the tasks the block is moved over are checked.
+     */
+    static boolean isPrecedenceFeasible(
+            Route route, int firstTaskIndex, int blockLength, int targetTaskIndex){
+        for (int taskIndex = firstTaskIndex; taskIndex < firstTaskIndex + blockLength; taskIndex++) {
+            Task task = route.getTasks().get(taskIndex);
+            if (targetTaskIndex < firstTaskIndex && task.getType().equals(TaskType.DELIVERY)) {
+                int pickUpTaskIndex = route.getPickupTaskIndex(task.getOrderIndex());
+                if (pickUpTaskIndex >= targetTaskIndex && pickUpTaskIndex < firstTaskIndex)
+                    return false;
+            }
+            if (targetTaskIndex > firstTaskIndex && !task.getType().equals(TaskType.DELIVERY)) {
+                int deliveryTaskIndex = route.getDeliveryTaskIndex(task.getOrderIndex());
+                if (deliveryTaskIndex >= firstTaskIndex + blockLength && deliveryTaskIndex < targetTaskIndex)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the cost delta of moving the block, or returns positive infinity if the driver capacity or the time
+     * window of the driver is violated.
+     */
+    double calculateCostDelta(Route route, int firstTaskIndex, int blockLength, int targetTaskIndex){
+        List<Task> tasks = route.getTasks();
+        int numTasks = tasks.size();
+        // the tasks at the positions in [fromTaskIndex, toTaskIndex] change
+        int fromTaskIndex = Math.min(firstTaskIndex, targetTaskIndex);
+        int toTaskIndex = Math.max(firstTaskIndex + blockLength, targetTaskIndex) - 1;
+        int[] taskIndices = this.getTaskIndices();
+        int position = 0;
+        if (targetTaskIndex < firstTaskIndex) {
+            for (int taskIndex = firstTaskIndex; taskIndex < firstTaskIndex + blockLength; taskIndex++)
+                taskIndices[position++] = taskIndex;
+            for (int taskIndex = targetTaskIndex; taskIndex < firstTaskIndex; taskIndex++)
+                taskIndices[position++] = taskIndex;
+        }
+        else {
+            for (int taskIndex = firstTaskIndex + blockLength; taskIndex < targetTaskIndex; taskIndex++)
+                taskIndices[position++] = taskIndex;
+            for (int taskIndex = firstTaskIndex; taskIndex < firstTaskIndex + blockLength; taskIndex++)
+                taskIndices[position++] = taskIndex;
+        }
+        DistanceMatrix distanceMatrix = route.getDistanceMatrix();
+        double[] taskCompletionTimes = route.getTaskCompletionTimes();
+        int capacity = route.getDriver().getCapacity();
+        int driverLoad = fromTaskIndex > 0 ? route.getDriverLoads()[fromTaskIndex - 1] : 0;
+        int locationIndex = fromTaskIndex > 0 ?
+                tasks.get(fromTaskIndex - 1).getLocationIndex() : route.getDriver().getStartLocationIndex();
+        double completionTime = fromTaskIndex > 0 ?
+                taskCompletionTimes[fromTaskIndex - 1] : route.getDriver().getTimeWindow().getStart();
+        double distance = 0.0;
+        double travelTime = 0.0;
+        int numLateDeliveriesDelta = 0;
+        double totalDeliveryDelayDelta = 0.0;
+        boolean scheduled = false;
+        for (position = fromTaskIndex; position < numTasks; position++) {
+            int taskIndex = position <= toTaskIndex ? taskIndices[position - fromTaskIndex] : position;
+            Task task = tasks.get(taskIndex);
+            double arcTravelTime = distanceMatrix.getTravelTime(locationIndex, task.getLocationIndex());
+            // the arcs to the changed positions and to the position following them change
+            if (position <= toTaskIndex + 1) {
+                distance += distanceMatrix.getDistance(locationIndex, task.getLocationIndex());
+                travelTime += arcTravelTime;
+            }
+            if (position <= toTaskIndex) {
+                driverLoad += task.getNumItems();
+                if (driverLoad > capacity)
+                    return Double.POSITIVE_INFINITY;
+            }
+            double arrivalTime = completionTime + arcTravelTime;
+            int timeWindowStart = task.getTimeWindow().getStart();
+            completionTime = (arrivalTime < timeWindowStart ? timeWindowStart : arrivalTime) +
+                    Task.SERVICE_TIME_IN_SECONDS;
+            // the waiting times absorbed the change
+            if (position > toTaskIndex && completionTime == taskCompletionTimes[position]) {
+                scheduled = true;
+                break;
+            }
+            if (task.getType().equals(TaskType.DELIVERY)) {
+                int timeWindowEnd = task.getTimeWindow().getEnd();
+                double currentCompletionTime = taskCompletionTimes[taskIndex];
+                if (currentCompletionTime > timeWindowEnd) {
+                    numLateDeliveriesDelta--;
+                    totalDeliveryDelayDelta -= currentCompletionTime - timeWindowEnd;
+                }
+                if (completionTime > timeWindowEnd) {
+                    numLateDeliveriesDelta++;
+                    totalDeliveryDelayDelta += completionTime - timeWindowEnd;
+                }
+            }
+            locationIndex = task.getLocationIndex();
+        }
+        if (!scheduled && completionTime > route.getDriver().getTimeWindow().getEnd())
+            return Double.POSITIVE_INFINITY;
+        int lastChangedArcIndex = Math.min(toTaskIndex + 1, numTasks - 1);
+        double currentDistance = route.getCumulativeDistances()[lastChangedArcIndex] -
+                (fromTaskIndex > 0 ? route.getCumulativeDistances()[fromTaskIndex - 1] : 0);
+        double currentTravelTime = route.getCumulativeTravelTimes()[lastChangedArcIndex] -
+                (fromTaskIndex > 0 ? route.getCumulativeTravelTimes()[fromTaskIndex - 1] : 0);
+        return this.getRouteCostFunction().calculateCost(
+                distance - currentDistance, numLateDeliveriesDelta, totalDeliveryDelayDelta,
+                travelTime - currentTravelTime);
+    }
+
+    public ImprovementStrategy getImprovementStrategy() {
+        return improvementStrategy;
+    }
+
+    public void setImprovementStrategy(ImprovementStrategy improvementStrategy) {
+        this.improvementStrategy = improvementStrategy;
+    }
+
+    public Instance getInstance() {
+        return instance;
+    }
+
+    public void setInstance(Instance instance) {
+        this.instance = instance;
+    }
+
+    public RouteCostFunction getRouteCostFunction() {
+        return routeCostFunction;
+    }
+
+    public void setRouteCostFunction(RouteCostFunction routeCostFunction) {
+        this.routeCostFunction = routeCostFunction;
+    }
+
+    public int[] getTaskIndices() {
+        return taskIndices;
+    }
+
+    public void setTaskIndices(int[] taskIndices) {
+        this.taskIndices = taskIndices;
+    }
+}
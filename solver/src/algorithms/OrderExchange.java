@@ -0,0 +1,93 @@
+package algorithms;
+
+import common.Order;
+import output.Route;
+
+/**
+ * Exchange of the orders of two routes evaluated by the {@link PickupDeliveryExchangeHeuristic}, where each order is
+ * inserted into the other route without its own order.
+ */
+public class OrderExchange {
+
+    private double costDelta;
+    private Order firstOrder;
+    /**
+     * Insertion of the first order into the second route without the second order
+     */
+    private OrderInsertion firstOrderInsertion;
+    private Route firstRouteWithoutOrder;
+    private Order secondOrder;
+    /**
+     * Insertion of the second order into the first route without the first order
+     */
+    private OrderInsertion secondOrderInsertion;
+    private Route secondRouteWithoutOrder;
+
+    public OrderExchange(
+            double costDelta, Order firstOrder, OrderInsertion firstOrderInsertion, Route firstRouteWithoutOrder,
+            Order secondOrder, OrderInsertion secondOrderInsertion, Route secondRouteWithoutOrder) {
+        this.costDelta = costDelta;
+        this.firstOrder = firstOrder;
+        this.firstOrderInsertion = firstOrderInsertion;
+        this.firstRouteWithoutOrder = firstRouteWithoutOrder;
+        this.secondOrder = secondOrder;
+        this.secondOrderInsertion = secondOrderInsertion;
+        this.secondRouteWithoutOrder = secondRouteWithoutOrder;
+    }
+
+    public double getCostDelta() {
+        return costDelta;
+    }
+
+    public void setCostDelta(double costDelta) {
+        this.costDelta = costDelta;
+    }
+
+    public Order getFirstOrder() {
+        return firstOrder;
+    }
+
+    public void setFirstOrder(Order firstOrder) {
+        this.firstOrder = firstOrder;
+    }
+
+    public OrderInsertion getFirstOrderInsertion() {
+        return firstOrderInsertion;
+    }
+
+    public void setFirstOrderInsertion(OrderInsertion firstOrderInsertion) {
+        this.firstOrderInsertion = firstOrderInsertion;
+    }
+
+    public Route getFirstRouteWithoutOrder() {
+        return firstRouteWithoutOrder;
+    }
+
+    public void setFirstRouteWithoutOrder(Route firstRouteWithoutOrder) {
+        this.firstRouteWithoutOrder = firstRouteWithoutOrder;
+    }
+
+    public Order getSecondOrder() {
+        return secondOrder;
+    }
+
+    public void setSecondOrder(Order secondOrder) {
+        this.secondOrder = secondOrder;
+    }
+
+    public OrderInsertion getSecondOrderInsertion() {
+        return secondOrderInsertion;
+    }
+
+    public void setSecondOrderInsertion(OrderInsertion secondOrderInsertion) {
+        this.secondOrderInsertion = secondOrderInsertion;
+    }
+
+    public Route getSecondRouteWithoutOrder() {
+        return secondRouteWithoutOrder;
+    }
+
+    public void setSecondRouteWithoutOrder(Route secondRouteWithoutOrder) {
+        this.secondRouteWithoutOrder = secondRouteWithoutOrder;
+    }
+}
@@ -0,0 +1,269 @@
+package algorithms;
+
+import common.*;
+import output.Route;
+
+import java.util.List;
+
+/**
+ * Evaluates the insertion of an order into a route without building the new route. The evaluation uses the arrival
+ * times, the cumulative waiting times and the latest arrival times kept on the route, so that the effect of the
+ * insertion on the tasks following the insertion points is found in constant time unless the insertion changes the
+ * delay of a late delivery.
+ */
+public class OrderInsertionEvaluator {
+
+    private RouteCostFunction costFunction;
+    private DistanceMatrix distanceMatrix;
+    private Route route;
+    private List<Task> tasks;
+
+    // cost components of the insertion under evaluation
+    private double distanceDelta;
+    private int numLateDeliveriesDelta;
+    private double totalDeliveryDelayDelta;
+    private double travelTimeDelta;
+
+    public OrderInsertionEvaluator(Route route, RouteCostFunction costFunction) {
+        this.costFunction = costFunction;
+        this.distanceMatrix = route.getDistanceMatrix();
+        this.route = route;
+        this.tasks = route.getTasks();
+    }
+
+    /**
+     * Calculates the cost delta of inserting the pickup and the delivery tasks of the order at the given task indices
+     * of the resulting route as in {@link OrderInsertion}. The driver capacity is not checked.
+     *
+     * @return the cost delta, or positive infinity if the time window of the driver is violated
+     */
+    public double calculateCostDelta(Order order, int pickUpTaskIndex, int deliveryTaskIndex) {
+        this.distanceDelta = 0.0;
+        this.numLateDeliveriesDelta = 0;
+        this.totalDeliveryDelayDelta = 0.0;
+        this.travelTimeDelta = 0.0;
+        Task pickup = order.getPickup();
+        Task delivery = order.getDelivery();
+        double pickUpCompletionTime = visit(
+                getLocationIndex(pickUpTaskIndex - 1), getCompletionTime(pickUpTaskIndex - 1), pickup);
+        int previousLocationIndex = pickup.getLocationIndex();
+        double previousCompletionTime = pickUpCompletionTime;
+        int nextTaskIndex = pickUpTaskIndex;
+        if (deliveryTaskIndex > pickUpTaskIndex + 1) {
+            // the tasks between the pickup and the delivery are shifted
+            int lastShiftedTaskIndex = deliveryTaskIndex - 2;
+            double arrivalTime = reconnect(previousLocationIndex, previousCompletionTime, nextTaskIndex);
+            previousCompletionTime = reschedule(nextTaskIndex, lastShiftedTaskIndex, arrivalTime);
+            previousLocationIndex = this.tasks.get(lastShiftedTaskIndex).getLocationIndex();
+            nextTaskIndex = lastShiftedTaskIndex + 1;
+        }
+        double deliveryCompletionTime = visit(previousLocationIndex, previousCompletionTime, delivery);
+        if (nextTaskIndex == this.tasks.size()) {
+            if (deliveryCompletionTime > this.route.getDriver().getTimeWindow().getEnd())
+                return Double.POSITIVE_INFINITY;
+            return calculateCostDelta();
+        }
+        double arrivalTime = reconnect(delivery.getLocationIndex(), deliveryCompletionTime, nextTaskIndex);
+        if (arrivalTime > this.route.getLatestArrivalTimes()[nextTaskIndex])
+            return Double.POSITIVE_INFINITY;
+        reschedule(nextTaskIndex, this.tasks.size() - 1, arrivalTime);
+        return calculateCostDelta();
+    }
+
+    /**
+     * Finds the insertion of the order into the route with the smallest cost delta without building the new route.
+     *
+     * @return the cost delta and the insertion with a null route, or null if the order cannot be inserted
+     */
+    public OrderInsertionImpact findBestOrderInsertion(Order order) {
+        int capacity = this.route.getDriver().getCapacity();
+        int numItems = order.getPickup().getNumItems();
+        int[] driverLoads = this.route.getDriverLoads();
+        double minCostDelta = Double.POSITIVE_INFINITY;
+        int bestPickUpIndex = -1;
+        int bestDeliveryIndex = -1;
+        // the positions after which the driver cannot complete the order in its time window are skipped
+        int lastPickUpIndex = findLastPickUpTaskIndex(order);
+        for (int pickUpIndex = 0; pickUpIndex <= lastPickUpIndex; pickUpIndex++) {
+            // the driver load while carrying the order can only increase as the delivery is postponed
+            int maxDriverLoad = (pickUpIndex > 0 ? driverLoads[pickUpIndex - 1] : 0) + numItems;
+            int lastDeliveryIndex = findLastDeliveryTaskIndex(order, pickUpIndex);
+            for (int deliveryIndex = pickUpIndex + 1; deliveryIndex <= lastDeliveryIndex; deliveryIndex++) {
+                if (deliveryIndex > pickUpIndex + 1)
+                    maxDriverLoad = Math.max(maxDriverLoad, driverLoads[deliveryIndex - 2] + numItems);
+                if (maxDriverLoad > capacity)
+                    break;
+                double costDelta = calculateCostDelta(order, pickUpIndex, deliveryIndex);
+                if (costDelta < minCostDelta){
+                    minCostDelta = costDelta;
+                    bestPickUpIndex = pickUpIndex;
+                    bestDeliveryIndex = deliveryIndex;
+                }
+            }
+        }
+        if (bestPickUpIndex == -1)
+            return null;
+        OrderInsertion bestOrderInsertion = new OrderInsertion(
+                bestDeliveryIndex, this.route.getDriver().getId(), order.getId(), bestPickUpIndex);
+        return new OrderInsertionImpact(minCostDelta, bestOrderInsertion, null);
+    }
+
+    /**
+     * Returns the last task index at which the pickup task of the order may be inserted without violating the time
+     * window of the driver, or -1 if there is none. The delivery cannot be completed before the pickup and the tasks
+     * before the pickup, and the completion times of the tasks do not decrease along the route, so that the index is
+     * found by a binary search on the completion times.
+     */
+    public int findLastPickUpTaskIndex(Order order){
+        int low = -1;
+        int high = this.tasks.size();
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            double minPickUpCompletionTime = calculateMinCompletionTime(
+                    order.getPickup(), getCompletionTime(middle - 1));
+            if (calculateMinCompletionTime(order.getDelivery(), minPickUpCompletionTime) <= getDriverTimeWindowEnd())
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the last task index at which the delivery task of the order may be inserted after the pickup task at the
+     * given index without violating the time window of the driver, or the pickup task index if there is none. If the
+     * arrival to the task following the pickup is not earlier than before, none of the shifted tasks is completed
+     * earlier, and the delivery cannot be completed before the last of them.
+     */
+    public int findLastDeliveryTaskIndex(Order order, int pickUpTaskIndex){
+        Task pickup = order.getPickup();
+        double pickUpCompletionTime = Math.max(
+                getCompletionTime(pickUpTaskIndex - 1) + this.distanceMatrix.getTravelTime(
+                        getLocationIndex(pickUpTaskIndex - 1), pickup.getLocationIndex()),
+                pickup.getTimeWindow().getStart()) + Task.SERVICE_TIME_IN_SECONDS;
+        if (calculateMinCompletionTime(order.getDelivery(), pickUpCompletionTime) > getDriverTimeWindowEnd())
+            return pickUpTaskIndex;
+        int lastDeliveryTaskIndex = this.tasks.size() + 1;
+        if (pickUpTaskIndex == this.tasks.size())
+            return lastDeliveryTaskIndex;
+        double arrivalTime = pickUpCompletionTime + this.distanceMatrix.getTravelTime(
+                pickup.getLocationIndex(), this.tasks.get(pickUpTaskIndex).getLocationIndex());
+        if (arrivalTime < this.route.getArrivalTimes()[pickUpTaskIndex])
+            return lastDeliveryTaskIndex;
+        // the delivery at index i follows the shifted task at index i - 2 of the route
+        int low = pickUpTaskIndex + 1;
+        int high = lastDeliveryTaskIndex;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (calculateMinCompletionTime(order.getDelivery(), getCompletionTime(middle - 2)) <=
+                    getDriverTimeWindowEnd())
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Returns a lower bound on the completion time of the task if it is visited after a task completed at the given
+     * time.
+     */
+    private static double calculateMinCompletionTime(Task task, double completionTime){
+        return Math.max(completionTime, task.getTimeWindow().getStart()) + Task.SERVICE_TIME_IN_SECONDS;
+    }
+
+    private double calculateCostDelta(){
+        return this.costFunction.calculateCost(
+                this.distanceDelta, this.numLateDeliveriesDelta, this.totalDeliveryDelayDelta, this.travelTimeDelta);
+    }
+
+    private double getCompletionTime(int taskIndex){
+        if (taskIndex < 0)
+            return this.route.getDriver().getTimeWindow().getStart();
+        return this.route.getTaskCompletionTimes()[taskIndex];
+    }
+
+    private int getDriverTimeWindowEnd(){
+        return this.route.getDriver().getTimeWindow().getEnd();
+    }
+
+    private int getLocationIndex(int taskIndex){
+        if (taskIndex < 0)
+            return this.route.getDriver().getStartLocationIndex();
+        return this.tasks.get(taskIndex).getLocationIndex();
+    }
+
+    /**
+     * Replaces the arc to the task at the given index with an arc from the given location and returns the new arrival
+     * time to the task.
+     */
+    private double reconnect(int locationIndex, double completionTime, int taskIndex){
+        double removedDistance = this.route.getArcDistances()[taskIndex];
+        double removedTravelTime = this.route.getArcTravelTimes()[taskIndex];
+        int taskLocationIndex = this.tasks.get(taskIndex).getLocationIndex();
+        double distance = this.distanceMatrix.getDistance(locationIndex, taskLocationIndex);
+        double travelTime = this.distanceMatrix.getTravelTime(locationIndex, taskLocationIndex);
+        this.distanceDelta += distance - removedDistance;
+        this.travelTimeDelta += travelTime - removedTravelTime;
+        return completionTime + travelTime;
+    }
+
+    /**
+     * Updates the delays of the deliveries between the given task indices when the arrival time to the first task
+     * changes, and returns the new completion time of the last task.
+     */
+    private double reschedule(int fromTaskIndex, int toTaskIndex, double arrivalTime){
+        double[] arrivalTimes = this.route.getArrivalTimes();
+        double[] cumulativeWaitingTimes = this.route.getCumulativeWaitingTimes();
+        double[] taskCompletionTimes = this.route.getTaskCompletionTimes();
+        double delay = arrivalTime - arrivalTimes[fromTaskIndex];
+        if (delay >= 0 && arrivalTime <= this.route.getLatestPenaltyFreeArrivalTimes()[fromTaskIndex]) {
+            double absorbedDelay = cumulativeWaitingTimes[toTaskIndex + 1] - cumulativeWaitingTimes[fromTaskIndex];
+            return taskCompletionTimes[toTaskIndex] + Math.max(0, delay - absorbedDelay);
+        }
+        double shift = 0.0;
+        for (int taskIndex = fromTaskIndex; taskIndex <= toTaskIndex; taskIndex++) {
+            Task task = this.tasks.get(taskIndex);
+            double completionTime = Math.max(arrivalTime, task.getTimeWindow().getStart()) +
+                    Task.SERVICE_TIME_IN_SECONDS;
+            double currentCompletionTime = taskCompletionTimes[taskIndex];
+            if (task.getType().equals(TaskType.DELIVERY)) {
+                int timeWindowEnd = task.getTimeWindow().getEnd();
+                if (currentCompletionTime > timeWindowEnd) {
+                    this.numLateDeliveriesDelta--;
+                    this.totalDeliveryDelayDelta -= currentCompletionTime - timeWindowEnd;
+                }
+                if (completionTime > timeWindowEnd) {
+                    this.numLateDeliveriesDelta++;
+                    this.totalDeliveryDelayDelta += completionTime - timeWindowEnd;
+                }
+            }
+            shift = completionTime - currentCompletionTime;
+            // the waiting time absorbed the change
+            if (shift == 0)
+                break;
+            if (taskIndex < toTaskIndex)
+                arrivalTime = arrivalTimes[taskIndex + 1] + shift;
+        }
+        return taskCompletionTimes[toTaskIndex] + shift;
+    }
+
+    /**
+     * Visits the given task after completing a task at the given location and time, and returns the completion time
+     * of the task.
+     */
+    private double visit(int locationIndex, double completionTime, Task task){
+        double distance = this.distanceMatrix.getDistance(locationIndex, task.getLocationIndex());
+        double travelTime = this.distanceMatrix.getTravelTime(locationIndex, task.getLocationIndex());
+        this.distanceDelta += distance;
+        this.travelTimeDelta += travelTime;
+        double taskCompletionTime = Math.max(completionTime + travelTime, task.getTimeWindow().getStart()) +
+                Task.SERVICE_TIME_IN_SECONDS;
+        int timeWindowEnd = task.getTimeWindow().getEnd();
+        if (task.getType().equals(TaskType.DELIVERY) && taskCompletionTime > timeWindowEnd) {
+            this.numLateDeliveriesDelta++;
+            this.totalDeliveryDelayDelta += taskCompletionTime - timeWindowEnd;
+        }
+        return taskCompletionTime;
+    }
+}
@@ -0,0 +1,189 @@
+package algorithms;
+
+import common.DistanceMatrix;
+import common.Driver;
+import common.Order;
+import common.Task;
+import input.Instance;
+import output.Route;
+
+import java.util.*;
+
+/**
+ * The nearest orders and the nearest drivers of each order. Two orders are compared by the travel times between their
+ * pickups and between their deliveries, plus the differences between their pickup ready times and their delivery due
+ * times. Drivers are compared by the travel time from their start locations to the pickup. Insertion heuristics use
+ * the graph to evaluate an order only for the drivers serving one of its nearest orders or starting near it.
+ */
+public class OrderNeighbourGraph {
+
+    public static final int NO_DRIVER_INDEX = -1;
+
+    private List<Driver> drivers;
+    private int numOrders;
+    private int[][] orderIndex2nearestDriverIndices;
+    private int[][] orderIndex2nearestOrderIndices;
+    /**
+     * Indices of the orders having the order among their nearest orders
+     */
+    private int[][] orderIndex2reverseNearestOrderIndices;
+
+    public OrderNeighbourGraph(Instance instance, int numNeighbours) {
+        List<Driver> drivers = instance.getDrivers();
+        List<Order> orders = instance.getOrders();
+        DistanceMatrix distanceMatrix = instance.getDistanceMatrix();
+        int numOrders = orders.size();
+        this.drivers = drivers;
+        this.numOrders = numOrders;
+        this.orderIndex2nearestDriverIndices = new int[numOrders][];
+        this.orderIndex2nearestOrderIndices = new int[numOrders][];
+        double[] orderDistances = new double[numOrders];
+        double[] driverDistances = new double[drivers.size()];
+        int[] numReverseNearestOrders = new int[numOrders];
+        for (Order order : orders) {
+            Task pickup = order.getPickup();
+            Task delivery = order.getDelivery();
+            for (Order otherOrder : orders) {
+                Task otherPickup = otherOrder.getPickup();
+                Task otherDelivery = otherOrder.getDelivery();
+                orderDistances[otherOrder.getIndex()] =
+                        distanceMatrix.getTravelTime(pickup.getLocationIndex(), otherPickup.getLocationIndex()) +
+                        distanceMatrix.getTravelTime(delivery.getLocationIndex(), otherDelivery.getLocationIndex()) +
+                        timeDifference(pickup.getTimeWindow().getStart(), otherPickup.getTimeWindow().getStart()) +
+                        timeDifference(delivery.getTimeWindow().getEnd(), otherDelivery.getTimeWindow().getEnd());
+            }
+            for (int driverIndex = 0; driverIndex < drivers.size(); driverIndex++) {
+                Driver driver = drivers.get(driverIndex);
+                // a driver whose shift ends before the order is ready comes last
+                driverDistances[driverIndex] = driver.getTimeWindow().getEnd() < pickup.getTimeWindow().getStart() ?
+                        Double.POSITIVE_INFINITY :
+                        distanceMatrix.getTravelTime(driver.getStartLocationIndex(), pickup.getLocationIndex());
+            }
+            int[] nearestOrderIndices = selectNearest(orderDistances, order.getIndex(), numNeighbours);
+            for (int nearestOrderIndex : nearestOrderIndices)
+                numReverseNearestOrders[nearestOrderIndex]++;
+            this.orderIndex2nearestOrderIndices[order.getIndex()] = nearestOrderIndices;
+            this.orderIndex2nearestDriverIndices[order.getIndex()] = selectNearest(
+                    driverDistances, -1, numNeighbours);
+        }
+        this.orderIndex2reverseNearestOrderIndices = new int[numOrders][];
+        for (int orderIndex = 0; orderIndex < numOrders; orderIndex++)
+            this.orderIndex2reverseNearestOrderIndices[orderIndex] = new int[numReverseNearestOrders[orderIndex]];
+        Arrays.fill(numReverseNearestOrders, 0);
+        for (int orderIndex = 0; orderIndex < numOrders; orderIndex++) {
+            for (int nearestOrderIndex : this.orderIndex2nearestOrderIndices[orderIndex])
+                this.orderIndex2reverseNearestOrderIndices[nearestOrderIndex][
+                        numReverseNearestOrders[nearestOrderIndex]++] = orderIndex;
+        }
+    }
+
+    /**
+     * Returns the indices of the drivers serving the orders in the given partial solution, indexed by the order index,
+     * where the pending orders have {@link #NO_DRIVER_INDEX}.
+     */
+    public int[] assignDrivers(PartialSolution partialSolution){
+        int[] orderIndex2driverIndex = new int[this.getNumOrders()];
+        Arrays.fill(orderIndex2driverIndex, NO_DRIVER_INDEX);
+        for (Route route : partialSolution.getDriverId2route().values()) {
+            int driverIndex = route.getDriver().getIndex();
+            for (Task task : route.getTasks())
+                orderIndex2driverIndex[task.getOrderIndex()] = driverIndex;
+        }
+        return orderIndex2driverIndex;
+    }
+
+    /**
+     * Returns the drivers serving one of the nearest orders of the given order, or being one of its nearest drivers,
+     * in the order of the drivers in the instance.
+     */
+    public List<Driver> findCandidateDrivers(Order order, int[] orderIndex2driverIndex){
+        boolean[] candidate = new boolean[this.getDrivers().size()];
+        for (int driverIndex : this.getOrderIndex2nearestDriverIndices()[order.getIndex()])
+            candidate[driverIndex] = true;
+        for (int orderIndex : this.getOrderIndex2nearestOrderIndices()[order.getIndex()]) {
+            int driverIndex = orderIndex2driverIndex[orderIndex];
+            if (driverIndex != NO_DRIVER_INDEX)
+                candidate[driverIndex] = true;
+        }
+        List<Driver> candidateDrivers = new ArrayList<>();
+        for (int driverIndex = 0; driverIndex < candidate.length; driverIndex++) {
+            if (candidate[driverIndex])
+                candidateDrivers.add(this.getDrivers().get(driverIndex));
+        }
+        return candidateDrivers;
+    }
+
+    /**
+     * Returns the indices of the given number of smallest distances in ascending order of the distances, where ties are
+     * broken by the index and the given index is excluded.
+     */
+    private static int[] selectNearest(double[] distances, int excludedIndex, int numNearest){
+        int[] nearestIndices = new int[Math.min(numNearest, distances.length - (excludedIndex < 0 ? 0 : 1))];
+        int numSelected = 0;
+        for (int index = 0; index < distances.length; index++) {
+            if (index == excludedIndex)
+                continue;
+            double distance = distances[index];
+            if (numSelected == nearestIndices.length) {
+                if (numSelected == 0 || distance >= distances[nearestIndices[numSelected - 1]])
+                    continue;
+                numSelected--;
+            }
+            // insertion into the sorted selection
+            int position = numSelected++;
+            while (position > 0 && distances[nearestIndices[position - 1]] > distance) {
+                nearestIndices[position] = nearestIndices[position - 1];
+                position--;
+            }
+            nearestIndices[position] = index;
+        }
+        return nearestIndices;
+    }
+
+    private static double timeDifference(int time, int otherTime){
+        // the time windows may be left open
+        if (time == Integer.MAX_VALUE || otherTime == Integer.MAX_VALUE)
+            return 0;
+        return Math.abs(time - otherTime);
+    }
+
+    public List<Driver> getDrivers() {
+        return drivers;
+    }
+
+    public void setDrivers(List<Driver> drivers) {
+        this.drivers = drivers;
+    }
+
+    public int getNumOrders() {
+        return numOrders;
+    }
+
+    public void setNumOrders(int numOrders) {
+        this.numOrders = numOrders;
+    }
+
+    public int[][] getOrderIndex2nearestDriverIndices() {
+        return orderIndex2nearestDriverIndices;
+    }
+
+    public void setOrderIndex2nearestDriverIndices(int[][] orderIndex2nearestDriverIndices) {
+        this.orderIndex2nearestDriverIndices = orderIndex2nearestDriverIndices;
+    }
+
+    public int[][] getOrderIndex2nearestOrderIndices() {
+        return orderIndex2nearestOrderIndices;
+    }
+
+    public void setOrderIndex2nearestOrderIndices(int[][] orderIndex2nearestOrderIndices) {
+        this.orderIndex2nearestOrderIndices = orderIndex2nearestOrderIndices;
+    }
+
+    public int[][] getOrderIndex2reverseNearestOrderIndices() {
+        return orderIndex2reverseNearestOrderIndices;
+    }
+
+    public void setOrderIndex2reverseNearestOrderIndices(int[][] orderIndex2reverseNearestOrderIndices) {
+        this.orderIndex2reverseNearestOrderIndices = orderIndex2reverseNearestOrderIndices;
+    }
+}
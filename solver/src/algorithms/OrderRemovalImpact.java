@@ -3,12 +3,12 @@ package algorithms;
 public class OrderRemovalImpact implements Comparable<OrderRemovalImpact> {
 
     private int driverId;
-    private int orderId;
+    private int orderIndex;
     private double costDelta;
 
-    public OrderRemovalImpact(int driverId, int orderId, double costDelta) {
+    public OrderRemovalImpact(int driverId, int orderIndex, double costDelta) {
         this.driverId = driverId;
-        this.orderId = orderId;
+        this.orderIndex = orderIndex;
         this.costDelta = costDelta;
     }
 
@@ -20,12 +20,12 @@ public class OrderRemovalImpact implements Comparable<OrderRemovalImpact> {
         this.driverId = driverId;
     }
 
-    public int getOrderId() {
-        return orderId;
+    public int getOrderIndex() {
+        return orderIndex;
     }
 
-    public void setOrderId(int orderId) {
-        this.orderId = orderId;
+    public void setOrderIndex(int orderIndex) {
+        this.orderIndex = orderIndex;
     }
 
     public double getCostDelta() {
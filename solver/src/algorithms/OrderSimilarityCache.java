@@ -0,0 +1,97 @@
+package algorithms;
+
+import common.DistanceMatrix;
+import common.Order;
+import input.Instance;
+
+import java.util.List;
+
+/**
+ * The distance and the load terms of the similarity values between the orders of an instance. The terms do not depend
+ * on the solution, so they are calculated once and kept in a triangular array over the order indices. The terms of
+ * large instances are calculated on demand to bound the memory used.
+ */
+public class OrderSimilarityCache {
+
+    private static final long MAX_NUM_CACHED_ORDER_PAIRS = 1L << 23;
+
+    private DistanceMatrix distanceMatrix;
+    private OrderSimilarityFunction orderSimilarityFunction;
+    private List<Order> orders;
+    /**
+     * The term of the orders with indices i > j at index i * (i - 1) / 2 + j, or null if the terms are not cached
+     */
+    private double[] staticSimilarityValues;
+
+    public OrderSimilarityCache(Instance instance, OrderSimilarityFunction orderSimilarityFunction) {
+        this.distanceMatrix = instance.getDistanceMatrix();
+        this.orderSimilarityFunction = orderSimilarityFunction;
+        this.orders = instance.getOrders();
+        long numOrderPairs = (long) this.orders.size() * (this.orders.size() - 1) / 2;
+        if (numOrderPairs > MAX_NUM_CACHED_ORDER_PAIRS)
+            return;
+        this.staticSimilarityValues = new double[(int) numOrderPairs];
+        for (int firstOrderIndex = 1; firstOrderIndex < this.orders.size(); firstOrderIndex++) {
+            int offset = firstOrderIndex * (firstOrderIndex - 1) / 2;
+            for (int secondOrderIndex = 0; secondOrderIndex < firstOrderIndex; secondOrderIndex++)
+                this.staticSimilarityValues[offset + secondOrderIndex] =
+                        calculateStaticSimilarityValue(firstOrderIndex, secondOrderIndex);
+        }
+    }
+
+    /**
+     * Returns the distance and the load terms of the similarity value between the orders with the given indices.
+     */
+    public double getStaticSimilarityValue(int firstOrderIndex, int secondOrderIndex) {
+        if (this.staticSimilarityValues == null || firstOrderIndex == secondOrderIndex)
+            return calculateStaticSimilarityValue(firstOrderIndex, secondOrderIndex);
+        int maxOrderIndex = Math.max(firstOrderIndex, secondOrderIndex);
+        int minOrderIndex = Math.min(firstOrderIndex, secondOrderIndex);
+        return this.staticSimilarityValues[maxOrderIndex * (maxOrderIndex - 1) / 2 + minOrderIndex];
+    }
+
+    private double calculateStaticSimilarityValue(int firstOrderIndex, int secondOrderIndex) {
+        Order firstOrder = this.orders.get(firstOrderIndex);
+        Order secondOrder = this.orders.get(secondOrderIndex);
+        double distanceBetweenPickUpTasks = this.distanceMatrix.getDistance(
+                firstOrder.getPickup().getLocationIndex(), secondOrder.getPickup().getLocationIndex());
+        double distanceBetweenDeliveryTasks = this.distanceMatrix.getDistance(
+                firstOrder.getDelivery().getLocationIndex(), secondOrder.getDelivery().getLocationIndex());
+        double differenceBetweenLoads = Math.abs(
+                firstOrder.getPickup().getNumItems() - secondOrder.getPickup().getNumItems());
+        return this.orderSimilarityFunction.calculateStaticSimilarityValue(
+                differenceBetweenLoads, distanceBetweenDeliveryTasks, distanceBetweenPickUpTasks);
+    }
+
+    public DistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
+    public void setDistanceMatrix(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    public OrderSimilarityFunction getOrderSimilarityFunction() {
+        return orderSimilarityFunction;
+    }
+
+    public void setOrderSimilarityFunction(OrderSimilarityFunction orderSimilarityFunction) {
+        this.orderSimilarityFunction = orderSimilarityFunction;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+
+    public double[] getStaticSimilarityValues() {
+        return staticSimilarityValues;
+    }
+
+    public void setStaticSimilarityValues(double[] staticSimilarityValues) {
+        this.staticSimilarityValues = staticSimilarityValues;
+    }
+}
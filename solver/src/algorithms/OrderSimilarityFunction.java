@@ -38,6 +38,28 @@ public class OrderSimilarityFunction {
                 this.getTaskLoadCoefficient() * taskLoadTerm;
     }
 
+    /**
+     * Returns the distance and the load terms of the similarity value, which do not depend on the solution.
+     */
+    public double calculateStaticSimilarityValue(
+            double differenceBetweenLoads, double distanceBetweenDeliveryTasks, double distanceBetweenPickUpTasks){
+        double taskDistanceTerm = this.getTaskDistanceScalingFunction().scale(distanceBetweenPickUpTasks) +
+                this.getTaskDistanceScalingFunction().scale(distanceBetweenDeliveryTasks);
+        double taskLoadTerm = this.getTaskLoadDifferenceScalingFunction().scale(differenceBetweenLoads);
+        return this.getTaskDistanceCoefficient() * taskDistanceTerm + this.getTaskLoadCoefficient() * taskLoadTerm;
+    }
+
+    /**
+     * Returns the task completion time term of the similarity value.
+     */
+    public double calculateTaskCompletionTimeSimilarityValue(
+            double differenceBetweenDeliveryTimes, double differenceBetweenPickUpTimes){
+        double taskCompletionTimeTerm = this.getTaskCompletionTimeDifferenceScalingFunction().scale(
+                differenceBetweenPickUpTimes) +
+                this.getTaskCompletionTimeDifferenceScalingFunction().scale(differenceBetweenDeliveryTimes);
+        return this.getTaskCompletionTimeCoefficient() * taskCompletionTimeTerm;
+    }
+
     public double getTaskCompletionTimeCoefficient() {
         return taskCompletionTimeCoefficient;
     }
@@ -4,37 +4,112 @@ import common.Order;
 import exceptions.InfeasibleSolutionException;
 import input.Instance;
 import output.Route;
+import output.Solution;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * A solution with pending orders. As in {@link output.Solution}, the routes may be shared with other solutions and
+ * are not modified in place, except the ones copied by {@link #getRouteToModify(int)}. A partial solution created
+ * from a solution with a journal modifies the routes of that solution in place and records the replaced routes in its
+ * journal.
+ */
 public class PartialSolution {
 
+    /**
+     * Ids of the drivers whose routes are copied by this partial solution and can be modified in place
+     */
+    private Set<Integer> copiedRouteDriverIds;
     private Map<Integer, Route> driverId2route;
     private List<Order> pendingOrders;
+    /**
+     * Solution whose routes are modified in place, or null if the partial solution has its own routes
+     */
+    private Solution solution;
 
     public PartialSolution(List<Order> pendingOrders) {
-        this.driverId2route = new HashMap<>();
-        this.pendingOrders = pendingOrders;
+        this(new HashMap<>(), pendingOrders);
     }
 
     public PartialSolution(Map<Integer, Route> driverId2route, List<Order> pendingOrders) {
+        this.copiedRouteDriverIds = new HashSet<>();
         this.driverId2route = driverId2route;
         this.pendingOrders = pendingOrders;
     }
 
+    /**
+     * Creates a partial solution with the routes of the solution, which modifies the solution in place if it has a
+     * journal and shares its routes otherwise.
+     */
+    public PartialSolution(Solution solution, List<Order> pendingOrders) {
+        this(solution.getJournal() != null ? solution.getDriverId2route() :
+                new HashMap<>(solution.getDriverId2route()), pendingOrders);
+        if (solution.getJournal() != null)
+            this.solution = solution;
+    }
+
+    /**
+     * Creates a copy of the partial solution that shares its routes.
+     */
     public PartialSolution (PartialSolution solution){
-        Map<Integer, Route> driverId2route = new HashMap<>();
-        for (Map.Entry<Integer, Route> entry : solution.getDriverId2route().entrySet())
-            driverId2route.put(entry.getKey(), new Route(entry.getValue()));
-        this.driverId2route = driverId2route;
-        this.pendingOrders = new ArrayList<>(solution.getPendingOrders());
+        this(new HashMap<>(solution.getDriverId2route()), new ArrayList<>(solution.getPendingOrders()));
+    }
+
+    /**
+     * Returns the route of the driver to be modified in place, which is copied first unless it is copied before. The
+     * cost of the route must be evaluated after it is modified.
+     */
+    public Route getRouteToModify(int driverId){
+        Route route = this.getDriverId2route().get(driverId);
+        if (this.getCopiedRouteDriverIds().add(driverId)) {
+            recordRouteChange(driverId, route);
+            route = new Route(route);
+            this.getDriverId2route().put(driverId, route);
+        }
+        return route;
     }
 
     public void updateRoute(int driverId, Route route){
+        recordRouteChange(driverId, this.getDriverId2route().get(driverId));
         this.getDriverId2route().put(driverId, route);
+        this.getCopiedRouteDriverIds().remove(driverId);
+    }
+
+    /**
+     * Returns the partial solution itself if it modifies a solution in place, otherwise a copy, so that an insertion
+     * heuristic completes the copy and leaves the given partial solution unchanged.
+     */
+    public PartialSolution copyUnlessModifiedInPlace(){
+        return this.getSolution() != null ? this : new PartialSolution(this);
+    }
+
+    /**
+     * Returns the solution of the routes once there are no pending orders. If the partial solution modifies a solution
+     * in place, that solution is returned with its cost updated from the changed routes, otherwise a new solution is
+     * evaluated. The routes must be evaluated.
+     */
+    public Solution createSolution(){
+        Solution solution = this.getSolution();
+        if (solution != null) {
+            solution.setCost(solution.getJournal().calculateCost(solution));
+            return solution;
+        }
+        solution = new Solution(this.getDriverId2route());
+        solution.evaluate();
+        return solution;
+    }
+
+    private void recordRouteChange(int driverId, Route previousRoute){
+        if (this.getSolution() != null)
+            this.getSolution().getJournal().recordRouteChange(driverId, previousRoute);
+    }
+
+    public Set<Integer> getCopiedRouteDriverIds() {
+        return copiedRouteDriverIds;
+    }
+
+    public void setCopiedRouteDriverIds(Set<Integer> copiedRouteDriverIds) {
+        this.copiedRouteDriverIds = copiedRouteDriverIds;
     }
 
     public Map<Integer, Route> getDriverId2route() {
@@ -53,6 +128,14 @@ public class PartialSolution {
         this.pendingOrders = pendingOrders;
     }
 
+    public Solution getSolution() {
+        return solution;
+    }
+
+    public void setSolution(Solution solution) {
+        this.solution = solution;
+    }
+
     public void validate(Instance instance) throws InfeasibleSolutionException {
         List<Integer> assignedOrderIds = new ArrayList<>();
         for (Route route: this.getDriverId2route().values()) {
@@ -0,0 +1,180 @@
+package algorithms;
+
+import common.Order;
+import common.RouteCostFunction;
+import input.Instance;
+import output.Route;
+import output.Solution;
+import utilities.SearchUtilities;
+
+import java.util.*;
+
+/**
+ * Exchanges the orders of two routes, where each order is inserted at its best positions in the other route. The
+ * routes without each of their orders and the evaluators of the insertions into them are built when a pair of routes
+ * is first evaluated, and are kept until the route changes, so that an exchange rebuilds only the two routes it
+ * changes. The insertions are evaluated without building the new routes.
+ */
+public class PickupDeliveryExchangeHeuristic implements ImprovementHeuristic {
+
+    private ImprovementStrategy improvementStrategy;
+    private Instance instance;
+    private RouteCostFunction routeCostFunction;
+
+    public PickupDeliveryExchangeHeuristic(
+            Instance instance, ImprovementStrategy improvementStrategy, RouteCostFunction routeCostFunction) {
+        this.improvementStrategy = improvementStrategy;
+        this.instance = instance;
+        this.routeCostFunction = routeCostFunction;
+    }
+
+    @Override
+    public Solution run(Solution solution, List<Integer> driverIds) {
+        PartialSolution partialSolution = new PartialSolution(solution, new ArrayList<>());
+        Map<Integer, RouteOrderRemovals> driverId2routeOrderRemovals = new HashMap<>();
+        boolean improved;
+        do {
+            improved = applyExchange(partialSolution, driverIds, driverId2routeOrderRemovals);
+        } while (improved);
+        return partialSolution.createSolution();
+    }
+
+    @Override
+    public ImprovementHeuristicType getType() {
+        return ImprovementHeuristicType.PICKUP_DELIVERY_EXCHANGE;
+    }
+
+    /**
+     * Applies the exchange between the routes of the given drivers selected by the improvement strategy, and returns
+     * false if no exchange improves the routes. An exchange whose routes do not improve once they are built is skipped
+     * in favour of the next one.
+     */
+    private boolean applyExchange(
+            PartialSolution partialSolution, List<Integer> driverIds,
+            Map<Integer, RouteOrderRemovals> driverId2routeOrderRemovals){
+        boolean firstImprovement = this.getImprovementStrategy().equals(ImprovementStrategy.FIRST_IMPROVEMENT);
+        List<OrderExchange> orderExchanges = new ArrayList<>();
+        for (int firstIndex = 0; firstIndex < driverIds.size(); firstIndex++) {
+            RouteOrderRemovals firstRouteOrderRemovals = getRouteOrderRemovals(
+                    partialSolution, driverIds.get(firstIndex), driverId2routeOrderRemovals);
+            if (firstRouteOrderRemovals == null)
+                continue;
+            for (int secondIndex = firstIndex + 1; secondIndex < driverIds.size(); secondIndex++) {
+                RouteOrderRemovals secondRouteOrderRemovals = getRouteOrderRemovals(
+                        partialSolution, driverIds.get(secondIndex), driverId2routeOrderRemovals);
+                if (secondRouteOrderRemovals == null)
+                    continue;
+                double routeCosts = firstRouteOrderRemovals.getRoute().getCost() +
+                        secondRouteOrderRemovals.getRoute().getCost();
+                List<Order> firstOrders = firstRouteOrderRemovals.getOrders();
+                List<Order> secondOrders = secondRouteOrderRemovals.getOrders();
+                for (int firstOrderIndex = 0; firstOrderIndex < firstOrders.size(); firstOrderIndex++) {
+                    Route firstRouteWithoutOrder = firstRouteOrderRemovals.getRoutesWithoutOrders().get(
+                            firstOrderIndex);
+                    for (int secondOrderIndex = 0; secondOrderIndex < secondOrders.size(); secondOrderIndex++) {
+                        OrderInsertionImpact secondOrderInsertionImpact = firstRouteOrderRemovals
+                                .getOrderInsertionEvaluators().get(firstOrderIndex)
+                                .findBestOrderInsertion(secondOrders.get(secondOrderIndex));
+                        if (secondOrderInsertionImpact == null)
+                            continue;
+                        OrderInsertionImpact firstOrderInsertionImpact = secondRouteOrderRemovals
+                                .getOrderInsertionEvaluators().get(secondOrderIndex)
+                                .findBestOrderInsertion(firstOrders.get(firstOrderIndex));
+                        if (firstOrderInsertionImpact == null)
+                            continue;
+                        Route secondRouteWithoutOrder = secondRouteOrderRemovals.getRoutesWithoutOrders().get(
+                                secondOrderIndex);
+                        double costDelta = firstRouteWithoutOrder.getCost() +
+                                secondOrderInsertionImpact.getCostDelta() + secondRouteWithoutOrder.getCost() +
+                                firstOrderInsertionImpact.getCostDelta() - routeCosts;
+                        if (costDelta >= -MIN_COST_DECREASE)
+                            continue;
+                        OrderExchange orderExchange = new OrderExchange(
+                                costDelta, firstOrders.get(firstOrderIndex),
+                                firstOrderInsertionImpact.getOrderInsertion(), firstRouteWithoutOrder,
+                                secondOrders.get(secondOrderIndex), secondOrderInsertionImpact.getOrderInsertion(),
+                                secondRouteWithoutOrder);
+                        if (!firstImprovement)
+                            orderExchanges.add(orderExchange);
+                        else if (applyExchange(partialSolution, orderExchange))
+                            return true;
+                    }
+                }
+            }
+        }
+        // the sort is stable, so that the exchanges with equal cost deltas are tried in the order they are found
+        orderExchanges.sort(Comparator.comparingDouble(OrderExchange::getCostDelta));
+        for (OrderExchange orderExchange : orderExchanges) {
+            if (applyExchange(partialSolution, orderExchange))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds the routes of the exchange and updates the partial solution with them, unless they do not improve the
+     * routes once they are evaluated.
+     */
+    private boolean applyExchange(PartialSolution partialSolution, OrderExchange orderExchange){
+        Route firstRouteWithoutOrder = orderExchange.getFirstRouteWithoutOrder();
+        Route secondRouteWithoutOrder = orderExchange.getSecondRouteWithoutOrder();
+        int firstDriverId = firstRouteWithoutOrder.getDriver().getId();
+        int secondDriverId = secondRouteWithoutOrder.getDriver().getId();
+        Route improvedFirstRoute = SearchUtilities.insertOrderIfFeasible(
+                firstRouteWithoutOrder, orderExchange.getSecondOrder(), orderExchange.getSecondOrderInsertion(),
+                this.getRouteCostFunction());
+        Route improvedSecondRoute = SearchUtilities.insertOrderIfFeasible(
+                secondRouteWithoutOrder, orderExchange.getFirstOrder(), orderExchange.getFirstOrderInsertion(),
+                this.getRouteCostFunction());
+        double routeCosts = partialSolution.getDriverId2route().get(firstDriverId).getCost() +
+                partialSolution.getDriverId2route().get(secondDriverId).getCost();
+        if (improvedFirstRoute == null || improvedSecondRoute == null ||
+                improvedFirstRoute.getCost() + improvedSecondRoute.getCost() > routeCosts - MIN_COST_DECREASE)
+            return false;
+        partialSolution.updateRoute(firstDriverId, improvedFirstRoute);
+        partialSolution.updateRoute(secondDriverId, improvedSecondRoute);
+        return true;
+    }
+
+    /**
+     * Returns the removals of the orders of the route of the driver, which are built unless they are built for the
+     * current route before, or null if the driver has no tasks.
+     */
+    private RouteOrderRemovals getRouteOrderRemovals(
+            PartialSolution partialSolution, int driverId,
+            Map<Integer, RouteOrderRemovals> driverId2routeOrderRemovals){
+        Route route = partialSolution.getDriverId2route().get(driverId);
+        if (route == null || route.getTasks().isEmpty())
+            return null;
+        RouteOrderRemovals routeOrderRemovals = driverId2routeOrderRemovals.get(driverId);
+        if (routeOrderRemovals == null || routeOrderRemovals.getRoute() != route) {
+            routeOrderRemovals = new RouteOrderRemovals(this.getInstance(), route, this.getRouteCostFunction());
+            driverId2routeOrderRemovals.put(driverId, routeOrderRemovals);
+        }
+        return routeOrderRemovals;
+    }
+
+    public ImprovementStrategy getImprovementStrategy() {
+        return improvementStrategy;
+    }
+
+    public void setImprovementStrategy(ImprovementStrategy improvementStrategy) {
+        this.improvementStrategy = improvementStrategy;
+    }
+
+    public Instance getInstance() {
+        return instance;
+    }
+
+    public void setInstance(Instance instance) {
+        this.instance = instance;
+    }
+
+    public RouteCostFunction getRouteCostFunction() {
+        return routeCostFunction;
+    }
+
+    public void setRouteCostFunction(RouteCostFunction routeCostFunction) {
+        this.routeCostFunction = routeCostFunction;
+    }
+}
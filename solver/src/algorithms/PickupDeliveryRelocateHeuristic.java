@@ -0,0 +1,113 @@
+package algorithms;
+
+import common.Order;
+import common.RouteCostFunction;
+import common.Task;
+import common.TaskType;
+import input.Instance;
+import output.Route;
+import output.Solution;
+import utilities.SearchUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the pickup and the delivery of an order to other positions in the same route. The order is removed from the
+ * route once, and its insertions into the remaining route are evaluated without building the new routes.
+ */
+public class PickupDeliveryRelocateHeuristic implements ImprovementHeuristic {
+
+    private ImprovementStrategy improvementStrategy;
+    private Instance instance;
+    private RouteCostFunction routeCostFunction;
+
+    public PickupDeliveryRelocateHeuristic(
+            Instance instance, ImprovementStrategy improvementStrategy, RouteCostFunction routeCostFunction) {
+        this.improvementStrategy = improvementStrategy;
+        this.instance = instance;
+        this.routeCostFunction = routeCostFunction;
+    }
+
+    @Override
+    public Solution run(Solution solution, List<Integer> driverIds) {
+        PartialSolution partialSolution = new PartialSolution(solution, new ArrayList<>());
+        for (int driverId : driverIds) {
+            Route route = partialSolution.getDriverId2route().get(driverId);
+            Route improvedRoute = route != null ? findImprovedRoute(route) : null;
+            while (improvedRoute != null) {
+                partialSolution.updateRoute(driverId, improvedRoute);
+                improvedRoute = findImprovedRoute(improvedRoute);
+            }
+        }
+        return partialSolution.createSolution();
+    }
+
+    @Override
+    public ImprovementHeuristicType getType() {
+        return ImprovementHeuristicType.PICKUP_DELIVERY_RELOCATE;
+    }
+
+    /**
+     * Returns the route with an order relocated as selected by the improvement strategy, or null if no relocation
+     * improves the route.
+     */
+    private Route findImprovedRoute(Route route){
+        double minCostDelta = -MIN_COST_DECREASE;
+        Order bestOrder = null;
+        Route bestRouteWithoutOrder = null;
+        OrderInsertion bestOrderInsertion = null;
+        for (Task task : route.getTasks()) {
+            if (task.getType().equals(TaskType.DELIVERY))
+                continue;
+            Order order = this.getInstance().getOrders().get(task.getOrderIndex());
+            Route routeWithoutOrder = SearchUtilities.removeOrderIfFeasible(route, order, this.getRouteCostFunction());
+            if (routeWithoutOrder == null)
+                continue;
+            OrderInsertionImpact orderInsertionImpact = new OrderInsertionEvaluator(
+                    routeWithoutOrder, this.getRouteCostFunction()).findBestOrderInsertion(order);
+            if (orderInsertionImpact == null)
+                continue;
+            double costDelta = routeWithoutOrder.getCost() + orderInsertionImpact.getCostDelta() - route.getCost();
+            if (costDelta < minCostDelta) {
+                minCostDelta = costDelta;
+                bestOrder = order;
+                bestRouteWithoutOrder = routeWithoutOrder;
+                bestOrderInsertion = orderInsertionImpact.getOrderInsertion();
+                if (this.getImprovementStrategy().equals(ImprovementStrategy.FIRST_IMPROVEMENT))
+                    break;
+            }
+        }
+        if (bestOrder == null)
+            return null;
+        Route improvedRoute = SearchUtilities.insertOrderIfFeasible(
+                bestRouteWithoutOrder, bestOrder, bestOrderInsertion, this.getRouteCostFunction());
+        if (improvedRoute == null || improvedRoute.getCost() > route.getCost() - MIN_COST_DECREASE)
+            return null;
+        return improvedRoute;
+    }
+
+    public ImprovementStrategy getImprovementStrategy() {
+        return improvementStrategy;
+    }
+
+    public void setImprovementStrategy(ImprovementStrategy improvementStrategy) {
+        this.improvementStrategy = improvementStrategy;
+    }
+
+    public Instance getInstance() {
+        return instance;
+    }
+
+    public void setInstance(Instance instance) {
+        this.instance = instance;
+    }
+
+    public RouteCostFunction getRouteCostFunction() {
+        return routeCostFunction;
+    }
+
+    public void setRouteCostFunction(RouteCostFunction routeCostFunction) {
+        this.routeCostFunction = routeCostFunction;
+    }
+}
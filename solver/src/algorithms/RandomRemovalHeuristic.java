@@ -9,37 +9,40 @@ import output.Solution;
 
 import java.util.*;
 
+/**
+ * Removes orders selected uniformly at random. The orders are sampled by their indices, and their routes are found
+ * through the task indices kept by the routes, so that the removal does not depend on the number of orders.
+ */
 public class RandomRemovalHeuristic implements RemovalHeuristic {
 
-    private final static Random random = new Random(0);
-
     private Instance instance;
     private int numOrdersToRemove;
+    private Random random;
     private RouteCostFunction routeCostFunction;
 
-    public RandomRemovalHeuristic(Instance instance, int numOrdersToRemove, RouteCostFunction routeCostFunction) {
+    public RandomRemovalHeuristic(
+            Instance instance, int numOrdersToRemove, Random random, RouteCostFunction routeCostFunction) {
         this.instance = instance;
         this.numOrdersToRemove = numOrdersToRemove;
+        this.random = random;
         this.routeCostFunction = routeCostFunction;
     }
 
     @Override
     public PartialSolution run(Solution initialSolution) throws InfeasibleRouteException {
-        Solution solution = new Solution(initialSolution);
-        Map<Integer, Integer> orderId2driverId = new HashMap<>();
-        for (Map.Entry<Integer, Route> entry : initialSolution.getDriverId2route().entrySet()){
-            for (Integer orderId : entry.getValue().getOrderIds())
-                orderId2driverId.put(orderId, entry.getKey());
-        }
         List<Order> selectedOrders = selectOrdersToRemove();
-        for (Order order : selectedOrders){
-            int orderId = order.getId();
-            int driverId = orderId2driverId.get(orderId);
-            Route route = solution.getDriverId2route().get(driverId);
-            route.remove(orderId);
+        // the drivers are found before the routes are modified in place
+        int[] driverIds = new int[selectedOrders.size()];
+        for (int position = 0; position < selectedOrders.size(); position++)
+            driverIds[position] = findDriverId(initialSolution, selectedOrders.get(position));
+        PartialSolution partialSolution = new PartialSolution(initialSolution, selectedOrders);
+        for (int position = 0; position < selectedOrders.size(); position++){
+            Order order = selectedOrders.get(position);
+            Route route = partialSolution.getRouteToModify(driverIds[position]);
+            route.remove(order);
             route.evaluate(this.getRouteCostFunction());
         }
-        return new PartialSolution(solution.getDriverId2route(), selectedOrders);
+        return partialSolution;
     }
 
     @Override
@@ -51,21 +54,40 @@ public class RandomRemovalHeuristic implements RemovalHeuristic {
         return RemovalHeuristicType.RANDOM_REMOVAL;
     }
 
-    private List<Order> selectOrdersToRemove(){
-        Map<Integer, Order> orderId2order = new HashMap<>();
-        List<Integer> orderIds = new ArrayList<>();
-        for (Order order : this.getInstance().getOrders()){
-            orderId2order.put(order.getId(), order);
-            orderIds.add(order.getId());
+    /**
+     * Returns the id of the driver serving the order.
+     *
+     * @throws IllegalStateException if no route serves the order
+     */
+    private static int findDriverId(Solution solution, Order order){
+        for (Map.Entry<Integer, Route> entry : solution.getDriverId2route().entrySet()) {
+            if (entry.getValue().getPickupTaskIndex(order.getIndex()) != Route.NO_TASK_INDEX)
+                return entry.getKey();
         }
+        throw new IllegalStateException(String.format("Order %d is not served by any route", order.getId()));
+    }
+
+    /**
+     * Selects the orders at random positions among the orders not selected before, in the order of their indices.
+     */
+    private List<Order> selectOrdersToRemove(){
+        List<Order> orders = this.getInstance().getOrders();
         int numOrdersToRemove = this.getNumOrdersToRemove();
+        // the indices of the selected orders in increasing order
+        int[] selectedOrderIndices = new int[numOrdersToRemove];
         List<Order> selectedOrders = new ArrayList<>();
-        while (numOrdersToRemove > 0){
-            int selectedIndex = random.nextInt(orderIds.size());
-            int selectedOrderId = orderIds.get(selectedIndex);
-            selectedOrders.add(orderId2order.get(selectedOrderId));
-            numOrdersToRemove--;
-            orderIds.remove(selectedIndex);
+        for (int numSelectedOrders = 0; numSelectedOrders < numOrdersToRemove; numSelectedOrders++){
+            int orderIndex = this.getRandom().nextInt(orders.size() - numSelectedOrders);
+            // skip the selected orders up to the position
+            int position = 0;
+            while (position < numSelectedOrders && selectedOrderIndices[position] <= orderIndex) {
+                orderIndex++;
+                position++;
+            }
+            System.arraycopy(selectedOrderIndices, position, selectedOrderIndices, position + 1,
+                    numSelectedOrders - position);
+            selectedOrderIndices[position] = orderIndex;
+            selectedOrders.add(orders.get(orderIndex));
         }
         return selectedOrders;
     }
@@ -86,6 +108,14 @@ public class RandomRemovalHeuristic implements RemovalHeuristic {
         this.numOrdersToRemove = numOrdersToRemove;
     }
 
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
     public RouteCostFunction getRouteCostFunction() {
         return routeCostFunction;
     }
@@ -1,31 +1,71 @@
 package algorithms;
 
+import common.BoundedMaxHeap;
 import common.Driver;
 import common.Order;
 import common.RouteCostFunction;
-import exceptions.InfeasibleRouteException;
+import common.VersionedMinHeap;
 import exceptions.UnserviceableOrderException;
 import input.Instance;
 import output.Route;
 import output.Solution;
 import utilities.SearchUtilities;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Inserts the pending order with the largest regret first, where the regret of an order is the sum of the differences
+ * between the cost deltas of its regret horizon cheapest insertions and the cheapest one. The cheapest insertions of
+ * each order are kept in a bounded heap, which changes only when the insertion of the order into the last changed
+ * route changes. The regrets are kept in a heap with a version per order, and the entries with an older version are
+ * discarded when they reach the top.
+ */
 public class RegretBasedInsertionHeuristic implements InsertionHeuristic {
 
     private Instance instance;
-    private Map<Integer, List<OrderInsertionImpact>> orderId2bestOrderInsertionImpacts;
-    private Map<Integer, List<OrderInsertionImpact>> orderId2candidateOrderInsertionImpacts;
+    /**
+     * Driver indices and cost deltas of the cheapest feasible insertions of the pending orders, indexed by the order
+     * index
+     */
+    private BoundedMaxHeap[] orderIndex2bestInsertions;
+    private int[] orderIndex2driverIndex;
+    /**
+     * Insertion impacts of the pending orders indexed by the order index and the driver index, null for the orders
+     * that are not pending and for the infeasible or not evaluated insertions
+     */
+    private OrderInsertionImpact[][] orderIndex2driverIndex2orderInsertionImpact;
+    /**
+     * Versions of the regrets indexed by the order index
+     */
+    private int[] orderIndex2version;
+    /**
+     * Neighbour graph restricting the drivers evaluated for an order, or null if all drivers are evaluated
+     */
+    private OrderNeighbourGraph orderNeighbourGraph;
+    /**
+     * Negated regrets of the pending orders indexed by the order index, so that the largest regret is at the top
+     */
+    private VersionedMinHeap regretHeap;
     private int regretHorizon;
     private RouteCostFunction routeCostFunction;
     private PartialSolution partialSolution;
 
     public RegretBasedInsertionHeuristic(Instance instance, RouteCostFunction routeCostFunction, int regretHorizon) {
+        this(instance, null, routeCostFunction, regretHorizon);
+    }
+
+    public RegretBasedInsertionHeuristic(
+            Instance instance, OrderNeighbourGraph orderNeighbourGraph, RouteCostFunction routeCostFunction,
+            int regretHorizon) {
         this.instance = instance;
-        this.orderId2bestOrderInsertionImpacts = new HashMap<>();
-        this.orderId2candidateOrderInsertionImpacts = new HashMap<>();
+        this.orderIndex2bestInsertions = new BoundedMaxHeap[instance.getOrders().size()];
+        for (int orderIndex = 0; orderIndex < this.orderIndex2bestInsertions.length; orderIndex++)
+            this.orderIndex2bestInsertions[orderIndex] = new BoundedMaxHeap(regretHorizon);
+        this.orderNeighbourGraph = orderNeighbourGraph;
+        this.regretHeap = new VersionedMinHeap();
         assert regretHorizon > 1;
         this.regretHorizon = regretHorizon;
         this.routeCostFunction = routeCostFunction;
@@ -33,34 +73,31 @@ public class RegretBasedInsertionHeuristic implements InsertionHeuristic {
 
     @Override
     public Solution run(PartialSolution partialSolution) throws UnserviceableOrderException {
-        this.setPartialSolution(new PartialSolution(partialSolution));
+        this.setPartialSolution(partialSolution.copyUnlessModifiedInPlace());
         List<Order> pendingOrders = this.getPartialSolution().getPendingOrders();
-        Map<Integer, Order> orderId2order = pendingOrders.stream().collect(
-                Collectors.toMap(Order::getId, order -> order));
-        initializeOrderInsertionImpacts(pendingOrders, instance.getDrivers());
+        if (this.getOrderNeighbourGraph() != null)
+            this.setOrderIndex2driverIndex(this.getOrderNeighbourGraph().assignDrivers(this.getPartialSolution()));
+        initializeOrderInsertionImpacts(pendingOrders);
         while (pendingOrders.size() > 0){
-            Map<Integer, Double> orderId2regret = new HashMap<>();
-            for (Order order : pendingOrders){
-                double regret = calculateRegret(this.getOrderId2bestOrderInsertionImpacts().get(order.getId()));
-                orderId2regret.put(order.getId(), regret);
-            }
-            int nextOrderId = findBestOrder(orderId2regret);
-            OrderInsertionImpact bestOrderInsertionImpact = findBestOrderInsertionImpact(
-                    nextOrderId, this.getOrderId2bestOrderInsertionImpacts().get(nextOrderId));
-            int assignedDriverId = bestOrderInsertionImpact.getOrderInsertion().getDriverId();
-            this.getPartialSolution().updateRoute(assignedDriverId, bestOrderInsertionImpact.getRoute());
-            updateOrderInsertionImpacts(
-                    orderId2order, instance.getDrivers(), bestOrderInsertionImpact.getOrderInsertion());
-            pendingOrders.remove(orderId2order.get(nextOrderId));
+            Order nextOrder = pollBestOrder();
+            OrderInsertionImpact bestOrderInsertionImpact = findBestOrderInsertionImpact(nextOrder);
+            Route route = bestOrderInsertionImpact.getRoute();
+            this.getPartialSolution().updateRoute(route.getDriver().getId(), route);
+            if (this.getOrderNeighbourGraph() != null)
+                this.getOrderIndex2driverIndex()[nextOrder.getIndex()] = route.getDriver().getIndex();
+            pendingOrders.remove(nextOrder);
+            this.getOrderIndex2driverIndex2orderInsertionImpact()[nextOrder.getIndex()] = null;
+            updateOrderInsertionImpacts(pendingOrders, nextOrder, route);
         }
-        Solution solution = new Solution(this.getPartialSolution().getDriverId2route());
-        solution.evaluate();
-        return solution;
+        return this.getPartialSolution().createSolution();
     }
 
     public void clear(){
+        this.setOrderIndex2driverIndex(null);
+        this.setOrderIndex2driverIndex2orderInsertionImpact(null);
+        this.setOrderIndex2version(null);
         this.setPartialSolution(null);
-        this.getOrderId2bestOrderInsertionImpacts().clear();
+        this.getRegretHeap().clear();
     }
 
     @Override
@@ -68,173 +105,193 @@ public class RegretBasedInsertionHeuristic implements InsertionHeuristic {
         return InsertionHeuristicType.REGRET_BASED_INSERTION;
     }
 
-    private int findBestOrder(Map<Integer, Double> orderId2regret){
-        assert orderId2regret.size() > 1;
-        int bestOrderId = -1;
-        double maxRegret = Double.NEGATIVE_INFINITY;
-        for (Map.Entry<Integer, Double> entry: orderId2regret.entrySet()){
-            if (entry.getValue() > maxRegret){
-                bestOrderId = entry.getKey();
-                maxRegret = entry.getValue();
-            }
+    /**
+     * Removes and returns the pending order with the largest regret, the one with the smallest index among the ties.
+     */
+    private Order pollBestOrder(){
+        VersionedMinHeap regretHeap = this.getRegretHeap();
+        while (true) {
+            int orderIndex = regretHeap.peekIndex();
+            boolean stale = this.getOrderIndex2driverIndex2orderInsertionImpact()[orderIndex] == null ||
+                    regretHeap.peekVersion() != this.getOrderIndex2version()[orderIndex];
+            regretHeap.poll();
+            if (!stale)
+                return this.getInstance().getOrders().get(orderIndex);
         }
-        assert bestOrderId != -1;
-        return bestOrderId;
     }
 
-    private double calculateRegret(List<OrderInsertionImpact> orderInsertionImpacts){
+    /**
+     * Adds the current regret of the order to the heap with a new version.
+     */
+    private void addRegret(Order order){
+        BoundedMaxHeap bestInsertions = this.getOrderIndex2bestInsertions()[order.getIndex()];
+        double[] costDeltas = bestInsertions.getValues();
         double minCostDelta = Double.POSITIVE_INFINITY;
-        for (OrderInsertionImpact orderInsertionImpact : orderInsertionImpacts){
-            if (orderInsertionImpact.getCostDelta() < minCostDelta)
-                minCostDelta = orderInsertionImpact.getCostDelta();
-        }
+        for (int index = 0; index < bestInsertions.getSize(); index++)
+            minCostDelta = Math.min(minCostDelta, costDeltas[index]);
         double regret = 0.0;
-        for (OrderInsertionImpact orderInsertionImpact : orderInsertionImpacts){
-            regret += orderInsertionImpact.getCostDelta() - minCostDelta;
+        for (int index = 0; index < bestInsertions.getSize(); index++)
+            regret += costDeltas[index] - minCostDelta;
+        int version = ++this.getOrderIndex2version()[order.getIndex()];
+        this.getRegretHeap().add(order.getIndex(), version, -regret);
+    }
+
+    /**
+     * Returns the cheapest insertion of the order, the one with the smallest driver index among the ties.
+     */
+    private OrderInsertionImpact findBestOrderInsertionImpact(Order order){
+        BoundedMaxHeap bestInsertions = this.getOrderIndex2bestInsertions()[order.getIndex()];
+        int[] driverIndices = bestInsertions.getIndices();
+        double[] costDeltas = bestInsertions.getValues();
+        int bestIndex = 0;
+        for (int index = 1; index < bestInsertions.getSize(); index++) {
+            int comparison = Double.compare(costDeltas[index], costDeltas[bestIndex]);
+            if (comparison < 0 || (comparison == 0 && driverIndices[index] < driverIndices[bestIndex]))
+                bestIndex = index;
         }
-        return regret;
+        return this.getOrderIndex2driverIndex2orderInsertionImpact()[order.getIndex()][driverIndices[bestIndex]];
     }
 
-    private OrderInsertionImpact findBestOrderInsertionImpact(
-            int orderId, List<OrderInsertionImpact> orderInsertionImpacts) throws UnserviceableOrderException {
-        OrderInsertionImpact bestOrderInsertionImpact = null;
-        double minCostDelta = Double.POSITIVE_INFINITY;
-        for (OrderInsertionImpact orderInsertionImpact : orderInsertionImpacts){
-            if (orderInsertionImpact.getCostDelta() < minCostDelta) {
-                bestOrderInsertionImpact = orderInsertionImpact;
-                minCostDelta = orderInsertionImpact.getCostDelta();
+    /**
+     * Makes sure that the order has a feasible insertion, evaluating the drivers outside its neighbourhood if needed.
+     */
+    private void checkOrderInsertionImpacts(Order order) throws UnserviceableOrderException {
+        if (this.getOrderIndex2bestInsertions()[order.getIndex()].getSize() > 0)
+            return;
+        // the order may be feasible for a driver outside its neighbourhood
+        if (this.getOrderNeighbourGraph() != null && addOrderInsertionImpacts(Collections.singletonList(order),
+                Collections.singletonList(this.getInstance().getDrivers())))
+            return;
+        throw new UnserviceableOrderException(String.format("Cannot assign the order %d", order.getId()));
+    }
+
+    /**
+     * Adds the insertion impacts of each order for the drivers at the same index to the table and the cheapest
+     * insertions, and returns true if any of them is feasible. The impacts are evaluated in parallel.
+     */
+    private boolean addOrderInsertionImpacts(List<Order> orders, List<List<Driver>> drivers){
+        Route[] driverIndex2route = new Route[this.getInstance().getDrivers().size()];
+        List<List<Route>> routes = new ArrayList<>();
+        for (List<Driver> driversOfOrder : drivers) {
+            List<Route> routesOfOrder = new ArrayList<>();
+            for (Driver driver : driversOfOrder) {
+                if (driverIndex2route[driver.getIndex()] == null)
+                    driverIndex2route[driver.getIndex()] = findRoute(driver);
+                routesOfOrder.add(driverIndex2route[driver.getIndex()]);
             }
+            routes.add(routesOfOrder);
         }
-        if (bestOrderInsertionImpact == null)
-            throw new UnserviceableOrderException(String.format("Cannot assign the order %d", orderId));
-        return bestOrderInsertionImpact;
-    }
-
-    private void initializeOrderInsertionImpacts(List<Order> orders, List<Driver> drivers){
-        Map<Integer, List<OrderInsertionImpact>> orderId2bestOrderInsertionImpacts = new HashMap<>();
-        Map<Integer, List<OrderInsertionImpact>> orderId2candidateOrderInsertionImpacts = new HashMap<>();
-        for (Order order : orders){
-            List<OrderInsertionImpact> bestOrderInsertionImpacts = new ArrayList<>();
-            List<OrderInsertionImpact> candidateOrderInsertionImpacts = new ArrayList<>();
-            Stack<Double> maxCostDeltas = new Stack<>();
-            maxCostDeltas.push(Double.NEGATIVE_INFINITY);
-            Stack<Integer> indicesOfOrderInsertionImpactsWithMaxCostDelta = new Stack<>();
-            indicesOfOrderInsertionImpactsWithMaxCostDelta.push(-1);
-            for (Driver driver: drivers){
-                Route route = this.getPartialSolution().getDriverId2route().getOrDefault(
-                        driver.getId(), new Route(driver));
-                OrderInsertionImpact orderInsertionImpact;
-                try {
-                    orderInsertionImpact = SearchUtilities.findBestOrderInsertion(
-                            route, order, this.getRouteCostFunction());
-                } catch (InfeasibleRouteException e) {
+        OrderInsertionImpact[][] orderInsertionImpacts = SearchUtilities.findBestOrderInsertions(
+                orders, routes, this.getRouteCostFunction());
+        boolean feasible = false;
+        for (int index = 0; index < orders.size(); index++) {
+            Order order = orders.get(index);
+            List<Driver> driversOfOrder = drivers.get(index);
+            for (int driverIndex = 0; driverIndex < driversOfOrder.size(); driverIndex++) {
+                OrderInsertionImpact orderInsertionImpact = orderInsertionImpacts[index][driverIndex];
+                if (orderInsertionImpact == null)
                     continue;
-                }
-                if (bestOrderInsertionImpacts.size() < this.getRegretHorizon()) {
-                    bestOrderInsertionImpacts.add(orderInsertionImpact);
-                    if (orderInsertionImpact.getCostDelta() > maxCostDeltas.peek()) {
-                        maxCostDeltas.push(orderInsertionImpact.getCostDelta());
-                        int indexOfInsertion = bestOrderInsertionImpacts.size() - 1;
-                        indicesOfOrderInsertionImpactsWithMaxCostDelta.push(indexOfInsertion);
-                    }
-                }
-                else if (orderInsertionImpact.getCostDelta() < maxCostDeltas.peek()){
-                    maxCostDeltas.pop();
-                    int indexToRemove = indicesOfOrderInsertionImpactsWithMaxCostDelta.pop();
-                    OrderInsertionImpact removedOrderInsertionImpact = bestOrderInsertionImpacts.remove(indexToRemove);
-                    candidateOrderInsertionImpacts.add(removedOrderInsertionImpact);
-                    bestOrderInsertionImpacts.add(orderInsertionImpact);
-                    if (orderInsertionImpact.getCostDelta() > maxCostDeltas.peek()) {
-                        maxCostDeltas.push(orderInsertionImpact.getCostDelta());
-                        int indexOfInsertion = bestOrderInsertionImpacts.size() - 1;
-                        indicesOfOrderInsertionImpactsWithMaxCostDelta.push(indexOfInsertion);
-                    }
-                }
-                else
-                    candidateOrderInsertionImpacts.add(orderInsertionImpact);
+                putOrderInsertionImpact(order, driversOfOrder.get(driverIndex).getIndex(), orderInsertionImpact);
+                feasible = true;
             }
-            orderId2bestOrderInsertionImpacts.put(order.getId(), bestOrderInsertionImpacts);
-            orderId2candidateOrderInsertionImpacts.put(order.getId(), candidateOrderInsertionImpacts);
         }
-        this.setOrderId2bestOrderInsertionImpacts(orderId2bestOrderInsertionImpacts);
-        this.setOrderId2candidateOrderInsertionImpacts(orderId2candidateOrderInsertionImpacts);
-    }
-
-    private void updateOrderInsertionImpacts(
-            Map<Integer, Order> orderId2order, List<Driver> drivers, OrderInsertion lastOrderInsertion){
-        Map<Integer, Driver> driverId2driver = drivers.stream().collect(
-                Collectors.toMap(Driver::getId, driver -> driver));
-        Map<Integer, List<OrderInsertionImpact>> updatedOrderId2bestOrderInsertionImpacts = new HashMap<>();
-        Map<Integer, List<OrderInsertionImpact>> updatedOrderId2candidateOrderInsertionImpacts = new HashMap<>();
-        for (Map.Entry<Integer, List<OrderInsertionImpact>> entry:
-                this.getOrderId2bestOrderInsertionImpacts().entrySet()){
-            int orderId = entry.getKey();
-            if (orderId == lastOrderInsertion.getOrderId())
-                continue;
-            // first update for the current best routes
-            List<OrderInsertionImpact> updatedBestOrderInsertionImpacts = new ArrayList<>();
-            Stack<Double> maxCostDeltas = new Stack<>();
-            maxCostDeltas.push(Double.NEGATIVE_INFINITY);
-            Stack<Integer> indicesOfOrderInsertionImpactsWithMaxCostDelta = new Stack<>();
-            indicesOfOrderInsertionImpactsWithMaxCostDelta.push(-1);
-            for (OrderInsertionImpact orderInsertionImpact : entry.getValue()){
-                int driverId = orderInsertionImpact.getOrderInsertion().getDriverId();
-                OrderInsertionImpact updatedOrderInsertionImpact;
-                if (driverId != lastOrderInsertion.getDriverId())
-                    updatedOrderInsertionImpact = orderInsertionImpact;
-                else {
-                    Route route = this.getPartialSolution().getDriverId2route().get(driverId);
-                    try {
-                        updatedOrderInsertionImpact = SearchUtilities.findBestOrderInsertion(
-                                route, orderId2order.get(orderId), this.getRouteCostFunction());
-                    } catch (InfeasibleRouteException e) {
-                        continue;
-                    }
-                }
-                updatedBestOrderInsertionImpacts.add(updatedOrderInsertionImpact);
-                if (updatedOrderInsertionImpact.getCostDelta() > maxCostDeltas.peek()) {
-                    maxCostDeltas.push(updatedOrderInsertionImpact.getCostDelta());
-                    int indexOfInsertion = updatedBestOrderInsertionImpacts.size() - 1;
-                    indicesOfOrderInsertionImpactsWithMaxCostDelta.push(indexOfInsertion);
-                }
-            }
-            // check if a candidate route has become one of the current best routes
-            List<OrderInsertionImpact> updatedCandidateOrderInsertionImpacts = new ArrayList<>();
-            for (OrderInsertionImpact orderInsertionImpact :
-                    this.getOrderId2candidateOrderInsertionImpacts().get(orderId)){
-                int driverId = orderInsertionImpact.getOrderInsertion().getDriverId();
-                OrderInsertionImpact updatedOrderInsertionImpact;
-                if (driverId != lastOrderInsertion.getDriverId())
-                    updatedOrderInsertionImpact = orderInsertionImpact;
-                else{
-                    Route route = this.getPartialSolution().getDriverId2route().get(driverId);
-                    try {
-                        updatedOrderInsertionImpact = SearchUtilities.findBestOrderInsertion(
-                                route, orderId2order.get(orderId), this.getRouteCostFunction());
-                    } catch (InfeasibleRouteException e) {
-                        continue;
-                    }
-                }
-                updatedCandidateOrderInsertionImpacts.add(updatedOrderInsertionImpact);
-                if (updatedOrderInsertionImpact.getCostDelta() < maxCostDeltas.peek()){
-                    maxCostDeltas.pop();
-                    int indexToRemove = indicesOfOrderInsertionImpactsWithMaxCostDelta.pop();
-                    OrderInsertionImpact removedOrderInsertionImpact = updatedBestOrderInsertionImpacts.remove(
-                            indexToRemove);
-                    updatedCandidateOrderInsertionImpacts.add(removedOrderInsertionImpact);
-                    updatedBestOrderInsertionImpacts.add(updatedOrderInsertionImpact);
-                    if (updatedOrderInsertionImpact.getCostDelta() > maxCostDeltas.peek()) {
-                        maxCostDeltas.push(updatedOrderInsertionImpact.getCostDelta());
-                        int indexOfInsertion = updatedBestOrderInsertionImpacts.size() - 1;
-                        indicesOfOrderInsertionImpactsWithMaxCostDelta.push(indexOfInsertion);
-                    }
-                }
+        return feasible;
+    }
+
+    /**
+     * Puts the insertion impact into the table and updates the cheapest insertions of the order.
+     *
+     * @return true if the cheapest insertions of the order change
+     */
+    private boolean putOrderInsertionImpact(Order order, int driverIndex, OrderInsertionImpact orderInsertionImpact){
+        OrderInsertionImpact[] driverIndex2orderInsertionImpact =
+                this.getOrderIndex2driverIndex2orderInsertionImpact()[order.getIndex()];
+        driverIndex2orderInsertionImpact[driverIndex] = orderInsertionImpact;
+        BoundedMaxHeap bestInsertions = this.getOrderIndex2bestInsertions()[order.getIndex()];
+        if (!containsDriver(bestInsertions, driverIndex))
+            return orderInsertionImpact != null &&
+                    bestInsertions.offer(driverIndex, orderInsertionImpact.getCostDelta());
+        // the insertion may have become more expensive than an insertion that is not among the cheapest ones
+        bestInsertions.clear(this.getRegretHorizon());
+        for (int index = 0; index < driverIndex2orderInsertionImpact.length; index++) {
+            if (driverIndex2orderInsertionImpact[index] != null)
+                bestInsertions.offer(index, driverIndex2orderInsertionImpact[index].getCostDelta());
+        }
+        return true;
+    }
+
+    private static boolean containsDriver(BoundedMaxHeap bestInsertions, int driverIndex){
+        int[] driverIndices = bestInsertions.getIndices();
+        for (int index = 0; index < bestInsertions.getSize(); index++) {
+            if (driverIndices[index] == driverIndex)
+                return true;
+        }
+        return false;
+    }
+
+    private List<Driver> findCandidateDrivers(Order order){
+        if (this.getOrderNeighbourGraph() == null)
+            return this.getInstance().getDrivers();
+        return this.getOrderNeighbourGraph().findCandidateDrivers(order, this.getOrderIndex2driverIndex());
+    }
+
+    private Route findRoute(Driver driver){
+        Route route = this.getPartialSolution().getDriverId2route().get(driver.getId());
+        return route != null ? route : new Route(this.getInstance().getDistanceMatrix(), driver);
+    }
+
+    private void initializeOrderInsertionImpacts(List<Order> orders) throws UnserviceableOrderException {
+        int numDrivers = this.getInstance().getDrivers().size();
+        int numOrders = this.getInstance().getOrders().size();
+        this.setOrderIndex2driverIndex2orderInsertionImpact(new OrderInsertionImpact[numOrders][]);
+        this.setOrderIndex2version(new int[numOrders]);
+        this.getRegretHeap().clear();
+        for (Order order : orders) {
+            this.getOrderIndex2driverIndex2orderInsertionImpact()[order.getIndex()] =
+                    new OrderInsertionImpact[numDrivers];
+            this.getOrderIndex2bestInsertions()[order.getIndex()].clear(this.getRegretHorizon());
+        }
+        List<List<Driver>> drivers = orders.stream().map(this::findCandidateDrivers).collect(Collectors.toList());
+        addOrderInsertionImpacts(orders, drivers);
+        for (Order order : orders) {
+            checkOrderInsertionImpacts(order);
+            addRegret(order);
+        }
+    }
+
+    /**
+     * Reevaluates the insertions of the pending orders into the route of the last inserted order in place, and updates
+     * the regrets of the orders whose cheapest insertions change.
+     */
+    private void updateOrderInsertionImpacts(List<Order> pendingOrders, Order lastOrder, Route route) throws
+            UnserviceableOrderException {
+        OrderInsertionImpact[][] orderIndex2driverIndex2orderInsertionImpact =
+                this.getOrderIndex2driverIndex2orderInsertionImpact();
+        int driverIndex = route.getDriver().getIndex();
+        // the insertions into the route of the last order are evaluated together
+        List<Order> reevaluatedOrders = new ArrayList<>();
+        for (Order order : pendingOrders) {
+            if (orderIndex2driverIndex2orderInsertionImpact[order.getIndex()][driverIndex] != null)
+                reevaluatedOrders.add(order);
+        }
+        // the driver of the last order has become a candidate for the pending orders near the last order
+        if (this.getOrderNeighbourGraph() != null) {
+            for (int orderIndex :
+                    this.getOrderNeighbourGraph().getOrderIndex2reverseNearestOrderIndices()[lastOrder.getIndex()]) {
+                if (this.getOrderIndex2driverIndex()[orderIndex] == OrderNeighbourGraph.NO_DRIVER_INDEX &&
+                        orderIndex2driverIndex2orderInsertionImpact[orderIndex][driverIndex] == null)
+                    reevaluatedOrders.add(this.getInstance().getOrders().get(orderIndex));
             }
-            updatedOrderId2bestOrderInsertionImpacts.put(orderId, updatedBestOrderInsertionImpacts);
-            updatedOrderId2candidateOrderInsertionImpacts.put(orderId, updatedCandidateOrderInsertionImpacts);
         }
-        this.setOrderId2bestOrderInsertionImpacts(updatedOrderId2bestOrderInsertionImpacts);
-        this.setOrderId2candidateOrderInsertionImpacts(updatedOrderId2candidateOrderInsertionImpacts);
+        OrderInsertionImpact[] reevaluatedOrderInsertionImpacts = SearchUtilities.findBestOrderInsertions(
+                reevaluatedOrders, route, this.getRouteCostFunction());
+        for (int index = 0; index < reevaluatedOrders.size(); index++) {
+            Order order = reevaluatedOrders.get(index);
+            if (!putOrderInsertionImpact(order, driverIndex, reevaluatedOrderInsertionImpacts[index]))
+                continue;
+            checkOrderInsertionImpacts(order);
+            addRegret(order);
+        }
     }
 
     public Instance getInstance() {
@@ -245,22 +302,45 @@ public class RegretBasedInsertionHeuristic implements InsertionHeuristic {
         this.instance = instance;
     }
 
-    public Map<Integer, List<OrderInsertionImpact>> getOrderId2bestOrderInsertionImpacts() {
-        return orderId2bestOrderInsertionImpacts;
+    public BoundedMaxHeap[] getOrderIndex2bestInsertions() {
+        return orderIndex2bestInsertions;
+    }
+
+    public void setOrderIndex2bestInsertions(BoundedMaxHeap[] orderIndex2bestInsertions) {
+        this.orderIndex2bestInsertions = orderIndex2bestInsertions;
     }
 
-    public void setOrderId2bestOrderInsertionImpacts(
-            Map<Integer, List<OrderInsertionImpact>> orderId2bestOrderInsertionImpacts) {
-        this.orderId2bestOrderInsertionImpacts = orderId2bestOrderInsertionImpacts;
+    public int[] getOrderIndex2driverIndex() {
+        return orderIndex2driverIndex;
     }
 
-    public Map<Integer, List<OrderInsertionImpact>> getOrderId2candidateOrderInsertionImpacts() {
-        return orderId2candidateOrderInsertionImpacts;
+    public void setOrderIndex2driverIndex(int[] orderIndex2driverIndex) {
+        this.orderIndex2driverIndex = orderIndex2driverIndex;
     }
 
-    public void setOrderId2candidateOrderInsertionImpacts(
-            Map<Integer, List<OrderInsertionImpact>> orderId2candidateOrderInsertionImpacts) {
-        this.orderId2candidateOrderInsertionImpacts = orderId2candidateOrderInsertionImpacts;
+    public OrderInsertionImpact[][] getOrderIndex2driverIndex2orderInsertionImpact() {
+        return orderIndex2driverIndex2orderInsertionImpact;
+    }
+
+    public void setOrderIndex2driverIndex2orderInsertionImpact(
+            OrderInsertionImpact[][] orderIndex2driverIndex2orderInsertionImpact) {
+        this.orderIndex2driverIndex2orderInsertionImpact = orderIndex2driverIndex2orderInsertionImpact;
+    }
+
+    public int[] getOrderIndex2version() {
+        return orderIndex2version;
+    }
+
+    public void setOrderIndex2version(int[] orderIndex2version) {
+        this.orderIndex2version = orderIndex2version;
+    }
+
+    public OrderNeighbourGraph getOrderNeighbourGraph() {
+        return orderNeighbourGraph;
+    }
+
+    public void setOrderNeighbourGraph(OrderNeighbourGraph orderNeighbourGraph) {
+        this.orderNeighbourGraph = orderNeighbourGraph;
     }
 
     public PartialSolution getPartialSolution() {
@@ -271,6 +351,14 @@ public class RegretBasedInsertionHeuristic implements InsertionHeuristic {
         this.partialSolution = partialSolution;
     }
 
+    public VersionedMinHeap getRegretHeap() {
+        return regretHeap;
+    }
+
+    public void setRegretHeap(VersionedMinHeap regretHeap) {
+        this.regretHeap = regretHeap;
+    }
+
     public int getRegretHorizon() {
         return regretHorizon;
     }
@@ -0,0 +1,77 @@
+package algorithms;
+
+import common.Order;
+import common.RouteCostFunction;
+import common.Task;
+import common.TaskType;
+import input.Instance;
+import output.Route;
+import utilities.SearchUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The routes obtained by removing each order of a route, with the evaluators of the insertions into them. The orders
+ * whose removal is infeasible are skipped.
+ */
+public class RouteOrderRemovals {
+
+    private List<OrderInsertionEvaluator> orderInsertionEvaluators;
+    private List<Order> orders;
+    /**
+     * Route the orders are removed from
+     */
+    private Route route;
+    private List<Route> routesWithoutOrders;
+
+    public RouteOrderRemovals(Instance instance, Route route, RouteCostFunction routeCostFunction) {
+        this.orderInsertionEvaluators = new ArrayList<>();
+        this.orders = new ArrayList<>();
+        this.route = route;
+        this.routesWithoutOrders = new ArrayList<>();
+        for (Task task : route.getTasks()) {
+            if (task.getType().equals(TaskType.DELIVERY))
+                continue;
+            Order order = instance.getOrders().get(task.getOrderIndex());
+            Route routeWithoutOrder = SearchUtilities.removeOrderIfFeasible(route, order, routeCostFunction);
+            if (routeWithoutOrder == null)
+                continue;
+            this.orderInsertionEvaluators.add(new OrderInsertionEvaluator(routeWithoutOrder, routeCostFunction));
+            this.orders.add(order);
+            this.routesWithoutOrders.add(routeWithoutOrder);
+        }
+    }
+
+    public List<OrderInsertionEvaluator> getOrderInsertionEvaluators() {
+        return orderInsertionEvaluators;
+    }
+
+    public void setOrderInsertionEvaluators(List<OrderInsertionEvaluator> orderInsertionEvaluators) {
+        this.orderInsertionEvaluators = orderInsertionEvaluators;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    public void setRoute(Route route) {
+        this.route = route;
+    }
+
+    public List<Route> getRoutesWithoutOrders() {
+        return routesWithoutOrders;
+    }
+
+    public void setRoutesWithoutOrders(List<Route> routesWithoutOrders) {
+        this.routesWithoutOrders = routesWithoutOrders;
+    }
+}
@@ -1,60 +1,96 @@
 package algorithms;
 
-import common.Order;
-import common.RouteCostFunction;
+import common.*;
 import exceptions.InfeasibleRouteException;
 import input.Instance;
 import output.Route;
 import output.Solution;
-import utilities.DistanceUtilities;
 
 import java.util.*;
 
+/**
+ * Removes orders related to the orders already removed. The candidates of each removal are visited around the pickup
+ * of a removed order on a spatial grid over the pickups, and only the ones needed for the randomized rank of the
+ * removal are kept, so that the candidates far from the pickup are neither scored nor sorted. The distance and the load
+ * terms of the similarity values are taken from an {@link OrderSimilarityCache}.
+ */
 public class ShawRemovalHeuristic implements RemovalHeuristic {
 
-    private final static Random random = new Random(0);
-
     private Instance instance;
     private int numOrdersToRemove;
+    private OrderSimilarityCache orderSimilarityCache;
     private OrderSimilarityFunction orderSimilarityFunction;
+    private SpatialGrid pickupGrid;
+    private Random random;
     private double randomizationCoefficient;
+    /**
+     * The candidates with the smallest similarity values for the removal in progress
+     */
+    private BoundedMaxHeap relatedOrders;
     private RouteCostFunction routeCostFunction;
 
     public ShawRemovalHeuristic(
-            Instance instance, int numOrdersToRemove, OrderSimilarityFunction orderSimilarityFunction,
+            Instance instance, int numOrdersToRemove, OrderSimilarityCache orderSimilarityCache,
+            OrderSimilarityFunction orderSimilarityFunction, Random random, double randomizationCoefficient,
+            RouteCostFunction routeCostFunction) {
+        this(instance, numOrdersToRemove, orderSimilarityCache, orderSimilarityFunction, createPickupGrid(instance),
+                random, randomizationCoefficient, routeCostFunction);
+    }
+
+    /**
+     * Creates the heuristic with the given grid over the pickups, which is only read so that it can be shared by the
+     * heuristics of an instance.
+     */
+    public ShawRemovalHeuristic(
+            Instance instance, int numOrdersToRemove, OrderSimilarityCache orderSimilarityCache,
+            OrderSimilarityFunction orderSimilarityFunction, SpatialGrid pickupGrid, Random random,
             double randomizationCoefficient, RouteCostFunction routeCostFunction) {
         this.instance = instance;
         this.numOrdersToRemove = numOrdersToRemove;
+        this.orderSimilarityCache = orderSimilarityCache;
         this.orderSimilarityFunction = orderSimilarityFunction;
+        this.pickupGrid = pickupGrid;
+        this.random = random;
         this.randomizationCoefficient = randomizationCoefficient;
+        this.relatedOrders = new BoundedMaxHeap(instance.getOrders().size());
         this.routeCostFunction = routeCostFunction;
     }
 
+    /**
+     * Creates the grid over the pickups of the orders, where the point index of a pickup is the index of its order.
+     */
+    public static SpatialGrid createPickupGrid(Instance instance){
+        List<Location> pickupLocations = new ArrayList<>();
+        for (Order order : instance.getOrders())
+            pickupLocations.add(order.getPickup().getLocation());
+        return new SpatialGrid(pickupLocations);
+    }
+
     @Override
     public PartialSolution run(Solution solution) throws InfeasibleRouteException {
         Map<Integer, Integer> orderId2assignedDriverId = calculateOrderId2assignedDriverId(solution);
         List<Order> selectedOrders = new ArrayList<>();
+        boolean[] selected = new boolean[this.getInstance().getOrders().size()];
         int numOrdersToRemove = this.getNumOrdersToRemove();
         Order firstOrderSelected = selectFirstOrderToRemove();
         selectedOrders.add(firstOrderSelected);
+        selected[firstOrderSelected.getIndex()] = true;
         numOrdersToRemove--;
         while (numOrdersToRemove > 0){
             Order nextOrderSelected = nextOrderToRemove(
-                    selectedOrders, solution.getDriverId2route(), orderId2assignedDriverId);
+                    selectedOrders, selected, solution.getDriverId2route(), orderId2assignedDriverId);
             selectedOrders.add(nextOrderSelected);
+            selected[nextOrderSelected.getIndex()] = true;
             numOrdersToRemove--;
         }
-        Map<Integer, Route> driverId2updatedRoute = new HashMap<>();
-        for (Map.Entry<Integer, Route> entry : solution.getDriverId2route().entrySet())
-            driverId2updatedRoute.put(entry.getKey(), new Route(entry.getValue()));
+        PartialSolution partialSolution = new PartialSolution(solution, selectedOrders);
         for (Order order : selectedOrders){
             int assignedDriverId = orderId2assignedDriverId.get(order.getId());
-            Route route = driverId2updatedRoute.get(assignedDriverId);
-            route.remove(order.getId());
+            partialSolution.getRouteToModify(assignedDriverId).remove(order);
         }
-        for (Map.Entry<Integer, Route> entry : driverId2updatedRoute.entrySet())
-            entry.getValue().evaluate(this.getRouteCostFunction());
-        return new PartialSolution(driverId2updatedRoute, selectedOrders);
+        for (int driverId : partialSolution.getCopiedRouteDriverIds())
+            partialSolution.getDriverId2route().get(driverId).evaluate(this.getRouteCostFunction());
+        return partialSolution;
     }
 
     @Override
@@ -68,61 +104,79 @@ public class ShawRemovalHeuristic implements RemovalHeuristic {
 
     private Order selectFirstOrderToRemove(){
         List<Order> orders = this.getInstance().getOrders();
-        int selectedIndex = random.nextInt(orders.size());
+        int selectedIndex = this.getRandom().nextInt(orders.size());
         return orders.get(selectedIndex);
     }
 
+    /**
+     * Selects the order at a randomized rank among the unselected orders sorted by their similarity to a selected
+     * order. The rings of the pickup grid are visited until the distance between the pickups alone makes the orders in
+     * the remaining rings less similar than the order at the rank.
+     */
     private Order nextOrderToRemove(
-            List<Order> selectedOrders, Map<Integer, Route> driverId2route,
+            List<Order> selectedOrders, boolean[] selected, Map<Integer, Route> driverId2route,
             Map<Integer, Integer> orderId2assignedDriverId){
         List<Order> orders = this.getInstance().getOrders();
-        int baseOrderIndex = random.nextInt(selectedOrders.size());
+        int baseOrderIndex = this.getRandom().nextInt(selectedOrders.size());
         Order baseOrder = selectedOrders.get(baseOrderIndex);
         Route routeOfBaseOrder = driverId2route.get(orderId2assignedDriverId.get(baseOrder.getId()));
-        List<OrderSimilarity> orderSimilarities = new ArrayList<>();
-        Map<Integer, Order> comparedOrderId2order = new HashMap<>();
-        for (Order order : orders){
-            if (selectedOrders.contains(order))
-                continue;
-            int orderId = order.getId();
-            comparedOrderId2order.put(orderId, order);
-            int driverId = orderId2assignedDriverId.get(orderId);
-            Route routeOfOrder = driverId2route.get(driverId);
-            OrderSimilarity orderSimilarity = calculateOrderSimilarityValue(
-                    order, baseOrder, routeOfOrder, routeOfBaseOrder);
-            orderSimilarities.add(orderSimilarity);
+        double randomVariate = this.getRandom().nextDouble();
+        int selectedRank = (int) (Math.pow(randomVariate, this.getRandomizationCoefficient()) *
+                (orders.size() - selectedOrders.size()));
+        BoundedMaxHeap relatedOrders = this.getRelatedOrders();
+        relatedOrders.clear(selectedRank + 1);
+        double minSimilarityValuePerKm = calculateMinSimilarityValuePerKm();
+        boolean considerCompletionTimes = this.getOrderSimilarityFunction().getTaskCompletionTimeCoefficient() != 0;
+        Location baseLocation = baseOrder.getPickup().getLocation();
+        int numRings = this.getPickupGrid().getNumRings(baseLocation);
+        for (int ring = 0; ring < numRings; ring++) {
+            if (relatedOrders.isFull() && minSimilarityValuePerKm > 0 && minSimilarityValuePerKm *
+                    this.getPickupGrid().calculateMinDistanceInKm(ring) > relatedOrders.peekValue())
+                break;
+            this.getPickupGrid().visitRing(baseLocation, ring, orderIndex -> {
+                if (selected[orderIndex])
+                    return;
+                double similarityValue = this.getOrderSimilarityCache().getStaticSimilarityValue(
+                        orderIndex, baseOrder.getIndex());
+                if (considerCompletionTimes) {
+                    Order order = orders.get(orderIndex);
+                    Route routeOfOrder = driverId2route.get(orderId2assignedDriverId.get(order.getId()));
+                    similarityValue += calculateTaskCompletionTimeSimilarityValue(
+                            order, baseOrder, routeOfOrder, routeOfBaseOrder);
+                }
+                relatedOrders.offer(orderIndex, similarityValue);
+            });
         }
-        Collections.sort(orderSimilarities);
-        double randomVariate = random.nextDouble();
-        int selectedIndex = (int) (Math.pow(randomVariate, this.getRandomizationCoefficient()) *
-                orderSimilarities.size());
-        OrderSimilarity bestOrderSimilarity = orderSimilarities.get(selectedIndex);
-        int nextOrderId = bestOrderSimilarity.getFirstOrderId() == baseOrder.getId() ?
-                bestOrderSimilarity.getSecondOrderId() : bestOrderSimilarity.getFirstOrderId();
-        return comparedOrderId2order.get(nextOrderId);
+        return orders.get(relatedOrders.peekIndex());
     }
 
-    private OrderSimilarity calculateOrderSimilarityValue(
+    /**
+     * Returns the similarity value of two orders per km between their pickups, which bounds the similarity value from
+     * below, or zero if another term of the similarity value may be negative.
+     */
+    private double calculateMinSimilarityValuePerKm(){
+        OrderSimilarityFunction orderSimilarityFunction = this.getOrderSimilarityFunction();
+        if (orderSimilarityFunction.getTaskCompletionTimeCoefficient() < 0 ||
+                orderSimilarityFunction.getTaskLoadCoefficient() < 0 ||
+                orderSimilarityFunction.getTaskCompletionTimeDifferenceScalingFunction().scale(1.0) < 0 ||
+                orderSimilarityFunction.getTaskLoadDifferenceScalingFunction().scale(1.0) < 0)
+            return 0.0;
+        return Math.max(0.0, orderSimilarityFunction.getTaskDistanceCoefficient() *
+                orderSimilarityFunction.getTaskDistanceScalingFunction().scale(1.0));
+    }
+
+    private double calculateTaskCompletionTimeSimilarityValue(
             Order firstOrder, Order secondOrder, Route routeOfFirstOrder, Route routeOfSecondOrder){
-        double differenceBetweenPickUpTimes = Math.abs(routeOfFirstOrder.getTaskCompletionTimes().get(
-                routeOfFirstOrder.getOrderId2pickupTaskIndex().get(firstOrder.getId())) -
-                routeOfSecondOrder.getTaskCompletionTimes().get(
-                        routeOfSecondOrder.getOrderId2pickupTaskIndex().get(secondOrder.getId())));
-        double differenceBetweenDeliveryTimes = Math.abs(routeOfFirstOrder.getTaskCompletionTimes().get(
-                routeOfFirstOrder.getOrderId2deliveryTaskIndex().get(firstOrder.getId())) -
-                routeOfSecondOrder.getTaskCompletionTimes().get(
-                        routeOfSecondOrder.getOrderId2deliveryTaskIndex().get(secondOrder.getId())));
-        double distanceBetweenPickUpTasks = DistanceUtilities.distanceInKm(
-                firstOrder.getPickup().getLocation(), secondOrder.getPickup().getLocation());
-        double distanceBetweenDeliveryTasks = DistanceUtilities.distanceInKm(
-                firstOrder.getDelivery().getLocation(), secondOrder.getDelivery().getLocation());
-        double differenceBetweenLoads = Math.abs(
-                firstOrder.getPickup().getNumItems() - secondOrder.getPickup().getNumItems());
-        OrderSimilarity orderSimilarity = new OrderSimilarity(
-                differenceBetweenDeliveryTimes, differenceBetweenLoads, differenceBetweenPickUpTimes,
-                distanceBetweenDeliveryTasks, distanceBetweenPickUpTasks, firstOrder.getId(), secondOrder.getId());
-        orderSimilarity.setSimilarityValue(this.getOrderSimilarityFunction());
-        return orderSimilarity;
+        double differenceBetweenPickUpTimes = Math.abs(routeOfFirstOrder.getTaskCompletionTimes()[
+                routeOfFirstOrder.getPickupTaskIndex(firstOrder.getIndex())] -
+                routeOfSecondOrder.getTaskCompletionTimes()[
+                        routeOfSecondOrder.getPickupTaskIndex(secondOrder.getIndex())]);
+        double differenceBetweenDeliveryTimes = Math.abs(routeOfFirstOrder.getTaskCompletionTimes()[
+                routeOfFirstOrder.getDeliveryTaskIndex(firstOrder.getIndex())] -
+                routeOfSecondOrder.getTaskCompletionTimes()[
+                        routeOfSecondOrder.getDeliveryTaskIndex(secondOrder.getIndex())]);
+        return this.getOrderSimilarityFunction().calculateTaskCompletionTimeSimilarityValue(
+                differenceBetweenDeliveryTimes, differenceBetweenPickUpTimes);
     }
 
     private Map<Integer, Integer> calculateOrderId2assignedDriverId(Solution solution){
@@ -152,6 +206,14 @@ public class ShawRemovalHeuristic implements RemovalHeuristic {
         this.numOrdersToRemove = numOrdersToRemove;
     }
 
+    public OrderSimilarityCache getOrderSimilarityCache() {
+        return orderSimilarityCache;
+    }
+
+    public void setOrderSimilarityCache(OrderSimilarityCache orderSimilarityCache) {
+        this.orderSimilarityCache = orderSimilarityCache;
+    }
+
     public OrderSimilarityFunction getOrderSimilarityFunction() {
         return orderSimilarityFunction;
     }
@@ -160,6 +222,22 @@ public class ShawRemovalHeuristic implements RemovalHeuristic {
         this.orderSimilarityFunction = orderSimilarityFunction;
     }
 
+    public SpatialGrid getPickupGrid() {
+        return pickupGrid;
+    }
+
+    public void setPickupGrid(SpatialGrid pickupGrid) {
+        this.pickupGrid = pickupGrid;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
     public double getRandomizationCoefficient() {
         return randomizationCoefficient;
     }
@@ -168,6 +246,14 @@ public class ShawRemovalHeuristic implements RemovalHeuristic {
         this.randomizationCoefficient = randomizationCoefficient;
     }
 
+    public BoundedMaxHeap getRelatedOrders() {
+        return relatedOrders;
+    }
+
+    public void setRelatedOrders(BoundedMaxHeap relatedOrders) {
+        this.relatedOrders = relatedOrders;
+    }
+
     public RouteCostFunction getRouteCostFunction() {
         return routeCostFunction;
     }
@@ -0,0 +1,129 @@
+package common;
+
+/**
+ * Keeps the smallest values offered to it up to its capacity, together with the indices they belong to. The largest
+ * kept value is at the top of the heap. Equal values are ordered by their indices, so that the kept entries do not
+ * depend on the order of the offers.
+ */
+public class BoundedMaxHeap {
+
+    private int capacity;
+    private int[] indices;
+    private int size;
+    private double[] values;
+
+    public BoundedMaxHeap(int capacity) {
+        this.capacity = capacity;
+        this.indices = new int[capacity];
+        this.size = 0;
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Empties the heap and sets its capacity, growing the storage if needed.
+     */
+    public void clear(int capacity) {
+        if (capacity > this.values.length) {
+            this.indices = new int[capacity];
+            this.values = new double[capacity];
+        }
+        this.capacity = capacity;
+        this.size = 0;
+    }
+
+    public boolean isFull() {
+        return this.size == this.capacity;
+    }
+
+    /**
+     * Adds the entry if the heap is not full or the entry is smaller than the top entry, which is then dropped.
+     *
+     * @return true if the entry is kept
+     */
+    public boolean offer(int index, double value) {
+        if (this.size < this.capacity) {
+            siftUp(this.size++, index, value);
+            return true;
+        }
+        if (this.capacity == 0 || !isLess(value, index, this.values[0], this.indices[0]))
+            return false;
+        siftDown(0, index, value);
+        return true;
+    }
+
+    public int peekIndex() {
+        return this.indices[0];
+    }
+
+    public double peekValue() {
+        return this.values[0];
+    }
+
+    private static boolean isLess(double value, int index, double otherValue, int otherIndex) {
+        int comparison = Double.compare(value, otherValue);
+        return comparison < 0 || (comparison == 0 && index < otherIndex);
+    }
+
+    private void siftDown(int position, int index, double value) {
+        int half = this.size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < this.size && isLess(this.values[child], this.indices[child], this.values[right],
+                    this.indices[right]))
+                child = right;
+            if (!isLess(value, index, this.values[child], this.indices[child]))
+                break;
+            this.indices[position] = this.indices[child];
+            this.values[position] = this.values[child];
+            position = child;
+        }
+        this.indices[position] = index;
+        this.values[position] = value;
+    }
+
+    private void siftUp(int position, int index, double value) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isLess(this.values[parent], this.indices[parent], value, index))
+                break;
+            this.indices[position] = this.indices[parent];
+            this.values[position] = this.values[parent];
+            position = parent;
+        }
+        this.indices[position] = index;
+        this.values[position] = value;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public void setIndices(int[] indices) {
+        this.indices = indices;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public void setValues(double[] values) {
+        this.values = values;
+    }
+}
@@ -0,0 +1,44 @@
+package common;
+
+import utilities.DistanceUtilities;
+import utilities.TimeUtilities;
+
+import java.util.List;
+
+/**
+ * Distance matrix that calculates the distance and the travel time of a location pair each time they are requested.
+ * It keeps only the locations, so that it is used for the instances whose tables do not fit in memory.
+ */
+public class CalculatedDistanceMatrix implements DistanceMatrix {
+
+    private List<Location> locations;
+
+    public CalculatedDistanceMatrix(List<Location> locations) {
+        this.locations = locations;
+    }
+
+    @Override
+    public double getDistance(int fromLocationIndex, int toLocationIndex) {
+        return DistanceUtilities.distanceInKm(
+                this.getLocations().get(fromLocationIndex), this.getLocations().get(toLocationIndex));
+    }
+
+    @Override
+    public int getNumLocations() {
+        return this.getLocations().size();
+    }
+
+    @Override
+    public double getTravelTime(int fromLocationIndex, int toLocationIndex) {
+        return TimeUtilities.travelTimeInSeconds(
+                getDistance(fromLocationIndex, toLocationIndex), Driver.AVERAGE_SPEED_IN_KM_PER_HOUR);
+    }
+
+    public List<Location> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<Location> locations) {
+        this.locations = locations;
+    }
+}
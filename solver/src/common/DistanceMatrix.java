@@ -0,0 +1,14 @@
+package common;
+
+/**
+ * Distances and travel times between the locations of an instance, where the locations are identified by their
+ * dense indices in the instance.
+ */
+public interface DistanceMatrix {
+
+    double getDistance(int fromLocationIndex, int toLocationIndex);
+
+    int getNumLocations();
+
+    double getTravelTime(int fromLocationIndex, int toLocationIndex);
+}
@@ -9,7 +9,15 @@ public class Driver {
     private int capacity;
     private Location endLocation;
     private int id;
+    /**
+     * Dense index of the driver in its instance, from 0 to the number of drivers - 1
+     */
+    private int index;
     private Location startLocation;
+    /**
+     * Dense index of the start location in its instance, see {@link DistanceMatrix}
+     */
+    private int startLocationIndex;
     private TimeWindow timeWindow;
 
     public Driver() {
@@ -58,6 +66,14 @@ public class Driver {
         this.id = id;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     public Location getStartLocation() {
         return startLocation;
     }
@@ -66,6 +82,14 @@ public class Driver {
         this.startLocation = startLocation;
     }
 
+    public int getStartLocationIndex() {
+        return startLocationIndex;
+    }
+
+    public void setStartLocationIndex(int startLocationIndex) {
+        this.startLocationIndex = startLocationIndex;
+    }
+
     public TimeWindow getTimeWindow() {
         return timeWindow;
     }
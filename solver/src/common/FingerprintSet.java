@@ -0,0 +1,168 @@
+package common;
+
+/**
+ * A set of 64-bit fingerprints in an open-addressing hash table with linear probing. If the set has a maximum size,
+ * adding to a full set drops the oldest fingerprint, so that the set keeps the most recently added ones. The
+ * fingerprints 0 and 1 are not distinguished, as 0 marks the empty slots of the table. The table and the ring buffer of
+ * a bounded set start small and grow with the set up to the maximum size, so that the bound costs no memory until the
+ * fingerprints are added.
+ */
+public class FingerprintSet {
+
+    /**
+     * Maximum size of a set that keeps all fingerprints
+     */
+    public static final int UNBOUNDED = 0;
+
+    private static final int MIN_TABLE_SIZE = 16;
+
+    /**
+     * The keys in the order they are added as a ring buffer starting at the oldest position, or null if the set is
+     * unbounded. The buffer has at most the maximum size of the set.
+     */
+    private long[] keys;
+    private int maxSize;
+    private int oldestPosition;
+    private int size;
+    private long[] table;
+
+    public FingerprintSet(int maxSize) {
+        this.keys = maxSize == UNBOUNDED ? null : new long[Math.min(maxSize, MIN_TABLE_SIZE)];
+        this.maxSize = maxSize;
+        this.oldestPosition = 0;
+        this.size = 0;
+        this.table = new long[MIN_TABLE_SIZE];
+    }
+
+    /**
+     * Adds the fingerprint, dropping the oldest one if the set is full.
+     *
+     * @return false if the fingerprint is already in the set
+     */
+    public boolean add(long fingerprint) {
+        long key = toKey(fingerprint);
+        if (find(key) != -1)
+            return false;
+        if (this.maxSize != UNBOUNDED) {
+            if (this.size == this.maxSize)
+                removeOldest();
+            else if (this.size == this.keys.length)
+                growKeys();
+            this.keys[(this.oldestPosition + this.size) % this.keys.length] = key;
+        }
+        insert(key);
+        this.size++;
+        // the table of a bounded set stops growing at twice the maximum size, since the size does not exceed it
+        if (2 * this.size > this.table.length)
+            rehash(2 * this.table.length);
+        return true;
+    }
+
+    public boolean contains(long fingerprint) {
+        return find(toKey(fingerprint)) != -1;
+    }
+
+    private int find(long key) {
+        int mask = this.table.length - 1;
+        for (int slot = hash(key) & mask; this.table[slot] != 0; slot = (slot + 1) & mask) {
+            if (this.table[slot] == key)
+                return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Doubles the ring buffer up to the maximum size, moving the oldest key to the start of the buffer.
+     */
+    private void growKeys() {
+        long[] keys = new long[(int) Math.min(this.maxSize, 2L * this.keys.length)];
+        for (int position = 0; position < this.size; position++)
+            keys[position] = this.keys[(this.oldestPosition + position) % this.keys.length];
+        this.keys = keys;
+        this.oldestPosition = 0;
+    }
+
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private void insert(long key) {
+        int mask = this.table.length - 1;
+        int slot = hash(key) & mask;
+        while (this.table[slot] != 0)
+            slot = (slot + 1) & mask;
+        this.table[slot] = key;
+    }
+
+    private void rehash(int tableSize) {
+        long[] table = this.table;
+        this.table = new long[tableSize];
+        for (long key : table) {
+            if (key != 0)
+                insert(key);
+        }
+    }
+
+    /**
+     * Removes the oldest key and moves the keys probed after it back, so that no probe sequence is broken.
+     */
+    private void removeOldest() {
+        int mask = this.table.length - 1;
+        int freeSlot = find(this.keys[this.oldestPosition]);
+        this.oldestPosition = (this.oldestPosition + 1) % this.keys.length;
+        this.size--;
+        for (int slot = (freeSlot + 1) & mask; this.table[slot] != 0; slot = (slot + 1) & mask) {
+            int homeSlot = hash(this.table[slot]) & mask;
+            if (((slot - homeSlot) & mask) >= ((slot - freeSlot) & mask)) {
+                this.table[freeSlot] = this.table[slot];
+                freeSlot = slot;
+            }
+        }
+        this.table[freeSlot] = 0;
+    }
+
+    private static long toKey(long fingerprint) {
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    public long[] getKeys() {
+        return keys;
+    }
+
+    public void setKeys(long[] keys) {
+        this.keys = keys;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getOldestPosition() {
+        return oldestPosition;
+    }
+
+    public void setOldestPosition(int oldestPosition) {
+        this.oldestPosition = oldestPosition;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long[] getTable() {
+        return table;
+    }
+
+    public void setTable(long[] table) {
+        this.table = table;
+    }
+}
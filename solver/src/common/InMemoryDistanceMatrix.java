@@ -0,0 +1,84 @@
+package common;
+
+import utilities.DistanceUtilities;
+import utilities.TimeUtilities;
+
+import java.util.List;
+
+/**
+ * Distance matrix kept in row-major flat arrays on the heap, calculated once for all location pairs.
+ */
+public class InMemoryDistanceMatrix implements DistanceMatrix {
+
+    /**
+     * Maximum number of location pairs, which bounds the tables to 512 MiB and keeps their indices in the int range
+     */
+    public static final long MAX_NUM_LOCATION_PAIRS = 1L << 25;
+
+    private double[] distances;
+    private int numLocations;
+    private double[] travelTimes;
+
+    /**
+     * @throws IllegalArgumentException if the number of location pairs exceeds {@link #MAX_NUM_LOCATION_PAIRS}
+     */
+    public InMemoryDistanceMatrix(List<Location> locations) {
+        int numLocations = locations.size();
+        if (!fitsInMemory(numLocations))
+            throw new IllegalArgumentException(String.format(
+                    "%d locations exceed the size of the in-memory distance matrix", numLocations));
+        this.distances = new double[numLocations * numLocations];
+        this.numLocations = numLocations;
+        this.travelTimes = new double[numLocations * numLocations];
+        for (int from = 0; from < numLocations; from++) {
+            for (int to = 0; to < numLocations; to++) {
+                double distance = DistanceUtilities.distanceInKm(locations.get(from), locations.get(to));
+                this.distances[from * numLocations + to] = distance;
+                this.travelTimes[from * numLocations + to] = TimeUtilities.travelTimeInSeconds(
+                        distance, Driver.AVERAGE_SPEED_IN_KM_PER_HOUR);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the tables of the given number of locations do not exceed {@link #MAX_NUM_LOCATION_PAIRS}.
+     */
+    public static boolean fitsInMemory(int numLocations){
+        return (long) numLocations * numLocations <= MAX_NUM_LOCATION_PAIRS;
+    }
+
+    @Override
+    public double getDistance(int fromLocationIndex, int toLocationIndex) {
+        return this.distances[fromLocationIndex * this.numLocations + toLocationIndex];
+    }
+
+    @Override
+    public int getNumLocations() {
+        return numLocations;
+    }
+
+    @Override
+    public double getTravelTime(int fromLocationIndex, int toLocationIndex) {
+        return this.travelTimes[fromLocationIndex * this.numLocations + toLocationIndex];
+    }
+
+    public double[] getDistances() {
+        return distances;
+    }
+
+    public void setDistances(double[] distances) {
+        this.distances = distances;
+    }
+
+    public void setNumLocations(int numLocations) {
+        this.numLocations = numLocations;
+    }
+
+    public double[] getTravelTimes() {
+        return travelTimes;
+    }
+
+    public void setTravelTimes(double[] travelTimes) {
+        this.travelTimes = travelTimes;
+    }
+}
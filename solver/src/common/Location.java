@@ -1,5 +1,7 @@
 package common;
 
+import java.util.Objects;
+
 public class Location {
 
     private double latitude;
@@ -34,6 +36,20 @@ public class Location {
         this.longitude = longitude;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Location location = (Location) o;
+        return Double.compare(location.getLatitude(), getLatitude()) == 0 &&
+                Double.compare(location.getLongitude(), getLongitude()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getLatitude(), getLongitude());
+    }
+
     @Override
     public String toString() {
         return "Location{" + "latitude=" + latitude + ", longitude=" + longitude + '}';
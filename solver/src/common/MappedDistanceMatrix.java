@@ -0,0 +1,198 @@
+package common;
+
+import utilities.DistanceUtilities;
+import utilities.TimeUtilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * Distance matrix kept in a file as float32 distance and travel time tables, which are read through memory-mapped
+ * buffers so that the pages are loaded lazily by the operating system and shared by the processes reading the same
+ * file. The file is named after a hash of the locations and reused by the later solves over the same locations.
+ */
+public class MappedDistanceMatrix implements DistanceMatrix {
+
+    private static final String FILE_NAME_FORMAT = "distance-matrix-%016x.bin";
+    private static final int FLOAT_SIZE_SHIFT = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int MAGIC_NUMBER = 0x5350444d;
+    /**
+     * Each table is mapped in segments of 1 GiB, since a single buffer cannot exceed 2 GiB
+     */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int VERSION = 1;
+
+    private MappedByteBuffer[] distanceSegments;
+    private int numLocations;
+    private Path path;
+    private MappedByteBuffer[] travelTimeSegments;
+
+    private MappedDistanceMatrix(Path path, int numLocations) throws IOException {
+        this.numLocations = numLocations;
+        this.path = path;
+        long tableSize = (long) numLocations * numLocations << FLOAT_SIZE_SHIFT;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.distanceSegments = map(channel, HEADER_SIZE, tableSize);
+            this.travelTimeSegments = map(channel, HEADER_SIZE + tableSize, tableSize);
+        }
+    }
+
+    /**
+     * Opens the matrix file of the locations in the given directory, and writes the file first if it does not exist.
+     */
+    public static MappedDistanceMatrix open(Path directory, List<Location> locations) throws IOException {
+        long locationsHash = hash(locations);
+        Path path = directory.resolve(String.format(FILE_NAME_FORMAT, locationsHash));
+        if (!isValid(path, locations.size(), locationsHash)) {
+            Files.createDirectories(directory);
+            // the file is written under a temporary name, so that other processes never map a partial file
+            Path temporaryPath = Files.createTempFile(directory, "distance-matrix", ".tmp");
+            try {
+                write(temporaryPath, locations, locationsHash);
+                try {
+                    Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        }
+        return new MappedDistanceMatrix(path, locations.size());
+    }
+
+    @Override
+    public double getDistance(int fromLocationIndex, int toLocationIndex) {
+        return get(this.distanceSegments, fromLocationIndex, toLocationIndex);
+    }
+
+    @Override
+    public int getNumLocations() {
+        return numLocations;
+    }
+
+    @Override
+    public double getTravelTime(int fromLocationIndex, int toLocationIndex) {
+        return get(this.travelTimeSegments, fromLocationIndex, toLocationIndex);
+    }
+
+    private float get(MappedByteBuffer[] segments, int fromLocationIndex, int toLocationIndex){
+        long offset = ((long) fromLocationIndex * this.numLocations + toLocationIndex) << FLOAT_SIZE_SHIFT;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getFloat((int) (offset & SEGMENT_MASK));
+    }
+
+    private static long hash(List<Location> locations){
+        // FNV-1a over the coordinates
+        long hash = 0xcbf29ce484222325L;
+        for (Location location : locations) {
+            hash = (hash ^ Double.doubleToLongBits(location.getLatitude())) * 0x100000001b3L;
+            hash = (hash ^ Double.doubleToLongBits(location.getLongitude())) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static boolean isValid(Path path, int numLocations, long locationsHash) throws IOException {
+        if (!Files.isRegularFile(path))
+            return false;
+        long tableSize = (long) numLocations * numLocations << FLOAT_SIZE_SHIFT;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + 2 * tableSize)
+                return false;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            long position = 0;
+            while (header.hasRemaining()) {
+                int numBytesRead = channel.read(header, position);
+                if (numBytesRead < 0)
+                    return false;
+                position += numBytesRead;
+            }
+            header.flip();
+            return header.getInt() == MAGIC_NUMBER &&
+                    header.getInt() == VERSION && header.getInt() == numLocations && header.getInt() == 0 &&
+                    header.getLong() == locationsHash;
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long position, long size) throws IOException {
+        int numSegments = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+        for (int segment = 0; segment < numSegments; segment++) {
+            long segmentPosition = (long) segment << SEGMENT_SHIFT;
+            long segmentSize = Math.min(size - segmentPosition, 1L << SEGMENT_SHIFT);
+            segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, position + segmentPosition, segmentSize);
+            segments[segment].order(ByteOrder.nativeOrder());
+        }
+        return segments;
+    }
+
+    private static void write(Path path, List<Location> locations, long locationsHash) throws IOException {
+        int numLocations = locations.size();
+        long tableSize = (long) numLocations * numLocations << FLOAT_SIZE_SHIFT;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            header.putInt(MAGIC_NUMBER).putInt(VERSION).putInt(numLocations).putInt(0).putLong(locationsHash);
+            header.flip();
+            writeFully(channel, header, 0);
+            ByteBuffer distances = ByteBuffer.allocateDirect(numLocations << FLOAT_SIZE_SHIFT).order(
+                    ByteOrder.nativeOrder());
+            ByteBuffer travelTimes = ByteBuffer.allocateDirect(numLocations << FLOAT_SIZE_SHIFT).order(
+                    ByteOrder.nativeOrder());
+            for (int from = 0; from < numLocations; from++) {
+                distances.clear();
+                travelTimes.clear();
+                for (int to = 0; to < numLocations; to++) {
+                    double distance = DistanceUtilities.distanceInKm(locations.get(from), locations.get(to));
+                    distances.putFloat((float) distance);
+                    travelTimes.putFloat((float) TimeUtilities.travelTimeInSeconds(
+                            distance, Driver.AVERAGE_SPEED_IN_KM_PER_HOUR));
+                }
+                distances.flip();
+                travelTimes.flip();
+                long rowPosition = HEADER_SIZE + ((long) from * numLocations << FLOAT_SIZE_SHIFT);
+                writeFully(channel, distances, rowPosition);
+                writeFully(channel, travelTimes, tableSize + rowPosition);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    public MappedByteBuffer[] getDistanceSegments() {
+        return distanceSegments;
+    }
+
+    public void setDistanceSegments(MappedByteBuffer[] distanceSegments) {
+        this.distanceSegments = distanceSegments;
+    }
+
+    public void setNumLocations(int numLocations) {
+        this.numLocations = numLocations;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public void setPath(Path path) {
+        this.path = path;
+    }
+
+    public MappedByteBuffer[] getTravelTimeSegments() {
+        return travelTimeSegments;
+    }
+
+    public void setTravelTimeSegments(MappedByteBuffer[] travelTimeSegments) {
+        this.travelTimeSegments = travelTimeSegments;
+    }
+}
@@ -6,6 +6,10 @@ public class Order {
 
     private Task delivery;
     private int id;
+    /**
+     * Dense index of the order in its instance, from 0 to the number of orders - 1
+     */
+    private int index;
     private Task pickup;
 
     public Order() {
@@ -37,6 +41,16 @@ public class Order {
         this.getPickup().setOrderId(id);
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+        this.getDelivery().setOrderIndex(index);
+        this.getPickup().setOrderIndex(index);
+    }
+
     public Task getPickup() {
         return pickup;
     }
@@ -18,13 +18,20 @@ public class RouteCostFunction {
         this.travelTimeCostWeight = travelTimeCostWeight;
     }
 
+    /**
+     * Calculates the cost of the route from the totals of the cost components kept on the route.
+     */
     public double calculateCost(Route route){
-        int numLateDeliveries = route.getLateDeliveredOrderId2delay().size();
-        double totalDeliveryDelay = 0.0;
-        for (double delay : route.getLateDeliveredOrderId2delay().values())
-            totalDeliveryDelay += delay;
-        double travelTime = route.getTravelTime();
-        double distanceTravelled = route.getDistanceTravelled();
+        return calculateCost(route.getDistanceTravelled(), route.getNumLateDeliveries(), route.getTotalDeliveryDelay(),
+                route.getTravelTime());
+    }
+
+    /**
+     * Calculates the cost of the given cost components. Since the cost is linear in its components, the method also
+     * gives the cost delta of a route change when it is called with the deltas of the components.
+     */
+    public double calculateCost(
+            double distanceTravelled, int numLateDeliveries, double totalDeliveryDelay, double travelTime){
         return numLateDeliveries * this.getNumLateDeliveriesCostWeight() +
                 totalDeliveryDelay * this.getTotalDeliveryDelayCostWeight() +
                 travelTime * this.getTravelTimeCostWeight() +
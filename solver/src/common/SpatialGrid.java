@@ -0,0 +1,217 @@
+package common;
+
+import utilities.DistanceUtilities;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform latitude/longitude grid over a list of locations. The points of the grid are the positions of the
+ * locations in the list. The cells around the cell of a location are visited ring by ring, and the distance from the
+ * location to any point outside the first rings is bounded from below, so that a nearest point query can stop once the
+ * bound exceeds the best distances found.
+ */
+public class SpatialGrid {
+
+    private static final double AVERAGE_NUM_POINTS_PER_CELL = 2.0;
+    // relative tolerance of the distance bounds against the rounding of the distances
+    private static final double DISTANCE_BOUND_TOLERANCE = 1e-6;
+
+    private double cellHeight;
+    private int[] cellIndex2firstPosition;
+    private double cellWidth;
+    private double maxAbsoluteLatitude;
+    private double minLatitude;
+    private double minLongitude;
+    private int numColumns;
+    private int numRows;
+    /**
+     * Point indices ordered by their cells
+     */
+    private int[] pointIndices;
+
+    public SpatialGrid(List<Location> locations) {
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        for (Location location : locations) {
+            minLatitude = Math.min(minLatitude, location.getLatitude());
+            maxLatitude = Math.max(maxLatitude, location.getLatitude());
+            minLongitude = Math.min(minLongitude, location.getLongitude());
+            maxLongitude = Math.max(maxLongitude, location.getLongitude());
+        }
+        if (locations.isEmpty()) {
+            minLatitude = maxLatitude = minLongitude = maxLongitude = 0.0;
+        }
+        double height = maxLatitude - minLatitude;
+        // compare the extents in kilometres so that the cells are close to squares
+        double width = (maxLongitude - minLongitude) * Math.cos(Math.toRadians((minLatitude + maxLatitude) / 2));
+        int numCells = Math.max(1, (int) (locations.size() / AVERAGE_NUM_POINTS_PER_CELL));
+        int numRows;
+        int numColumns;
+        if (height <= 0 || width <= 0) {
+            numRows = height > 0 ? numCells : 1;
+            numColumns = width > 0 ? numCells : 1;
+        } else {
+            numRows = (int) Math.max(1, Math.min(numCells, Math.round(Math.sqrt(numCells * height / width))));
+            numColumns = Math.max(1, numCells / numRows);
+        }
+        this.cellHeight = height > 0 ? height / numRows : 1.0;
+        this.cellWidth = maxLongitude > minLongitude ? (maxLongitude - minLongitude) / numColumns : 1.0;
+        this.maxAbsoluteLatitude = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.numColumns = numColumns;
+        this.numRows = numRows;
+        // bucket the points by their cells
+        int[] pointIndex2cellIndex = new int[locations.size()];
+        this.cellIndex2firstPosition = new int[numRows * numColumns + 1];
+        for (int pointIndex = 0; pointIndex < locations.size(); pointIndex++) {
+            Location location = locations.get(pointIndex);
+            int cellIndex = getRow(location) * numColumns + getColumn(location);
+            pointIndex2cellIndex[pointIndex] = cellIndex;
+            this.cellIndex2firstPosition[cellIndex + 1]++;
+        }
+        for (int cellIndex = 0; cellIndex < numRows * numColumns; cellIndex++)
+            this.cellIndex2firstPosition[cellIndex + 1] += this.cellIndex2firstPosition[cellIndex];
+        int[] nextPositions = this.cellIndex2firstPosition.clone();
+        this.pointIndices = new int[locations.size()];
+        for (int pointIndex = 0; pointIndex < locations.size(); pointIndex++)
+            this.pointIndices[nextPositions[pointIndex2cellIndex[pointIndex]]++] = pointIndex;
+    }
+
+    /**
+     * Returns the number of rings around the cell of the location that contain a cell of the grid.
+     */
+    public int getNumRings(Location location) {
+        int row = getRow(location);
+        int column = getColumn(location);
+        int maxRowOffset = Math.max(row, this.getNumRows() - 1 - row);
+        int maxColumnOffset = Math.max(column, this.getNumColumns() - 1 - column);
+        return Math.max(maxRowOffset, maxColumnOffset) + 1;
+    }
+
+    /**
+     * Returns a lower bound on the distance in km from a location of the grid to the points in the given ring around
+     * its cell and in the rings after it.
+     */
+    public double calculateMinDistanceInKm(int ring) {
+        if (ring <= 1)
+            return 0.0;
+        double latitudeBound = DistanceUtilities.minDistanceInKmForLatitudeDifference(
+                (ring - 1) * this.getCellHeight());
+        // the longitudes wrap around beyond a half turn
+        double longitudeBound = this.getCellWidth() * this.getNumColumns() > 180.0 ? 0.0 :
+                DistanceUtilities.minDistanceInKmForLongitudeDifference(
+                        (ring - 1) * this.getCellWidth(), this.getMaxAbsoluteLatitude());
+        return Math.min(latitudeBound, longitudeBound) * (1 - DISTANCE_BOUND_TOLERANCE);
+    }
+
+    /**
+     * Passes the indices of the points in the cells at the given Chebyshev distance from the cell of the location to
+     * the consumer.
+     */
+    public void visitRing(Location location, int ring, IntConsumer pointIndexConsumer) {
+        int row = getRow(location);
+        int column = getColumn(location);
+        for (int rowOffset = -ring; rowOffset <= ring; rowOffset++) {
+            int cellRow = row + rowOffset;
+            if (cellRow < 0 || cellRow >= this.getNumRows())
+                continue;
+            // only the first and the last columns of the inner rows are on the ring
+            int columnStep = Math.abs(rowOffset) == ring ? 1 : Math.max(1, 2 * ring);
+            for (int columnOffset = -ring; columnOffset <= ring; columnOffset += columnStep) {
+                int cellColumn = column + columnOffset;
+                if (cellColumn < 0 || cellColumn >= this.getNumColumns())
+                    continue;
+                int cellIndex = cellRow * this.getNumColumns() + cellColumn;
+                for (int position = this.cellIndex2firstPosition[cellIndex];
+                     position < this.cellIndex2firstPosition[cellIndex + 1]; position++)
+                    pointIndexConsumer.accept(this.pointIndices[position]);
+            }
+        }
+    }
+
+    private int getColumn(Location location) {
+        int column = (int) ((location.getLongitude() - this.getMinLongitude()) / this.getCellWidth());
+        return Math.max(0, Math.min(column, this.getNumColumns() - 1));
+    }
+
+    private int getRow(Location location) {
+        int row = (int) ((location.getLatitude() - this.getMinLatitude()) / this.getCellHeight());
+        return Math.max(0, Math.min(row, this.getNumRows() - 1));
+    }
+
+    public double getCellHeight() {
+        return cellHeight;
+    }
+
+    public void setCellHeight(double cellHeight) {
+        this.cellHeight = cellHeight;
+    }
+
+    public int[] getCellIndex2firstPosition() {
+        return cellIndex2firstPosition;
+    }
+
+    public void setCellIndex2firstPosition(int[] cellIndex2firstPosition) {
+        this.cellIndex2firstPosition = cellIndex2firstPosition;
+    }
+
+    public double getCellWidth() {
+        return cellWidth;
+    }
+
+    public void setCellWidth(double cellWidth) {
+        this.cellWidth = cellWidth;
+    }
+
+    public double getMaxAbsoluteLatitude() {
+        return maxAbsoluteLatitude;
+    }
+
+    public void setMaxAbsoluteLatitude(double maxAbsoluteLatitude) {
+        this.maxAbsoluteLatitude = maxAbsoluteLatitude;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public void setMinLatitude(double minLatitude) {
+        this.minLatitude = minLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public void setMinLongitude(double minLongitude) {
+        this.minLongitude = minLongitude;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public void setNumColumns(int numColumns) {
+        this.numColumns = numColumns;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public void setNumRows(int numRows) {
+        this.numRows = numRows;
+    }
+
+    public int[] getPointIndices() {
+        return pointIndices;
+    }
+
+    public void setPointIndices(int[] pointIndices) {
+        this.pointIndices = pointIndices;
+    }
+}
@@ -7,8 +7,13 @@ public class Task {
     public static final int SERVICE_TIME_IN_SECONDS = 0;
 
     private Location location;
+    /**
+     * Dense index of the location in its instance, see {@link DistanceMatrix}
+     */
+    private int locationIndex;
     private int numItems;
     private int orderId;
+    private int orderIndex;
     private TimeWindow timeWindow;
     private TaskType type;
 
@@ -41,6 +46,14 @@ public class Task {
         this.location = location;
     }
 
+    public int getLocationIndex() {
+        return locationIndex;
+    }
+
+    public void setLocationIndex(int locationIndex) {
+        this.locationIndex = locationIndex;
+    }
+
     public int getNumItems() {
         return numItems;
     }
@@ -57,6 +70,14 @@ public class Task {
         this.orderId = orderId;
     }
 
+    public int getOrderIndex() {
+        return orderIndex;
+    }
+
+    public void setOrderIndex(int orderIndex) {
+        this.orderIndex = orderIndex;
+    }
+
     public TimeWindow getTimeWindow() {
         return timeWindow;
     }
@@ -0,0 +1,134 @@
+package common;
+
+import java.util.Arrays;
+
+/**
+ * A min-heap of values with the indices and the versions they belong to. The smallest value is at the top of the heap,
+ * and equal values are ordered by their indices. Entries are never updated in place: a changed value is added again
+ * with a new version, and the stale entries are discarded by the user when they reach the top.
+ */
+public class VersionedMinHeap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] indices;
+    private int size;
+    private double[] values;
+    private int[] versions;
+
+    public VersionedMinHeap() {
+        this.indices = new int[MIN_CAPACITY];
+        this.size = 0;
+        this.values = new double[MIN_CAPACITY];
+        this.versions = new int[MIN_CAPACITY];
+    }
+
+    public void add(int index, int version, double value) {
+        if (this.size == this.values.length) {
+            int capacity = 2 * this.values.length;
+            this.indices = Arrays.copyOf(this.indices, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.versions = Arrays.copyOf(this.versions, capacity);
+        }
+        siftUp(this.size++, index, version, value);
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int peekIndex() {
+        return this.indices[0];
+    }
+
+    public double peekValue() {
+        return this.values[0];
+    }
+
+    public int peekVersion() {
+        return this.versions[0];
+    }
+
+    /**
+     * Removes the top entry.
+     */
+    public void poll() {
+        int last = --this.size;
+        if (last > 0)
+            siftDown(0, this.indices[last], this.versions[last], this.values[last]);
+    }
+
+    private static boolean isLess(double value, int index, double otherValue, int otherIndex) {
+        int comparison = Double.compare(value, otherValue);
+        return comparison < 0 || (comparison == 0 && index < otherIndex);
+    }
+
+    private void siftDown(int position, int index, int version, double value) {
+        int half = this.size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < this.size && isLess(this.values[right], this.indices[right], this.values[child],
+                    this.indices[child]))
+                child = right;
+            if (!isLess(this.values[child], this.indices[child], value, index))
+                break;
+            set(position, this.indices[child], this.versions[child], this.values[child]);
+            position = child;
+        }
+        set(position, index, version, value);
+    }
+
+    private void siftUp(int position, int index, int version, double value) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isLess(value, index, this.values[parent], this.indices[parent]))
+                break;
+            set(position, this.indices[parent], this.versions[parent], this.values[parent]);
+            position = parent;
+        }
+        set(position, index, version, value);
+    }
+
+    private void set(int position, int index, int version, double value) {
+        this.indices[position] = index;
+        this.values[position] = value;
+        this.versions[position] = version;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public void setIndices(int[] indices) {
+        this.indices = indices;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public void setValues(double[] values) {
+        this.values = values;
+    }
+
+    public int[] getVersions() {
+        return versions;
+    }
+
+    public void setVersions(int[] versions) {
+        this.versions = versions;
+    }
+}
@@ -1,18 +1,103 @@
 package input;
 
-import common.Driver;
-import common.Order;
+import common.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Instance {
 
+    private DistanceMatrix distanceMatrix;
+    /**
+     * Directory of the memory-mapped distance matrix files, or null if the distance matrix is kept in memory
+     */
+    private Path distanceMatrixDirectory;
     private List<Driver> drivers;
     private List<Order> orders;
 
     public Instance(List<Driver> drivers, List<Order> orders) {
+        this(null, drivers, orders);
+    }
+
+    public Instance(Path distanceMatrixDirectory, List<Driver> drivers, List<Order> orders) {
+        this.distanceMatrixDirectory = distanceMatrixDirectory;
         this.drivers = drivers;
         this.orders = orders;
+        indexDrivers();
+        indexOrders();
+        indexLocations();
+    }
+
+    private void indexDrivers(){
+        for (int index = 0; index < this.getDrivers().size(); index++)
+            this.getDrivers().get(index).setIndex(index);
+    }
+
+    private void indexOrders(){
+        for (int index = 0; index < this.getOrders().size(); index++)
+            this.getOrders().get(index).setIndex(index);
+    }
+
+    /**
+     * Assigns dense indices to the distinct start locations of the drivers and the task locations of the orders, and
+     * creates the distance matrix over them. Without a directory of memory-mapped files, the matrix is kept in memory
+     * unless it is too large, in which case the distances are calculated on demand.
+     *
+     * @throws UncheckedIOException if the memory-mapped distance matrix cannot be written or mapped
+     */
+    private void indexLocations(){
+        Map<Location, Integer> location2index = new HashMap<>();
+        List<Location> locations = new ArrayList<>();
+        for (Driver driver : this.getDrivers())
+            driver.setStartLocationIndex(indexLocation(driver.getStartLocation(), location2index, locations));
+        for (Order order : this.getOrders()) {
+            Task pickup = order.getPickup();
+            pickup.setLocationIndex(indexLocation(pickup.getLocation(), location2index, locations));
+            Task delivery = order.getDelivery();
+            delivery.setLocationIndex(indexLocation(delivery.getLocation(), location2index, locations));
+        }
+        if (this.getDistanceMatrixDirectory() == null) {
+            this.setDistanceMatrix(InMemoryDistanceMatrix.fitsInMemory(locations.size()) ?
+                    new InMemoryDistanceMatrix(locations) : new CalculatedDistanceMatrix(locations));
+            return;
+        }
+        try {
+            this.setDistanceMatrix(MappedDistanceMatrix.open(this.getDistanceMatrixDirectory(), locations));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int indexLocation(Location location, Map<Location, Integer> location2index,
+                                     List<Location> locations){
+        Integer index = location2index.get(location);
+        if (index == null) {
+            index = locations.size();
+            location2index.put(location, index);
+            locations.add(location);
+        }
+        return index;
+    }
+
+    public DistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
+    public void setDistanceMatrix(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    public Path getDistanceMatrixDirectory() {
+        return distanceMatrixDirectory;
+    }
+
+    public void setDistanceMatrixDirectory(Path distanceMatrixDirectory) {
+        this.distanceMatrixDirectory = distanceMatrixDirectory;
     }
 
     public List<Driver> getDrivers() {
@@ -21,6 +106,8 @@ public class Instance {
 
     public void setDrivers(List<Driver> drivers) {
         this.drivers = drivers;
+        indexDrivers();
+        indexLocations();
     }
 
     public List<Order> getOrders() {
@@ -29,5 +116,7 @@ public class Instance {
 
     public void setOrders(List<Order> orders) {
         this.orders = orders;
+        indexOrders();
+        indexLocations();
     }
 }
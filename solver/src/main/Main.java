@@ -5,8 +5,15 @@ package main;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
+import algorithms.HeuristicAlgorithm;
+import algorithms.ImprovementHeuristicType;
+import algorithms.ImprovementStrategy;
+import common.CalculatedDistanceMatrix;
 import common.Driver;
 import common.Order;
 import exceptions.*;
@@ -24,6 +31,9 @@ import org.apache.commons.cli.ParseException;
 import output.CsvOutputDataProducer;
 import output.OutputDataProducer;
 import output.Solution;
+import solver.IslandModelSimulatedAnnealingAlgorithm;
+import solver.MigrationPolicy;
+import solver.MultiStartSimulatedAnnealingAlgorithm;
 import solver.SimulatedAnnealingAlgorithm;
 import solver.SimulatedAnnealingConfiguration;
 import solver.SimulatedAnnealingConfigurationBuilder;
@@ -57,15 +67,60 @@ public class Main {
         String inputPath = cmd.getOptionValue("path");
         String driverFileName = cmd.getOptionValue("driver-file-name");
         String orderFileName = cmd.getOptionValue("order-file-name");
+        String distanceMatrixPath = cmd.getOptionValue("distance-matrix-path");
+        String improvementHeuristics = cmd.getOptionValue("improvement-heuristics");
+        String improvementStrategy = cmd.getOptionValue("improvement-strategy");
+        String migrationInterval = cmd.getOptionValue("migration-interval");
+        String migrationPolicy = cmd.getOptionValue("migration-policy");
+        String numChains = cmd.getOptionValue("num-chains");
+        String numThreads = cmd.getOptionValue("num-threads");
+        String seed = cmd.getOptionValue("seed");
+        String timeLimit = cmd.getOptionValue("time-limit");
 
         /* Read input data */
-        Instance instance = createInstance(inputPath, driverFileName, orderFileName);
+        Instance instance = createInstance(inputPath, driverFileName, orderFileName, distanceMatrixPath);
         System.out.println("Instance created...");
+        if (instance.getDistanceMatrix() instanceof CalculatedDistanceMatrix)
+            System.out.println("The distance matrix is too large to be kept in memory and is calculated on demand, " +
+                    "set distance-matrix-path to read it from memory-mapped files");
 
         /* Run the algorithm */
         SimulatedAnnealingConfigurationBuilder configurationBuilder = new SimulatedAnnealingConfigurationBuilder();
+        try {
+            if (improvementHeuristics != null) {
+                List<ImprovementHeuristicType> improvementHeuristicTypes = new ArrayList<>();
+                for (String improvementHeuristic : improvementHeuristics.split(","))
+                    improvementHeuristicTypes.add(ImprovementHeuristicType.valueOf(improvementHeuristic.trim()));
+                configurationBuilder.setImprovementHeuristicTypes(improvementHeuristicTypes);
+            }
+            if (improvementStrategy != null)
+                configurationBuilder.setImprovementStrategy(ImprovementStrategy.valueOf(improvementStrategy));
+            if (migrationInterval != null)
+                configurationBuilder.setMigrationInterval(Integer.parseInt(migrationInterval));
+            if (migrationPolicy != null)
+                configurationBuilder.setMigrationPolicy(MigrationPolicy.valueOf(migrationPolicy));
+            if (numChains != null)
+                configurationBuilder.setNumChains(Integer.parseInt(numChains));
+            if (numThreads != null)
+                configurationBuilder.setNumThreads(Integer.parseInt(numThreads));
+            if (seed != null)
+                configurationBuilder.setSeed(Long.parseLong(seed));
+            if (timeLimit != null)
+                configurationBuilder.setTimeLimitInSeconds(Double.parseDouble(timeLimit));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException(String.format("Invalid solver option, details: %s", e.getMessage()));
+        }
         SimulatedAnnealingConfiguration configuration = configurationBuilder.build();
-        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(instance, configuration);
+        if (migrationPolicy != null && configuration.getNumChains() < 2)
+            throw new InvalidInputException(
+                    "Invalid solver option, details: migration-policy requires num-chains of at least 2");
+        HeuristicAlgorithm algorithm;
+        if (migrationPolicy != null)
+            algorithm = new IslandModelSimulatedAnnealingAlgorithm(instance, configuration);
+        else if (configuration.getNumChains() > 1)
+            algorithm = new MultiStartSimulatedAnnealingAlgorithm(instance, configuration);
+        else
+            algorithm = new SimulatedAnnealingAlgorithm(instance, configuration);
         Solution solution = algorithm.run();
 
         /* Print the best solution */
@@ -105,6 +160,51 @@ public class Main {
         orderFile.setRequired(true);
         options.addOption(orderFile);
 
+        Option distanceMatrixPath = new Option(
+                "m", "distance-matrix-path", true,
+                "folder of the memory-mapped distance matrix files, the matrix is kept in memory if not set, or " +
+                        "calculated on demand if it is too large");
+        options.addOption(distanceMatrixPath);
+
+        Option numChains = new Option(
+                "c", "num-chains", true, "number of independent annealing chains, 1 by default");
+        options.addOption(numChains);
+
+        Option numThreads = new Option(
+                "t", "num-threads", true,
+                "number of threads running the chains, the number of processors by default, and one per island in " +
+                        "the island model");
+        options.addOption(numThreads);
+
+        Option migrationPolicy = new Option(
+                "i", "migration-policy", true,
+                "runs the chains as an island model that migrates the best solutions to the islands selected by the " +
+                        "policy: RING, BROADCAST_BEST or RANDOM, requires at least 2 chains");
+        options.addOption(migrationPolicy);
+
+        Option migrationInterval = new Option(
+                "f", "migration-interval", true,
+                "number of segments between the migrations of the island model, 1 by default and 0 to disable");
+        options.addOption(migrationInterval);
+
+        Option improvementHeuristics = new Option(
+                "e", "improvement-heuristics", true,
+                "comma separated improvement heuristics applied to the repaired routes in the given order: OR_OPT, " +
+                        "PICKUP_DELIVERY_EXCHANGE or PICKUP_DELIVERY_RELOCATE, none by default");
+        options.addOption(improvementHeuristics);
+
+        Option improvementStrategy = new Option(
+                "g", "improvement-strategy", true,
+                "move selected by the improvement heuristics: FIRST_IMPROVEMENT by default or BEST_IMPROVEMENT");
+        options.addOption(improvementStrategy);
+
+        Option seed = new Option("s", "seed", true, "seed of the random number generator, 0 by default");
+        options.addOption(seed);
+
+        Option timeLimit = new Option(
+                "l", "time-limit", true, "wall-clock time limit of the search in seconds, no limit by default");
+        options.addOption(timeLimit);
+
         return options;
     }
 
@@ -113,10 +213,12 @@ public class Main {
      * @param inputPath
      * @param driverFileName
      * @param orderFileName
+     * @param distanceMatrixPath
      * @return <code>Instance </code> object
      * @throws InvalidInputException
      */
-    private static Instance createInstance(String inputPath, String driverFileName, String orderFileName) throws
+    private static Instance createInstance(
+            String inputPath, String driverFileName, String orderFileName, String distanceMatrixPath) throws
             InvalidInputException {
 
         List<Driver> drivers;
@@ -133,7 +235,13 @@ public class Main {
         } catch (IOException e) {
             throw new InvalidInputException(String.format("Failed to fetch the orders, details: %s", e.getMessage()));
         }
-        return new Instance(drivers, orders);
+        try {
+            return new Instance(
+                    distanceMatrixPath == null ? null : Paths.get(distanceMatrixPath), drivers, orders);
+        } catch (UncheckedIOException e) {
+            throw new InvalidInputException(
+                    String.format("Failed to create the distance matrix, details: %s", e.getMessage()));
+        }
     }
 
 }
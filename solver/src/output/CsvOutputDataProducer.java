@@ -1,5 +1,8 @@
 package output;
 
+import common.Task;
+import common.TaskType;
+
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
@@ -29,13 +32,15 @@ public class CsvOutputDataProducer implements OutputDataProducer {
         for (Map.Entry<Integer, Route> entry : solution.getDriverId2route().entrySet()) {
             int driverId = entry.getKey();
             Route route = entry.getValue();
-            for (int orderId : route.getOrderIds()){
-                sb.append(orderId).append(DELIMITER);
+            for (Task task : route.getTasks()){
+                if (!task.getType().equals(TaskType.PICKUP))
+                    continue;
+                sb.append(task.getOrderId()).append(DELIMITER);
                 sb.append(driverId).append(DELIMITER);
-                int pickUpTaskIndex = route.getOrderId2pickupTaskIndex().get(orderId);
-                int deliveryTaskIndex = route.getOrderId2deliveryTaskIndex().get(orderId);
-                long estimatedPickUpTime = Math.round(route.getTaskCompletionTimes().get(pickUpTaskIndex));
-                long estimatedDeliveryTime = Math.round(route.getTaskCompletionTimes().get(deliveryTaskIndex));
+                int pickUpTaskIndex = route.getPickupTaskIndex(task.getOrderIndex());
+                int deliveryTaskIndex = route.getDeliveryTaskIndex(task.getOrderIndex());
+                long estimatedPickUpTime = Math.round(route.getTaskCompletionTimes()[pickUpTaskIndex]);
+                long estimatedDeliveryTime = Math.round(route.getTaskCompletionTimes()[deliveryTaskIndex]);
                 sb.append(estimatedPickUpTime).append(DELIMITER);
                 sb.append(estimatedDeliveryTime);
                 sb.append(NEW_LINE_SEPARATOR);
@@ -3,164 +3,527 @@ package output;
 import algorithms.OrderInsertion;
 import common.*;
 import exceptions.InfeasibleRouteException;
-import utilities.DistanceUtilities;
-import utilities.TimeUtilities;
+import utilities.FingerprintUtilities;
 
 import java.util.*;
 
 public class Route {
 
+    /**
+     * Task index of the orders that are not served by the route
+     */
+    public static final int NO_TASK_INDEX = -1;
+
+    /*
+     * The schedule of the route is kept in primitive arrays whose capacity may exceed the number of tasks, so that the
+     * arrays are reused when the route changes. Only the first getTasks().size() entries of them are valid.
+     */
+    /**
+     * Distance and travel time of the arc to each task from the previous task, or from the start location of the
+     * driver for the first task
+     */
+    private double[] arcDistances;
+    private double[] arcTravelTimes;
+    private double[] arrivalTimes;
     private double cost;
-    private List<Double> cumulativeDistances;
-    private List<Double> cumulativeTravelTimes;
+    private double[] cumulativeDistances;
+    private double[] cumulativeTravelTimes;
+    /**
+     * Cumulative waiting times before the tasks, where the entry at index i is the total waiting time of the tasks
+     * before task i. Hence, the array has one more valid entry than the number of tasks.
+     */
+    private double[] cumulativeWaitingTimes;
+    private DistanceMatrix distanceMatrix;
     private double distanceTravelled;
     private Driver driver;
+    private int[] driverLoads;
+    /**
+     * Fingerprint of the tasks, updated with the arcs that change when an order is inserted or removed
+     */
+    private long fingerprint;
     private Map<Integer, Double> lateDeliveredOrderId2delay;
-    private List<Integer> driverLoads;
-    private Map<Integer, Integer> orderId2deliveryTaskIndex;
-    private Map<Integer, Integer> orderId2pickupTaskIndex;
+    /**
+     * Latest arrival time to each task such that the time window of the driver is not violated
+     */
+    private double[] latestArrivalTimes;
+    /**
+     * Latest arrival time to each task such that the delay of none of the following deliveries increases
+     */
+    private double[] latestPenaltyFreeArrivalTimes;
+    /**
+     * Task indices of the deliveries and the pickups indexed by the order index, {@link #NO_TASK_INDEX} if the order
+     * is not served by the route
+     */
+    private int[] orderIndex2deliveryTaskIndex;
+    private int[] orderIndex2pickupTaskIndex;
     private List<Integer> orderIds;
-    private List<Double> taskCompletionTimes;
+    private double[] taskCompletionTimes;
     private List<Task> tasks;
+    /**
+     * Sum of the delays of the late deliveries, updated with the delays that change when the route is rescheduled
+     */
+    private double totalDeliveryDelay;
     private double travelTime;
 
-    public Route(Driver driver) {
-        this.cumulativeDistances = new ArrayList<>();
-        this.cumulativeTravelTimes = new ArrayList<>();
+    public Route(DistanceMatrix distanceMatrix, Driver driver) {
+        this.arcDistances = new double[0];
+        this.arcTravelTimes = new double[0];
+        this.arrivalTimes = new double[0];
+        this.cumulativeDistances = new double[0];
+        this.cumulativeTravelTimes = new double[0];
+        this.cumulativeWaitingTimes = new double[1];
+        this.distanceMatrix = distanceMatrix;
         this.driver = driver;
+        this.driverLoads = new int[0];
         this.lateDeliveredOrderId2delay = new HashMap<>();
-        this.driverLoads = new ArrayList<>();
-        this.orderId2deliveryTaskIndex = new HashMap<>();
-        this.orderId2pickupTaskIndex = new HashMap<>();
+        this.latestArrivalTimes = new double[0];
+        this.latestPenaltyFreeArrivalTimes = new double[0];
+        this.orderIndex2deliveryTaskIndex = new int[0];
+        this.orderIndex2pickupTaskIndex = new int[0];
         this.orderIds = new ArrayList<>();
-        this.taskCompletionTimes = new ArrayList<>();
-        this.tasks = new LinkedList<>();
+        this.taskCompletionTimes = new double[0];
+        this.tasks = new ArrayList<>();
     }
 
-    public Route(Driver driver, List<Task> tasks) throws InfeasibleRouteException {
-        this.driver = driver;
-        this.tasks = tasks;
-        registerTasks();
-        schedule();
+    public Route(DistanceMatrix distanceMatrix, Driver driver, List<Task> tasks) throws InfeasibleRouteException {
+        this(distanceMatrix, driver);
+        this.checkStatus(this.setUpTasks(tasks));
     }
 
     public Route(Route route){
+        int numTasks = route.getTasks().size();
+        this.arcDistances = copyOf(route.getArcDistances(), numTasks);
+        this.arcTravelTimes = copyOf(route.getArcTravelTimes(), numTasks);
+        this.arrivalTimes = copyOf(route.getArrivalTimes(), numTasks);
         this.cost = route.getCost();
-        this.cumulativeDistances = new ArrayList<>(route.cumulativeDistances);
-        this.cumulativeTravelTimes = new ArrayList<>(route.getCumulativeTravelTimes());
+        this.cumulativeDistances = copyOf(route.getCumulativeDistances(), numTasks);
+        this.cumulativeTravelTimes = copyOf(route.getCumulativeTravelTimes(), numTasks);
+        this.cumulativeWaitingTimes = copyOf(route.getCumulativeWaitingTimes(), numTasks + 1);
+        this.distanceMatrix = route.getDistanceMatrix();
         this.distanceTravelled = route.getDistanceTravelled();
         this.driver = route.getDriver();
+        this.driverLoads = copyOf(route.getDriverLoads(), numTasks);
+        this.fingerprint = route.getFingerprint();
         this.lateDeliveredOrderId2delay = new HashMap<>(route.getLateDeliveredOrderId2delay());
-        this.driverLoads = new ArrayList<>(route.getDriverLoads());
-        this.orderId2deliveryTaskIndex = new HashMap<>(route.getOrderId2deliveryTaskIndex());
-        this.orderId2pickupTaskIndex = new HashMap<>(route.getOrderId2pickupTaskIndex());
+        this.latestArrivalTimes = copyOf(route.getLatestArrivalTimes(), numTasks);
+        this.latestPenaltyFreeArrivalTimes = copyOf(route.getLatestPenaltyFreeArrivalTimes(), numTasks);
+        this.orderIndex2deliveryTaskIndex = route.getOrderIndex2deliveryTaskIndex().clone();
+        this.orderIndex2pickupTaskIndex = route.getOrderIndex2pickupTaskIndex().clone();
         this.orderIds = new ArrayList<>(route.getOrderIds());
-        this.taskCompletionTimes = new ArrayList<>(route.getTaskCompletionTimes());
-        this.tasks = new LinkedList<>(route.getTasks());
+        this.taskCompletionTimes = copyOf(route.getTaskCompletionTimes(), numTasks);
+        this.tasks = new ArrayList<>(route.getTasks());
+        this.totalDeliveryDelay = route.getTotalDeliveryDelay();
         this.travelTime = route.getTravelTime();
     }
 
+    /**
+     * Creates the route of the tasks as {@link #Route(DistanceMatrix, Driver, List)} does, but returns null instead of
+     * throwing an exception if the route is infeasible.
+     */
+    public static Route createIfFeasible(DistanceMatrix distanceMatrix, Driver driver, List<Task> tasks){
+        Route route = new Route(distanceMatrix, driver);
+        return route.setUpTasks(tasks) == RouteStatus.FEASIBLE ? route : null;
+    }
+
+    /**
+     * Calculates the fingerprint of the tasks of the route from scratch, which is equal for the routes with equal
+     * tasks and 0 for an empty route.
+     */
+    public long calculateFingerprint(){
+        long fingerprint = 0;
+        long previousTaskKey = FingerprintUtilities.START_TASK_KEY;
+        for (Task task : this.getTasks()) {
+            long taskKey = FingerprintUtilities.calculateTaskKey(task);
+            fingerprint ^= FingerprintUtilities.calculateArcFingerprint(previousTaskKey, taskKey);
+            previousTaskKey = taskKey;
+        }
+        return fingerprint;
+    }
+
     public void evaluate(RouteCostFunction costFunction){
         double cost = costFunction.calculateCost(this);
         this.setCost(cost);
     }
 
-    public void insert(Order order, OrderInsertion orderInsertion) throws
-            InfeasibleRouteException {
-        this.getTasks().add(orderInsertion.getPickUpTaskIndex(), order.getPickup());
-        this.getTasks().add(orderInsertion.getDeliveryTaskIndex(), order.getDelivery());
-        this.registerTasks();
-        this.schedule();
+    /**
+     * Returns the index of the delivery task of the order with the given index, or {@link #NO_TASK_INDEX} if the
+     * order is not served by the route.
+     */
+    public int getDeliveryTaskIndex(int orderIndex){
+        return orderIndex < this.getOrderIndex2deliveryTaskIndex().length ?
+                this.getOrderIndex2deliveryTaskIndex()[orderIndex] : NO_TASK_INDEX;
     }
 
-    public void remove(int orderId) throws InfeasibleRouteException {
-        int pickUpTaskIndex = this.getOrderId2pickupTaskIndex().get(orderId);
-        int deliveryTaskIndex = this.getOrderId2deliveryTaskIndex().get(orderId);
-        this.getTasks().remove(pickUpTaskIndex);
-        // adjust the delivery task index
-        deliveryTaskIndex--;
-        this.getTasks().remove(deliveryTaskIndex);
-        this.registerTasks();
-        this.schedule();
+    /**
+     * Returns the index of the pickup task of the order with the given index, or {@link #NO_TASK_INDEX} if the order
+     * is not served by the route.
+     */
+    public int getPickupTaskIndex(int orderIndex){
+        return orderIndex < this.getOrderIndex2pickupTaskIndex().length ?
+                this.getOrderIndex2pickupTaskIndex()[orderIndex] : NO_TASK_INDEX;
     }
 
-    private void registerTasks() throws InfeasibleRouteException {
-        Map<Integer, Integer> orderId2deliveryTaskIndex = new HashMap<>();
-        Map<Integer, Integer> orderId2pickupTaskIndex = new HashMap<>();
-        List<Integer> orderIds = new ArrayList<>();
-        List<Integer> driverLoads = new ArrayList<>();
-        int driverLoad = 0;
-        for (Task task : this.getTasks()) {
+    /**
+     * Inserts the order and reschedules the route starting from the pickup task, where the tasks before the pickup
+     * keep their schedule.
+     */
+    public void insert(Order order, OrderInsertion orderInsertion) throws
+            InfeasibleRouteException {
+        this.checkStatus(this.tryInsert(order, orderInsertion));
+    }
+
+    /**
+     * Removes the order and reschedules the route starting from the former pickup task index, where the tasks before
+     * it keep their schedule.
+     */
+    public void remove(Order order) throws InfeasibleRouteException {
+        this.checkStatus(this.tryRemove(order));
+    }
+
+    /**
+     * Inserts the order as {@link #insert(Order, OrderInsertion)} does, but returns the status of the route instead of
+     * throwing an exception if the route is infeasible. The route must not be used unless it is feasible.
+     */
+    public RouteStatus tryInsert(Order order, OrderInsertion orderInsertion){
+        if (this.getPickupTaskIndex(order.getIndex()) != NO_TASK_INDEX)
+            return RouteStatus.ORDER_SERVED_MULTIPLE_TIMES;
+        int pickUpTaskIndex = orderInsertion.getPickUpTaskIndex();
+        int deliveryTaskIndex = orderInsertion.getDeliveryTaskIndex();
+        int numTasks = this.getTasks().size();
+        int numPickups = 0;
+        for (int taskIndex = 0; taskIndex < pickUpTaskIndex; taskIndex++) {
+            if (!this.getTasks().get(taskIndex).getType().equals(TaskType.DELIVERY))
+                numPickups++;
+        }
+        this.getOrderIds().add(numPickups, order.getId());
+        this.getTasks().add(pickUpTaskIndex, order.getPickup());
+        this.getTasks().add(deliveryTaskIndex, order.getDelivery());
+        this.fingerprint ^= this.calculateOrderArcsFingerprint(pickUpTaskIndex, deliveryTaskIndex);
+        this.growTaskArrays(numTasks + 2);
+        this.moveTasks(deliveryTaskIndex - 1, numTasks, 2);
+        this.moveTasks(pickUpTaskIndex, deliveryTaskIndex - 1, 1);
+        int lastModifiedTaskIndex = Math.min(deliveryTaskIndex + 1, numTasks + 1);
+        this.connect(pickUpTaskIndex);
+        this.connect(pickUpTaskIndex + 1);
+        this.connect(deliveryTaskIndex);
+        if (deliveryTaskIndex < lastModifiedTaskIndex)
+            this.connect(lastModifiedTaskIndex);
+        return this.schedule(pickUpTaskIndex, lastModifiedTaskIndex);
+    }
+
+    /**
+     * Removes the order as {@link #remove(Order)} does, but returns the status of the route instead of throwing an
+     * exception if the route is infeasible. The route must not be used unless it is feasible.
+     */
+    public RouteStatus tryRemove(Order order){
+        int orderIndex = order.getIndex();
+        int pickUpTaskIndex = this.getPickupTaskIndex(orderIndex);
+        int deliveryTaskIndex = this.getDeliveryTaskIndex(orderIndex);
+        int numTasks = this.getTasks().size();
+        this.fingerprint ^= this.calculateOrderArcsFingerprint(pickUpTaskIndex, deliveryTaskIndex);
+        this.getTasks().remove(deliveryTaskIndex);
+        this.getTasks().remove(pickUpTaskIndex);
+        this.getOrderIds().remove(Integer.valueOf(order.getId()));
+        Double delay = this.getLateDeliveredOrderId2delay().remove(order.getId());
+        if (delay != null)
+            this.setTotalDeliveryDelay(this.getTotalDeliveryDelay() - delay);
+        this.getOrderIndex2deliveryTaskIndex()[orderIndex] = NO_TASK_INDEX;
+        this.getOrderIndex2pickupTaskIndex()[orderIndex] = NO_TASK_INDEX;
+        this.moveTasks(pickUpTaskIndex + 1, deliveryTaskIndex, -1);
+        this.moveTasks(deliveryTaskIndex + 1, numTasks, -2);
+        // the loads of the tasks between the pickup and the delivery change, and the task following the delivery,
+        // if any, is now at deliveryTaskIndex - 1
+        int lastModifiedTaskIndex = Math.min(deliveryTaskIndex - 1, numTasks - 3);
+        if (pickUpTaskIndex <= lastModifiedTaskIndex)
+            this.connect(pickUpTaskIndex);
+        if (pickUpTaskIndex < lastModifiedTaskIndex && lastModifiedTaskIndex == deliveryTaskIndex - 1)
+            this.connect(lastModifiedTaskIndex);
+        return this.schedule(pickUpTaskIndex, lastModifiedTaskIndex);
+    }
+
+    /**
+     * Calculates the fingerprint of the arcs to the tasks at the given indices, or the start location of the driver
+     * for index -1.
+     */
+    private long calculateArcFingerprint(int fromTaskIndex, int toTaskIndex){
+        long fromTaskKey = fromTaskIndex >= 0 ?
+                FingerprintUtilities.calculateTaskKey(this.getTasks().get(fromTaskIndex)) :
+                FingerprintUtilities.START_TASK_KEY;
+        return FingerprintUtilities.calculateArcFingerprint(
+                fromTaskKey, FingerprintUtilities.calculateTaskKey(this.getTasks().get(toTaskIndex)));
+    }
+
+    /**
+     * Calculates the XOR of the fingerprints of the arcs that the route has with the order at the given task indices
+     * and of the arcs that it has without the order, which changes the fingerprint of the route between the two.
+     */
+    private long calculateOrderArcsFingerprint(int pickUpTaskIndex, int deliveryTaskIndex){
+        int lastTaskIndex = this.getTasks().size() - 1;
+        long fingerprint = calculateArcFingerprint(pickUpTaskIndex - 1, pickUpTaskIndex) ^
+                calculateArcFingerprint(deliveryTaskIndex - 1, deliveryTaskIndex);
+        if (deliveryTaskIndex < lastTaskIndex)
+            fingerprint ^= calculateArcFingerprint(deliveryTaskIndex, deliveryTaskIndex + 1);
+        if (deliveryTaskIndex > pickUpTaskIndex + 1) {
+            fingerprint ^= calculateArcFingerprint(pickUpTaskIndex, pickUpTaskIndex + 1) ^
+                    calculateArcFingerprint(pickUpTaskIndex - 1, pickUpTaskIndex + 1);
+            if (deliveryTaskIndex < lastTaskIndex)
+                fingerprint ^= calculateArcFingerprint(deliveryTaskIndex - 1, deliveryTaskIndex + 1);
+        } else if (deliveryTaskIndex < lastTaskIndex)
+            fingerprint ^= calculateArcFingerprint(pickUpTaskIndex - 1, deliveryTaskIndex + 1);
+        return fingerprint;
+    }
+
+    /**
+     * Sets the distance and the travel time of the arc to the task at the given index.
+     */
+    private void connect(int taskIndex){
+        int fromLocationIndex = taskIndex > 0 ?
+                this.getTasks().get(taskIndex - 1).getLocationIndex() : this.getDriver().getStartLocationIndex();
+        int toLocationIndex = this.getTasks().get(taskIndex).getLocationIndex();
+        this.getArcDistances()[taskIndex] = this.getDistanceMatrix().getDistance(fromLocationIndex, toLocationIndex);
+        this.getArcTravelTimes()[taskIndex] = this.getDistanceMatrix().getTravelTime(
+                fromLocationIndex, toLocationIndex);
+    }
+
+    /**
+     * Sets the tasks of an empty route and schedules them.
+     */
+    private RouteStatus setUpTasks(List<Task> tasks){
+        this.tasks = new ArrayList<>(tasks);
+        int numTasks = this.tasks.size();
+        this.growTaskArrays(numTasks);
+        for (int taskIndex = 0; taskIndex < numTasks; taskIndex++) {
+            Task task = this.tasks.get(taskIndex);
+            if (!task.getType().equals(TaskType.DELIVERY))
+                this.getOrderIds().add(task.getOrderId());
+            this.connect(taskIndex);
+        }
+        this.fingerprint = this.calculateFingerprint();
+        return this.schedule(0, numTasks - 1);
+    }
+
+    private void growTaskArrays(int numTasks){
+        this.setArcDistances(grow(this.getArcDistances(), numTasks));
+        this.setArcTravelTimes(grow(this.getArcTravelTimes(), numTasks));
+        this.setArrivalTimes(grow(this.getArrivalTimes(), numTasks));
+        this.setCumulativeDistances(grow(this.getCumulativeDistances(), numTasks));
+        this.setCumulativeTravelTimes(grow(this.getCumulativeTravelTimes(), numTasks));
+        this.setCumulativeWaitingTimes(grow(this.getCumulativeWaitingTimes(), numTasks + 1));
+        this.setDriverLoads(grow(this.getDriverLoads(), numTasks));
+        this.setLatestArrivalTimes(grow(this.getLatestArrivalTimes(), numTasks));
+        this.setLatestPenaltyFreeArrivalTimes(grow(this.getLatestPenaltyFreeArrivalTimes(), numTasks));
+        this.setTaskCompletionTimes(grow(this.getTaskCompletionTimes(), numTasks));
+    }
+
+    /**
+     * Moves the schedule entries of the tasks in [fromTaskIndex, toTaskIndex) by the given offset. Only the entries
+     * which are reused by {@link #schedule(int, int)} are moved.
+     */
+    private void moveTasks(int fromTaskIndex, int toTaskIndex, int offset){
+        int length = toTaskIndex - fromTaskIndex;
+        if (length <= 0)
+            return;
+        int destinationTaskIndex = fromTaskIndex + offset;
+        System.arraycopy(this.getArcDistances(), fromTaskIndex, this.getArcDistances(), destinationTaskIndex, length);
+        System.arraycopy(
+                this.getArcTravelTimes(), fromTaskIndex, this.getArcTravelTimes(), destinationTaskIndex, length);
+        System.arraycopy(this.getArrivalTimes(), fromTaskIndex, this.getArrivalTimes(), destinationTaskIndex, length);
+        System.arraycopy(this.getDriverLoads(), fromTaskIndex, this.getDriverLoads(), destinationTaskIndex, length);
+        System.arraycopy(this.getTaskCompletionTimes(), fromTaskIndex, this.getTaskCompletionTimes(),
+                destinationTaskIndex, length);
+    }
+
+    /**
+     * Schedules the route starting from the given task index, where the schedule of the tasks before it is kept. The
+     * arcs to the tasks in [fromTaskIndex, toTaskIndex] must be connected, and the tasks after toTaskIndex must keep
+     * their arcs, loads and schedule entries from the previous schedule. The pickup and delivery precedence and the
+     * driver capacity are validated for the tasks in [fromTaskIndex, toTaskIndex], and the time window of the driver
+     * is validated for the route. Once the completion time of a task after toTaskIndex is unchanged, the waiting
+     * times absorbed the change and the following tasks only get their cumulative values and task indices updated.
+     *
+     * @return the status of the route, where the schedule is incomplete unless the route is feasible
+     */
+    private RouteStatus schedule(int fromTaskIndex, int toTaskIndex){
+        List<Task> tasks = this.getTasks();
+        int numTasks = tasks.size();
+        int capacity = this.getDriver().getCapacity();
+        double[] arcDistances = this.getArcDistances();
+        double[] arcTravelTimes = this.getArcTravelTimes();
+        double[] arrivalTimes = this.getArrivalTimes();
+        double[] cumulativeDistances = this.getCumulativeDistances();
+        double[] cumulativeTravelTimes = this.getCumulativeTravelTimes();
+        double[] cumulativeWaitingTimes = this.getCumulativeWaitingTimes();
+        int[] driverLoads = this.getDriverLoads();
+        double[] latestArrivalTimes = this.getLatestArrivalTimes();
+        double[] latestPenaltyFreeArrivalTimes = this.getLatestPenaltyFreeArrivalTimes();
+        int[] orderIndex2deliveryTaskIndex = this.getOrderIndex2deliveryTaskIndex();
+        int[] orderIndex2pickupTaskIndex = this.getOrderIndex2pickupTaskIndex();
+        double[] taskCompletionTimes = this.getTaskCompletionTimes();
+        Map<Integer, Double> lateDeliveredOrderId2delay = this.getLateDeliveredOrderId2delay();
+        // unregister the tasks to validate so that the precedence checks below see only the validated ones
+        for (int taskIndex = fromTaskIndex; taskIndex <= toTaskIndex; taskIndex++) {
+            Task task = tasks.get(taskIndex);
+            int orderIndex = task.getOrderIndex();
+            if (orderIndex >= orderIndex2pickupTaskIndex.length) {
+                orderIndex2deliveryTaskIndex = growOrderIndices(orderIndex2deliveryTaskIndex, orderIndex + 1);
+                orderIndex2pickupTaskIndex = growOrderIndices(orderIndex2pickupTaskIndex, orderIndex + 1);
+            }
+            if (task.getType().equals(TaskType.DELIVERY))
+                orderIndex2deliveryTaskIndex[orderIndex] = NO_TASK_INDEX;
+            else
+                orderIndex2pickupTaskIndex[orderIndex] = NO_TASK_INDEX;
+        }
+        this.setOrderIndex2deliveryTaskIndex(orderIndex2deliveryTaskIndex);
+        this.setOrderIndex2pickupTaskIndex(orderIndex2pickupTaskIndex);
+        boolean scheduled = false;
+        int driverLoad = fromTaskIndex > 0 ? driverLoads[fromTaskIndex - 1] : 0;
+        double totalDistanceTravelled = fromTaskIndex > 0 ? cumulativeDistances[fromTaskIndex - 1] : 0;
+        double totalTravelTime = fromTaskIndex > 0 ? cumulativeTravelTimes[fromTaskIndex - 1] : 0;
+        double totalDeliveryDelay = this.getTotalDeliveryDelay();
+        double totalWaitingTime = cumulativeWaitingTimes[fromTaskIndex];
+        double previousTaskCompletionTime = fromTaskIndex > 0 ?
+                taskCompletionTimes[fromTaskIndex - 1] : this.getDriver().getTimeWindow().getStart();
+        for (int taskIndex = fromTaskIndex; taskIndex < numTasks; taskIndex++) {
+            Task task = tasks.get(taskIndex);
             int orderId = task.getOrderId();
-            int taskIndex = tasks.indexOf(task);
-            driverLoad += task.getNumItems();
-            if (task.getType().equals(TaskType.PICKUP)) {
-                if (orderIds.contains(orderId))
-                    throw new InfeasibleRouteException(
-                            String.format("Order %s is served multiple times", orderId));
-                orderIds.add(orderId);
-                orderId2pickupTaskIndex.put(orderId, taskIndex);
-                if (driverLoad > this.getDriver().getCapacity())
-                    throw new InfeasibleRouteException(
-                            String.format("The driver capacity exceeded: Capacity: %d, " +
-                            "Load after picking up order %d is: %d", this.getDriver().getCapacity(), orderId,
-                            driverLoad));
+            int orderIndex = task.getOrderIndex();
+            boolean delivery = task.getType().equals(TaskType.DELIVERY);
+            if (taskIndex > toTaskIndex) {
+                if (delivery)
+                    orderIndex2deliveryTaskIndex[orderIndex] = taskIndex;
+                else
+                    orderIndex2pickupTaskIndex[orderIndex] = taskIndex;
+            }
+            else if (!delivery) {
+                if (orderIndex2pickupTaskIndex[orderIndex] != NO_TASK_INDEX)
+                    return RouteStatus.ORDER_SERVED_MULTIPLE_TIMES;
+                orderIndex2pickupTaskIndex[orderIndex] = taskIndex;
+                driverLoad += task.getNumItems();
+                if (driverLoad > capacity)
+                    return RouteStatus.CAPACITY_EXCEEDED;
+                driverLoads[taskIndex] = driverLoad;
             }
             else {
-                if (orderId2pickupTaskIndex.containsKey(orderId))
-                    orderId2deliveryTaskIndex.put(orderId, taskIndex);
+                if (orderIndex2pickupTaskIndex[orderIndex] != NO_TASK_INDEX)
+                    orderIndex2deliveryTaskIndex[orderIndex] = taskIndex;
                 else
-                    throw new InfeasibleRouteException(
-                            String.format("Order %d must be picked up before its delivery", orderId));
+                    return RouteStatus.DELIVERY_BEFORE_PICKUP;
+                driverLoad += task.getNumItems();
+                driverLoads[taskIndex] = driverLoad;
             }
-            driverLoads.add(driverLoad);
-        }
-        this.setDriverLoads(driverLoads);
-        this.setOrderIds(orderIds);
-        this.setOrderId2pickupTaskIndex(orderId2pickupTaskIndex);
-        this.setOrderId2deliveryTaskIndex(orderId2deliveryTaskIndex);
-    }
-
-    private void schedule() throws InfeasibleRouteException {
-        Location startLocation = this.getDriver().getStartLocation();
-        int earliestStartTime = this.getDriver().getTimeWindow().getStart();
-        double totalDistanceTravelled = 0;
-        double totalTravelTime = 0;
-        List<Double> cumulativeDistances = new ArrayList<>();
-        List<Double> cumulativeTravelTimes = new ArrayList<>();
-        List<Double> taskCompletionTimes = new ArrayList<>();
-        Map<Integer, Double> lateDeliveredOrderId2delay = new HashMap<>();
-        double previousTaskCompletionTime = earliestStartTime;
-        Location previousLocation = new Location(startLocation);
-        for (Task task: this.getTasks()) {
+            totalDistanceTravelled += arcDistances[taskIndex];
+            cumulativeDistances[taskIndex] = totalDistanceTravelled;
+            totalTravelTime += arcTravelTimes[taskIndex];
+            cumulativeTravelTimes[taskIndex] = totalTravelTime;
             int timeWindowStart = task.getTimeWindow().getStart();
-            int timeWindowEnd = task.getTimeWindow().getEnd();
-            double distance = DistanceUtilities.distanceInKm(previousLocation, task.getLocation());
-            totalDistanceTravelled += distance;
-            cumulativeDistances.add(totalDistanceTravelled);
-            double travelTime = TimeUtilities.travelTimeInSeconds(distance, Driver.AVERAGE_SPEED_IN_KM_PER_HOUR);
-            totalTravelTime += travelTime;
-            cumulativeTravelTimes.add(totalTravelTime);
-            double taskStartTime = previousTaskCompletionTime + travelTime < timeWindowStart ? timeWindowStart :
-                    previousTaskCompletionTime + travelTime;
+            if (scheduled) {
+                double arrivalTime = arrivalTimes[taskIndex];
+                totalWaitingTime += arrivalTime < timeWindowStart ? timeWindowStart - arrivalTime : 0;
+                cumulativeWaitingTimes[taskIndex + 1] = totalWaitingTime;
+                continue;
+            }
+            double arrivalTime = previousTaskCompletionTime + arcTravelTimes[taskIndex];
+            arrivalTimes[taskIndex] = arrivalTime;
+            double taskStartTime = arrivalTime < timeWindowStart ? timeWindowStart : arrivalTime;
+            totalWaitingTime += taskStartTime - arrivalTime;
+            cumulativeWaitingTimes[taskIndex + 1] = totalWaitingTime;
             double taskCompletionTime = taskStartTime + Task.SERVICE_TIME_IN_SECONDS;
-            taskCompletionTimes.add(taskCompletionTime);
-            if (task.getType().equals(TaskType.DELIVERY) & taskCompletionTime > timeWindowEnd)
-                lateDeliveredOrderId2delay.put(task.getOrderId(), taskCompletionTime - timeWindowEnd);
-            previousLocation = task.getLocation();
+            // the schedule of the remaining tasks is unchanged
+            if (taskIndex > toTaskIndex && taskCompletionTime == taskCompletionTimes[taskIndex])
+                scheduled = true;
+            taskCompletionTimes[taskIndex] = taskCompletionTime;
+            int timeWindowEnd = task.getTimeWindow().getEnd();
+            if (delivery) {
+                double delay = taskCompletionTime - timeWindowEnd;
+                Double previousDelay = delay > 0 ? lateDeliveredOrderId2delay.put(orderId, delay) :
+                        lateDeliveredOrderId2delay.remove(orderId);
+                totalDeliveryDelay += (delay > 0 ? delay : 0) - (previousDelay != null ? previousDelay : 0);
+            }
             previousTaskCompletionTime = taskCompletionTime;
         }
-        double lastTaskCompletionTime = taskCompletionTimes.size() > 0 ?
-                taskCompletionTimes.get(taskCompletionTimes.size() - 1) : Double.NEGATIVE_INFINITY;
+        double lastTaskCompletionTime = numTasks > 0 ?
+                taskCompletionTimes[numTasks - 1] : Double.NEGATIVE_INFINITY;
         if (lastTaskCompletionTime > this.getDriver().getTimeWindow().getEnd())
-            throw new InfeasibleRouteException(
-                    String.format("Time window of driver %d is violated", this.getDriver().getId()));
-        this.setCumulativeDistances(cumulativeDistances);
-        this.setCumulativeTravelTimes(cumulativeTravelTimes);
+            return RouteStatus.DRIVER_TIME_WINDOW_VIOLATED;
+        // A delay of d at the arrival to task i shifts the completion of each following task j by
+        // max(0, d - total waiting time of the tasks i..j), which gives the latest arrival times below
+        double minDeliverySlack = Double.POSITIVE_INFINITY;
+        for (int i = numTasks - 1; i >= 0; i--) {
+            Task task = tasks.get(i);
+            if (task.getType().equals(TaskType.DELIVERY)) {
+                double deliverySlack = Math.max(0, task.getTimeWindow().getEnd() - taskCompletionTimes[i]);
+                minDeliverySlack = Math.min(minDeliverySlack, cumulativeWaitingTimes[i + 1] + deliverySlack);
+            }
+            latestArrivalTimes[i] = arrivalTimes[i] + this.getDriver().getTimeWindow().getEnd() -
+                    lastTaskCompletionTime + cumulativeWaitingTimes[numTasks] - cumulativeWaitingTimes[i];
+            latestPenaltyFreeArrivalTimes[i] = arrivalTimes[i] + minDeliverySlack - cumulativeWaitingTimes[i];
+        }
         this.setDistanceTravelled(totalDistanceTravelled);
+        // reset the sum once there is no late delivery so that the rounding errors of the updates do not accumulate
+        this.setTotalDeliveryDelay(lateDeliveredOrderId2delay.isEmpty() ? 0 : totalDeliveryDelay);
         this.setTravelTime(totalTravelTime);
-        this.setTaskCompletionTimes(taskCompletionTimes);
-        this.setLateDeliveredOrderId2delay(lateDeliveredOrderId2delay);
+        return RouteStatus.FEASIBLE;
+    }
+
+    private void checkStatus(RouteStatus status) throws InfeasibleRouteException {
+        if (status != RouteStatus.FEASIBLE)
+            throw new InfeasibleRouteException(String.format(
+                    "The route of driver %d is infeasible: %s", this.getDriver().getId(), status.getDescription()));
+    }
+
+    private static double[] copyOf(double[] array, int length){
+        double[] copy = new double[array.length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static int[] copyOf(int[] array, int length){
+        int[] copy = new int[array.length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static double[] grow(double[] array, int minCapacity){
+        if (array.length >= minCapacity)
+            return array;
+        return Arrays.copyOf(array, Math.max(minCapacity, 2 * array.length));
+    }
+
+    private static int[] grow(int[] array, int minCapacity){
+        if (array.length >= minCapacity)
+            return array;
+        return Arrays.copyOf(array, Math.max(minCapacity, 2 * array.length));
+    }
+
+    private static int[] growOrderIndices(int[] orderIndex2taskIndex, int minCapacity){
+        int[] grownOrderIndex2taskIndex = grow(orderIndex2taskIndex, minCapacity);
+        Arrays.fill(grownOrderIndex2taskIndex, orderIndex2taskIndex.length, grownOrderIndex2taskIndex.length,
+                NO_TASK_INDEX);
+        return grownOrderIndex2taskIndex;
+    }
+
+    public double[] getArcDistances() {
+        return arcDistances;
+    }
+
+    public void setArcDistances(double[] arcDistances) {
+        this.arcDistances = arcDistances;
+    }
+
+    public double[] getArcTravelTimes() {
+        return arcTravelTimes;
+    }
+
+    public void setArcTravelTimes(double[] arcTravelTimes) {
+        this.arcTravelTimes = arcTravelTimes;
+    }
+
+    public double[] getArrivalTimes() {
+        return arrivalTimes;
+    }
+
+    public void setArrivalTimes(double[] arrivalTimes) {
+        this.arrivalTimes = arrivalTimes;
     }
 
     public double getCost() {
@@ -171,22 +534,38 @@ public class Route {
         this.cost = cost;
     }
 
-    public List<Double> getCumulativeDistances() {
+    public double[] getCumulativeDistances() {
         return cumulativeDistances;
     }
 
-    public void setCumulativeDistances(List<Double> cumulativeDistances) {
+    public void setCumulativeDistances(double[] cumulativeDistances) {
         this.cumulativeDistances = cumulativeDistances;
     }
 
-    public List<Double> getCumulativeTravelTimes() {
+    public double[] getCumulativeTravelTimes() {
         return cumulativeTravelTimes;
     }
 
-    public void setCumulativeTravelTimes(List<Double> cumulativeTravelTimes) {
+    public void setCumulativeTravelTimes(double[] cumulativeTravelTimes) {
         this.cumulativeTravelTimes = cumulativeTravelTimes;
     }
 
+    public double[] getCumulativeWaitingTimes() {
+        return cumulativeWaitingTimes;
+    }
+
+    public void setCumulativeWaitingTimes(double[] cumulativeWaitingTimes) {
+        this.cumulativeWaitingTimes = cumulativeWaitingTimes;
+    }
+
+    public DistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
+    public void setDistanceMatrix(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+    }
+
     public double getDistanceTravelled() {
         return distanceTravelled;
     }
@@ -195,6 +574,14 @@ public class Route {
         this.distanceTravelled = distanceTravelled;
     }
 
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
     public Driver getDriver() {
         return driver;
     }
@@ -203,14 +590,18 @@ public class Route {
         this.driver = driver;
     }
 
-    public List<Integer> getDriverLoads() {
+    public int[] getDriverLoads() {
         return driverLoads;
     }
 
-    public void setDriverLoads(List<Integer> driverLoads) {
+    public void setDriverLoads(int[] driverLoads) {
         this.driverLoads = driverLoads;
     }
 
+    public int getNumLateDeliveries() {
+        return this.getLateDeliveredOrderId2delay().size();
+    }
+
     public Map<Integer, Double> getLateDeliveredOrderId2delay() {
         return lateDeliveredOrderId2delay;
     }
@@ -219,6 +610,22 @@ public class Route {
         this.lateDeliveredOrderId2delay = lateDeliveredOrderId2delay;
     }
 
+    public double[] getLatestArrivalTimes() {
+        return latestArrivalTimes;
+    }
+
+    public void setLatestArrivalTimes(double[] latestArrivalTimes) {
+        this.latestArrivalTimes = latestArrivalTimes;
+    }
+
+    public double[] getLatestPenaltyFreeArrivalTimes() {
+        return latestPenaltyFreeArrivalTimes;
+    }
+
+    public void setLatestPenaltyFreeArrivalTimes(double[] latestPenaltyFreeArrivalTimes) {
+        this.latestPenaltyFreeArrivalTimes = latestPenaltyFreeArrivalTimes;
+    }
+
     public List<Integer> getOrderIds() {
         return orderIds;
     }
@@ -227,27 +634,27 @@ public class Route {
         this.orderIds = orderIds;
     }
 
-    public Map<Integer, Integer> getOrderId2deliveryTaskIndex() {
-        return orderId2deliveryTaskIndex;
+    public int[] getOrderIndex2deliveryTaskIndex() {
+        return orderIndex2deliveryTaskIndex;
     }
 
-    public void setOrderId2deliveryTaskIndex(Map<Integer, Integer> orderId2deliveryTaskIndex) {
-        this.orderId2deliveryTaskIndex = orderId2deliveryTaskIndex;
+    public void setOrderIndex2deliveryTaskIndex(int[] orderIndex2deliveryTaskIndex) {
+        this.orderIndex2deliveryTaskIndex = orderIndex2deliveryTaskIndex;
     }
 
-    public Map<Integer, Integer> getOrderId2pickupTaskIndex() {
-        return orderId2pickupTaskIndex;
+    public int[] getOrderIndex2pickupTaskIndex() {
+        return orderIndex2pickupTaskIndex;
     }
 
-    public void setOrderId2pickupTaskIndex(Map<Integer, Integer> orderId2pickupTaskIndex) {
-        this.orderId2pickupTaskIndex = orderId2pickupTaskIndex;
+    public void setOrderIndex2pickupTaskIndex(int[] orderIndex2pickupTaskIndex) {
+        this.orderIndex2pickupTaskIndex = orderIndex2pickupTaskIndex;
     }
 
-    public List<Double> getTaskCompletionTimes() {
+    public double[] getTaskCompletionTimes() {
         return taskCompletionTimes;
     }
 
-    public void setTaskCompletionTimes(List<Double> taskCompletionTimes) {
+    public void setTaskCompletionTimes(double[] taskCompletionTimes) {
         this.taskCompletionTimes = taskCompletionTimes;
     }
 
@@ -259,6 +666,14 @@ public class Route {
         this.tasks = tasks;
     }
 
+    public double getTotalDeliveryDelay() {
+        return totalDeliveryDelay;
+    }
+
+    public void setTotalDeliveryDelay(double totalDeliveryDelay) {
+        this.totalDeliveryDelay = totalDeliveryDelay;
+    }
+
     public double getTravelTime() {
         return travelTime;
     }
@@ -277,6 +692,6 @@ public class Route {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getTasks());
+        return Long.hashCode(getFingerprint());
     }
 }
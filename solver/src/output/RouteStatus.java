@@ -0,0 +1,35 @@
+package output;
+
+/**
+ * Result of scheduling a route, which is either feasible or the reason why it is infeasible. The route operations
+ * return it instead of throwing an exception, so that the infeasible insertions are rejected at no extra cost.
+ */
+public enum RouteStatus {
+    /**
+     * The capacity of the driver is exceeded after a pickup
+     */
+    CAPACITY_EXCEEDED("the driver capacity is exceeded"),
+    /**
+     * An order is delivered before it is picked up
+     */
+    DELIVERY_BEFORE_PICKUP("an order is delivered before it is picked up"),
+    /**
+     * The last task is completed after the end of the time window of the driver
+     */
+    DRIVER_TIME_WINDOW_VIOLATED("the time window of the driver is violated"),
+    FEASIBLE("the route is feasible"),
+    /**
+     * An order is picked up more than once
+     */
+    ORDER_SERVED_MULTIPLE_TIMES("an order is served multiple times");
+
+    private final String description;
+
+    RouteStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -3,13 +3,23 @@ package output;
 import common.Order;
 import exceptions.InfeasibleSolutionException;
 import input.Instance;
+import utilities.FingerprintUtilities;
 
 import java.util.*;
 
+/**
+ * Routes of the drivers. The routes may be shared by several solutions, e.g. the current, the candidate and the best
+ * solutions of a search, so a route is never modified in place once it is in a solution: a modified copy replaces it.
+ * A solution with a journal is modified in place by the local search, which records the replaced routes in the journal.
+ */
 public class Solution {
 
     private double cost;
     private Map<Integer, Route> driverId2route;
+    /**
+     * Journal recording the routes replaced in place, or null if the solution is not modified in place
+     */
+    private SolutionJournal journal;
 
     public Solution() {
         this.driverId2route = new HashMap<>();
@@ -20,17 +30,35 @@ public class Solution {
         this.driverId2route = driverId2route;
     }
 
+    /**
+     * Creates a copy of the solution that shares its routes. The copy has no journal.
+     */
     public Solution (Solution solution){
         this.cost = solution.getCost();
-        Map<Integer, Route> driverId2route = new HashMap<>();
-        for (Map.Entry<Integer, Route> entry : solution.getDriverId2route().entrySet())
-            driverId2route.put(entry.getKey(), new Route(entry.getValue()));
-        this.driverId2route = driverId2route;
+        this.driverId2route = new HashMap<>(solution.getDriverId2route());
+    }
+
+    /**
+     * Returns the fingerprint of the routes of the solution, combined from the fingerprints kept by the routes. The
+     * solutions with equal routes have the same fingerprint, and so do the solutions that differ only in their empty
+     * routes.
+     */
+    public long getFingerprint(){
+        long fingerprint = 0;
+        for (Map.Entry<Integer, Route> entry : this.getDriverId2route().entrySet())
+            fingerprint ^= FingerprintUtilities.calculateRouteFingerprint(
+                    entry.getKey(), entry.getValue().getFingerprint());
+        return fingerprint;
     }
 
+    /**
+     * Sets the cost of the solution to the sum of the route costs. A solution with a journal gets its cost updated
+     * from the changed routes only, see {@link SolutionJournal#calculateCost(Solution)}.
+     */
     public void evaluate(){
-        double initialCost = 0.0;
-        double cost = this.getDriverId2route().values().stream().map(Route::getCost).reduce(initialCost, Double:: sum);
+        double cost = 0.0;
+        for (Route route : this.getDriverId2route().values())
+            cost += route.getCost();
         this.setCost(cost);
     }
 
@@ -114,8 +142,18 @@ public class Solution {
         this.driverId2route = driverId2route;
     }
 
+    public SolutionJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(SolutionJournal journal) {
+        this.journal = journal;
+    }
+
     public void updateRoute(int driverId, Route route){
-        this.getDriverId2route().put(driverId, route);
+        Route previousRoute = this.getDriverId2route().put(driverId, route);
+        if (this.getJournal() != null)
+            this.getJournal().recordRouteChange(driverId, previousRoute);
     }
 
     @Override
@@ -128,6 +166,6 @@ public class Solution {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getDriverId2route());
+        return Long.hashCode(getFingerprint());
     }
 }
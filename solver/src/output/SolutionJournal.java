@@ -0,0 +1,85 @@
+package output;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Undo log of the changes made in place on a solution. The journal keeps the route each changed driver has when the
+ * journal is started, so that the cost of the solution is updated and the changes are rolled back in time
+ * proportional to the number of changed routes rather than the number of drivers.
+ */
+public class SolutionJournal {
+
+    /**
+     * Routes of the changed drivers when the journal is started, null for the drivers that have no route then
+     */
+    private Map<Integer, Route> driverId2previousRoute;
+    private double previousCost;
+
+    public SolutionJournal() {
+        this.driverId2previousRoute = new HashMap<>();
+    }
+
+    /**
+     * Starts recording the changes of the solution, forgetting the changes recorded before.
+     */
+    public void start(Solution solution){
+        this.getDriverId2previousRoute().clear();
+        this.setPreviousCost(solution.getCost());
+    }
+
+    /**
+     * Records that the route of the driver is replaced, unless it is replaced before since the journal is started.
+     */
+    public void recordRouteChange(int driverId, Route previousRoute){
+        if (!this.getDriverId2previousRoute().containsKey(driverId))
+            this.getDriverId2previousRoute().put(driverId, previousRoute);
+    }
+
+    /**
+     * Returns the cost of the solution as the cost when the journal is started plus the cost differences of the
+     * changed routes. The changed routes must be evaluated.
+     */
+    public double calculateCost(Solution solution){
+        double cost = this.getPreviousCost();
+        for (Map.Entry<Integer, Route> entry : this.getDriverId2previousRoute().entrySet()){
+            Route route = solution.getDriverId2route().get(entry.getKey());
+            Route previousRoute = entry.getValue();
+            if (route != null)
+                cost += route.getCost();
+            if (previousRoute != null)
+                cost -= previousRoute.getCost();
+        }
+        return cost;
+    }
+
+    /**
+     * Restores the routes and the cost the solution has when the journal is started, and starts the journal again.
+     */
+    public void rollBack(Solution solution){
+        for (Map.Entry<Integer, Route> entry : this.getDriverId2previousRoute().entrySet()){
+            if (entry.getValue() == null)
+                solution.getDriverId2route().remove(entry.getKey());
+            else
+                solution.getDriverId2route().put(entry.getKey(), entry.getValue());
+        }
+        solution.setCost(this.getPreviousCost());
+        this.getDriverId2previousRoute().clear();
+    }
+
+    public Map<Integer, Route> getDriverId2previousRoute() {
+        return driverId2previousRoute;
+    }
+
+    public void setDriverId2previousRoute(Map<Integer, Route> driverId2previousRoute) {
+        this.driverId2previousRoute = driverId2previousRoute;
+    }
+
+    public double getPreviousCost() {
+        return previousCost;
+    }
+
+    public void setPreviousCost(double previousCost) {
+        this.previousCost = previousCost;
+    }
+}
@@ -0,0 +1,17 @@
+package solver;
+
+import output.Solution;
+
+/**
+ * Receives the best solutions of a search as soon as they are found, e.g. to commit the assignments before the search
+ * ends.
+ */
+@FunctionalInterface
+public interface BestSolutionListener {
+
+    /**
+     * Called from the thread running the search with the initial solution and with each solution better than all
+     * solutions before it. The solution is not modified by the search and must not be modified by the listener.
+     */
+    void onNewBestSolution(Solution solution);
+}
@@ -0,0 +1,168 @@
+package solver;
+
+import algorithms.HeuristicManager;
+import algorithms.InsertionHeuristicType;
+import algorithms.RemovalHeuristicType;
+import output.Solution;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An annealing chain of an island model. Each island has a mailbox that keeps the cheapest solution sent to it since
+ * it last received, and publishes a snapshot of its heuristic weights for the other islands. The mailbox and the
+ * snapshots are updated without locks, so that an island never waits for the others.
+ */
+public class Island {
+
+    private static final double SHARE_OF_OTHER_ISLANDS_IN_HEURISTIC_WEIGHTS = 0.5;
+
+    private int index;
+    private AtomicReference<Map<InsertionHeuristicType, Double>> insertionHeuristicType2weight;
+    private List<Island> islands;
+    private AtomicReference<Solution> mailbox;
+    private MigrationPolicy migrationPolicy;
+    private AtomicReference<Map<RemovalHeuristicType, Double>> removalHeuristicType2weight;
+
+    /**
+     * Creates the island with the given index, the islands list must contain all islands of the model in index order.
+     */
+    public Island(int index, List<Island> islands, MigrationPolicy migrationPolicy) {
+        this.index = index;
+        this.insertionHeuristicType2weight = new AtomicReference<>();
+        this.islands = islands;
+        this.mailbox = new AtomicReference<>();
+        this.migrationPolicy = migrationPolicy;
+        this.removalHeuristicType2weight = new AtomicReference<>();
+    }
+
+    /**
+     * Puts the solution into the mailbox unless the mailbox keeps a solution with a lower or equal cost.
+     */
+    public void offer(Solution solution) {
+        Solution currentSolution = this.getMailbox().get();
+        while (currentSolution == null || solution.getCost() < currentSolution.getCost()) {
+            if (this.getMailbox().compareAndSet(currentSolution, solution))
+                return;
+            currentSolution = this.getMailbox().get();
+        }
+    }
+
+    /**
+     * Takes the solution in the mailbox, or returns null if no solution is sent since the last call.
+     */
+    public Solution receive() {
+        return this.getMailbox().getAndSet(null);
+    }
+
+    /**
+     * Sends the solution to the islands selected by the migration policy. The solution must not be modified afterwards
+     * as it is shared by the receiving islands.
+     */
+    public void send(Solution solution, Random random) {
+        int numIslands = this.getIslands().size();
+        if (numIslands < 2)
+            return;
+        if (this.getMigrationPolicy().equals(MigrationPolicy.BROADCAST_BEST)) {
+            for (Island island : this.getIslands()) {
+                if (island != this)
+                    island.offer(solution);
+            }
+        } else if (this.getMigrationPolicy().equals(MigrationPolicy.RANDOM)) {
+            int offset = 1 + random.nextInt(numIslands - 1);
+            this.getIslands().get((this.getIndex() + offset) % numIslands).offer(solution);
+        } else if (this.getMigrationPolicy().equals(MigrationPolicy.RING)) {
+            this.getIslands().get((this.getIndex() + 1) % numIslands).offer(solution);
+        } else
+            assert false;
+    }
+
+    /**
+     * Publishes the heuristic weights of the manager, and blends them with the average of the weights last published
+     * by the other islands.
+     */
+    public void shareHeuristicWeights(HeuristicManager heuristicManager) {
+        this.getInsertionHeuristicType2weight().set(
+                new EnumMap<>(heuristicManager.getInsertionHeuristicType2weight()));
+        this.getRemovalHeuristicType2weight().set(new EnumMap<>(heuristicManager.getRemovalHeuristicType2weight()));
+        Map<InsertionHeuristicType, Double> averageInsertionHeuristicType2weight = new EnumMap<>(
+                InsertionHeuristicType.class);
+        Map<RemovalHeuristicType, Double> averageRemovalHeuristicType2weight = new EnumMap<>(
+                RemovalHeuristicType.class);
+        int numPublishingIslands = 0;
+        for (Island island : this.getIslands()) {
+            Map<InsertionHeuristicType, Double> insertionHeuristicType2weight =
+                    island.getInsertionHeuristicType2weight().get();
+            Map<RemovalHeuristicType, Double> removalHeuristicType2weight =
+                    island.getRemovalHeuristicType2weight().get();
+            if (island == this || insertionHeuristicType2weight == null || removalHeuristicType2weight == null)
+                continue;
+            insertionHeuristicType2weight.forEach((type, weight) ->
+                    averageInsertionHeuristicType2weight.merge(type, weight, Double::sum));
+            removalHeuristicType2weight.forEach((type, weight) ->
+                    averageRemovalHeuristicType2weight.merge(type, weight, Double::sum));
+            numPublishingIslands++;
+        }
+        if (numPublishingIslands == 0)
+            return;
+        int numOtherIslands = numPublishingIslands;
+        averageInsertionHeuristicType2weight.replaceAll((type, weight) -> weight / numOtherIslands);
+        averageRemovalHeuristicType2weight.replaceAll((type, weight) -> weight / numOtherIslands);
+        heuristicManager.blendHeuristicWeights(
+                averageInsertionHeuristicType2weight, averageRemovalHeuristicType2weight,
+                SHARE_OF_OTHER_ISLANDS_IN_HEURISTIC_WEIGHTS);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public AtomicReference<Map<InsertionHeuristicType, Double>> getInsertionHeuristicType2weight() {
+        return insertionHeuristicType2weight;
+    }
+
+    public void setInsertionHeuristicType2weight(
+            AtomicReference<Map<InsertionHeuristicType, Double>> insertionHeuristicType2weight) {
+        this.insertionHeuristicType2weight = insertionHeuristicType2weight;
+    }
+
+    public List<Island> getIslands() {
+        return islands;
+    }
+
+    public void setIslands(List<Island> islands) {
+        this.islands = islands;
+    }
+
+    public AtomicReference<Solution> getMailbox() {
+        return mailbox;
+    }
+
+    public void setMailbox(AtomicReference<Solution> mailbox) {
+        this.mailbox = mailbox;
+    }
+
+    public MigrationPolicy getMigrationPolicy() {
+        return migrationPolicy;
+    }
+
+    public void setMigrationPolicy(MigrationPolicy migrationPolicy) {
+        this.migrationPolicy = migrationPolicy;
+    }
+
+    public AtomicReference<Map<RemovalHeuristicType, Double>> getRemovalHeuristicType2weight() {
+        return removalHeuristicType2weight;
+    }
+
+    public void setRemovalHeuristicType2weight(
+            AtomicReference<Map<RemovalHeuristicType, Double>> removalHeuristicType2weight) {
+        this.removalHeuristicType2weight = removalHeuristicType2weight;
+    }
+}
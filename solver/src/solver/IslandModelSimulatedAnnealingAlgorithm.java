@@ -0,0 +1,54 @@
+package solver;
+
+import exceptions.NoSolutionException;
+import input.Instance;
+import output.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the annealing chains as the islands of an island model. At every migration interval, each island sends its best
+ * solution to the islands selected by the migration policy, continues from the best solution it received if that is
+ * better than its current solution, and optionally blends its heuristic weights with the weights of the other islands.
+ * Each island runs on its own thread regardless of the configured number of threads, since an island that waits for a
+ * thread would only receive the migrations after the others are done. The islands exchange solutions without waiting
+ * for each other, so the result depends on the timing of the threads.
+ */
+public class IslandModelSimulatedAnnealingAlgorithm extends MultiStartSimulatedAnnealingAlgorithm {
+
+    private List<Island> islands;
+
+    public IslandModelSimulatedAnnealingAlgorithm(Instance instance, SimulatedAnnealingConfiguration configuration) {
+        super(instance, configuration);
+    }
+
+    @Override
+    public Solution run() throws NoSolutionException {
+        List<Island> islands = new ArrayList<>();
+        for (int islandIndex = 0; islandIndex < this.getConfiguration().getNumChains(); islandIndex++)
+            islands.add(new Island(islandIndex, islands, this.getConfiguration().getMigrationPolicy()));
+        this.setIslands(islands);
+        return super.run();
+    }
+
+    @Override
+    protected int calculateNumThreads() {
+        return Math.max(1, this.getConfiguration().getNumChains());
+    }
+
+    @Override
+    protected SimulatedAnnealingAlgorithm createChain(int chainIndex) {
+        SimulatedAnnealingAlgorithm chain = super.createChain(chainIndex);
+        chain.setIsland(this.getIslands().get(chainIndex));
+        return chain;
+    }
+
+    public List<Island> getIslands() {
+        return islands;
+    }
+
+    public void setIslands(List<Island> islands) {
+        this.islands = islands;
+    }
+}
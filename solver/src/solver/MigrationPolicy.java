@@ -0,0 +1,19 @@
+package solver;
+
+/**
+ * Selects the islands an island sends its best solution to in an island model.
+ */
+public enum MigrationPolicy {
+    /**
+     * Every island sends to all other islands, so that each island receives the best of the solutions sent to it
+     */
+    BROADCAST_BEST,
+    /**
+     * Every island sends to a randomly selected other island
+     */
+    RANDOM,
+    /**
+     * Every island sends to the next island, and the last island sends to the first one
+     */
+    RING
+}
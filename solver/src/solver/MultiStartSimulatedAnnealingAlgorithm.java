@@ -0,0 +1,167 @@
+package solver;
+
+import algorithms.HeuristicAlgorithm;
+import exceptions.NoSolutionException;
+import input.Instance;
+import output.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent simulated annealing chains on a thread pool and returns the best solution found by the chains. Each
+ * chain has its own random number generator, heuristic manager and local search, and the chains share the structures
+ * of the instance built once before they are created. The chain with index i is seeded with the configured seed plus
+ * i, and ties are broken by the chain index, so that the result does not depend on the number of threads unless there
+ * is a time limit. The time limit applies to the whole run, so that the chains waiting for a thread have less time.
+ */
+public class MultiStartSimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
+
+    /**
+     * Listener notified of the solutions better than the best solutions of all chains before them, or null
+     */
+    private BestSolutionListener bestSolutionListener;
+    private SimulatedAnnealingConfiguration configuration;
+    private long deadline;
+    private Instance instance;
+    private double publishedSolutionCost;
+    /**
+     * Structures of the instance read by all chains, built when the run starts
+     */
+    private SharedSearchData sharedSearchData;
+
+    public MultiStartSimulatedAnnealingAlgorithm(Instance instance, SimulatedAnnealingConfiguration configuration) {
+        this.configuration = configuration;
+        this.instance = instance;
+    }
+
+    @Override
+    public Solution run() throws NoSolutionException {
+        this.setDeadline(SimulatedAnnealingAlgorithm.calculateDeadline(
+                System.nanoTime(), this.getConfiguration().getTimeLimitInSeconds()));
+        this.setPublishedSolutionCost(Double.POSITIVE_INFINITY);
+        this.setSharedSearchData(new SharedSearchData(this.getInstance(), this.getConfiguration()));
+        int numChains = this.getConfiguration().getNumChains();
+        ExecutorService executorService = Executors.newFixedThreadPool(calculateNumThreads());
+        try {
+            List<Future<Solution>> chainResults = new ArrayList<>();
+            // each chain is created by its task, so that only the running chains hold their state in memory
+            for (int chainIndex = 0; chainIndex < numChains; chainIndex++) {
+                int index = chainIndex;
+                chainResults.add(executorService.submit(() -> createChain(index).run()));
+            }
+            Solution bestSolution = null;
+            for (Future<Solution> chainResult : chainResults) {
+                Solution solution = waitForChain(chainResult);
+                if (bestSolution == null || solution.getCost() < bestSolution.getCost())
+                    bestSolution = solution;
+            }
+            if (bestSolution == null)
+                throw new NoSolutionException("no annealing chain is run");
+            return bestSolution;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of threads running the chains, which is the configured number of threads bounded by the
+     * number of chains.
+     */
+    protected int calculateNumThreads() {
+        return Math.max(1, Math.min(this.getConfiguration().getNumThreads(), this.getConfiguration().getNumChains()));
+    }
+
+    /**
+     * Creates the annealing chain with the given index.
+     */
+    protected SimulatedAnnealingAlgorithm createChain(int chainIndex) {
+        long seed = this.getConfiguration().getSeed() + chainIndex;
+        SimulatedAnnealingAlgorithm chain = new SimulatedAnnealingAlgorithm(
+                this.getInstance(), this.getConfiguration(), this.getSharedSearchData(), seed);
+        chain.setDeadline(this.getDeadline());
+        if (this.getBestSolutionListener() != null)
+            chain.setBestSolutionListener(this::publishSolution);
+        return chain;
+    }
+
+    /**
+     * Passes the best solution of a chain to the listener if it is better than the solutions passed before.
+     */
+    private synchronized void publishSolution(Solution solution) {
+        if (solution.getCost() >= this.getPublishedSolutionCost())
+            return;
+        this.setPublishedSolutionCost(solution.getCost());
+        this.getBestSolutionListener().onNewBestSolution(solution);
+    }
+
+    private Solution waitForChain(Future<Solution> chainResult) throws NoSolutionException {
+        try {
+            return chainResult.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoSolutionException("interrupted while waiting for the annealing chains");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NoSolutionException)
+                throw (NoSolutionException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public BestSolutionListener getBestSolutionListener() {
+        return bestSolutionListener;
+    }
+
+    public void setBestSolutionListener(BestSolutionListener bestSolutionListener) {
+        this.bestSolutionListener = bestSolutionListener;
+    }
+
+    public SimulatedAnnealingConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(SimulatedAnnealingConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public Instance getInstance() {
+        return instance;
+    }
+
+    public void setInstance(Instance instance) {
+        this.instance = instance;
+    }
+
+    public double getPublishedSolutionCost() {
+        return publishedSolutionCost;
+    }
+
+    public void setPublishedSolutionCost(double publishedSolutionCost) {
+        this.publishedSolutionCost = publishedSolutionCost;
+    }
+
+    public SharedSearchData getSharedSearchData() {
+        return sharedSearchData;
+    }
+
+    public void setSharedSearchData(SharedSearchData sharedSearchData) {
+        this.sharedSearchData = sharedSearchData;
+    }
+}
@@ -0,0 +1,102 @@
+package solver;
+
+import algorithms.OrderNeighbourGraph;
+import algorithms.OrderSimilarityCache;
+import algorithms.OrderSimilarityFunction;
+import algorithms.ShawRemovalHeuristic;
+import common.RouteCostFunction;
+import common.ScalingFunction;
+import common.SpatialGrid;
+import input.Instance;
+
+/**
+ * The structures of the search that depend only on the instance and the configuration. They are built once and only
+ * read by the annealing chains, so that the chains of a multi-start run share them instead of building their own.
+ */
+public class SharedSearchData {
+
+    /**
+     * Neighbour graph of the insertion heuristics, or null if they consider all drivers
+     */
+    private OrderNeighbourGraph orderNeighbourGraph;
+    private OrderSimilarityCache orderSimilarityCache;
+    private OrderSimilarityFunction orderSimilarityFunction;
+    /**
+     * Grid over the pickups of the orders used by the Shaw removal heuristic
+     */
+    private SpatialGrid pickupGrid;
+    private RouteCostFunction routeCostFunction;
+
+    public SharedSearchData(Instance instance, SimulatedAnnealingConfiguration configuration) {
+        initializeOrderSimilarityFunction(configuration);
+        this.orderSimilarityCache = new OrderSimilarityCache(instance, this.getOrderSimilarityFunction());
+        initializeRouteCostFunction(configuration);
+        int numNearestNeighbours = configuration.getNumNearestNeighbours();
+        if (numNearestNeighbours > 0)
+            this.orderNeighbourGraph = new OrderNeighbourGraph(instance, numNearestNeighbours);
+        this.pickupGrid = ShawRemovalHeuristic.createPickupGrid(instance);
+    }
+
+    private void initializeOrderSimilarityFunction(SimulatedAnnealingConfiguration configuration){
+        // TO_DO: The scaling constants must be instance-specific
+        ScalingFunction taskCompletionTimeDifferenceScalingFunction = new ScalingFunction(2000, 0);
+        ScalingFunction taskDistanceScalingFunction = new ScalingFunction(10, 0);
+        ScalingFunction taskLoadDifferenceScalingFunction = new ScalingFunction(20, 0);
+        OrderSimilarityFunction orderSimilarityFunction = new OrderSimilarityFunction(
+                taskCompletionTimeDifferenceScalingFunction, taskDistanceScalingFunction,
+                taskLoadDifferenceScalingFunction,
+                configuration.getOrderSimilarityTaskCompletionTimeCoefficient(),
+                configuration.getOrderSimilarityTaskDistanceCoefficient(),
+                configuration.getOrderSimilarityTaskLoadCoefficient());
+        this.setOrderSimilarityFunction(orderSimilarityFunction);
+    }
+
+    private void initializeRouteCostFunction(SimulatedAnnealingConfiguration configuration){
+        RouteCostFunction routeCostFunction = new RouteCostFunction(
+                configuration.getDistanceTravelledCostWeight(),
+                configuration.getNumLateDeliveriesCostWeight(),
+                configuration.getTotalDeliveryDelayCostWeight(),
+                configuration.getTravelTimeCostWeight());
+        this.setRouteCostFunction(routeCostFunction);
+    }
+
+    public OrderNeighbourGraph getOrderNeighbourGraph() {
+        return orderNeighbourGraph;
+    }
+
+    public void setOrderNeighbourGraph(OrderNeighbourGraph orderNeighbourGraph) {
+        this.orderNeighbourGraph = orderNeighbourGraph;
+    }
+
+    public OrderSimilarityCache getOrderSimilarityCache() {
+        return orderSimilarityCache;
+    }
+
+    public void setOrderSimilarityCache(OrderSimilarityCache orderSimilarityCache) {
+        this.orderSimilarityCache = orderSimilarityCache;
+    }
+
+    public OrderSimilarityFunction getOrderSimilarityFunction() {
+        return orderSimilarityFunction;
+    }
+
+    public void setOrderSimilarityFunction(OrderSimilarityFunction orderSimilarityFunction) {
+        this.orderSimilarityFunction = orderSimilarityFunction;
+    }
+
+    public SpatialGrid getPickupGrid() {
+        return pickupGrid;
+    }
+
+    public void setPickupGrid(SpatialGrid pickupGrid) {
+        this.pickupGrid = pickupGrid;
+    }
+
+    public RouteCostFunction getRouteCostFunction() {
+        return routeCostFunction;
+    }
+
+    public void setRouteCostFunction(RouteCostFunction routeCostFunction) {
+        this.routeCostFunction = routeCostFunction;
+    }
+}
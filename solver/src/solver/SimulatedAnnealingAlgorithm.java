@@ -1,41 +1,92 @@
 package solver;
 
 import algorithms.*;
+import common.FingerprintSet;
 import common.RouteCostFunction;
-import common.ScalingFunction;
+import common.SpatialGrid;
 import exceptions.InfeasibleRouteException;
 import exceptions.InfeasibleSolutionException;
 import exceptions.NoSolutionException;
 import exceptions.UnserviceableOrderException;
 import input.Instance;
 import output.Solution;
+import output.SolutionJournal;
 
 import java.util.*;
 
 public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
 
-    private final static Random random = new Random(0);
+    /**
+     * Deadline of a search without a time limit
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
 
     private AnnealingScheme annealingScheme;
     private Solution bestSolution;
+    /**
+     * Listener notified of the new best solutions, or null
+     */
+    private BestSolutionListener bestSolutionListener;
     private SimulatedAnnealingConfiguration configuration;
-    private List<Solution> generatedSolutions;
+    /**
+     * Value of {@link System#nanoTime()} at which the search stops, set from the time limit when the search starts
+     * unless it is set before
+     */
+    private long deadline;
+    /**
+     * Fingerprints of the solutions generated by the search, used to detect repeated solutions
+     */
+    private FingerprintSet generatedSolutionFingerprints;
     private HeuristicManager heuristicManager;
     private HeuristicScoringFunction heuristicScoringFunction;
     private Instance instance;
+    /**
+     * Island of the chain in an island model, or null if the chain runs alone
+     */
+    private Island island;
     private LocalSearch localSearch;
+    /**
+     * Neighbour graph of the insertion heuristics, or null if they consider all drivers
+     */
+    private OrderNeighbourGraph orderNeighbourGraph;
+    private OrderSimilarityCache orderSimilarityCache;
     private OrderSimilarityFunction orderSimilarityFunction;
+    /**
+     * Grid over the pickups of the orders used by the Shaw removal heuristic
+     */
+    private SpatialGrid pickupGrid;
+    /**
+     * Random number generator of the chain, shared by its heuristics
+     */
+    private Random random;
     private RouteCostFunction routeCostFunction;
 
     public SimulatedAnnealingAlgorithm(Instance instance, SimulatedAnnealingConfiguration configuration) {
+        this(instance, configuration, configuration.getSeed());
+    }
+
+    public SimulatedAnnealingAlgorithm(Instance instance, SimulatedAnnealingConfiguration configuration, long seed) {
+        this(instance, configuration, new SharedSearchData(instance, configuration), seed);
+    }
+
+    /**
+     * Creates a chain that reads the given structures of the instance, which may be shared by other chains.
+     */
+    public SimulatedAnnealingAlgorithm(
+            Instance instance, SimulatedAnnealingConfiguration configuration, SharedSearchData sharedSearchData,
+            long seed) {
         this.configuration = configuration;
+        this.deadline = NO_DEADLINE;
         this.instance = instance;
-        this.generatedSolutions = new ArrayList<>();
-        initialize();
+        this.generatedSolutionFingerprints = new FingerprintSet(configuration.getMaxNumRememberedSolutions());
+        this.random = new Random(seed);
+        initialize(sharedSearchData);
     }
 
     @Override
     public Solution run() throws NoSolutionException {
+        if (this.getDeadline() == NO_DEADLINE)
+            this.setDeadline(calculateDeadline(System.nanoTime(), this.getConfiguration().getTimeLimitInSeconds()));
         Solution solution;
         try {
             solution = findInitialSolution();
@@ -45,61 +96,120 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         System.out.println(String.format("Initial solution with cost %.2f: ", solution.getCost()));
         addSolution(solution);
         initializeAnnealingScheme(solution);
-        this.setBestSolution(new Solution(solution));
+        updateBestSolution(new Solution(solution));
+        // the local search modifies the current solution in place, and the journal rolls back the rejected changes
+        solution.setJournal(new SolutionJournal());
         int iterationIndex = 1;
         while (iterationIndex < this.getConfiguration().getNumIterations()){
+            if (isDeadlinePassed()) {
+                System.out.println(String.format("Time limit reached at iteration %d", iterationIndex));
+                break;
+            }
             if (iterationIndex % this.getConfiguration().getSegmentSize() == 0){
                 System.out.println(String.format("Running iteration %d...", iterationIndex));
                 this.getHeuristicManager().updateHeuristicWeights();
                 this.getHeuristicManager().clearHeuristicStatistics();
+                if (isMigrationIteration(iterationIndex))
+                    solution = migrate(solution);
             }
             InsertionHeuristic insertionHeuristic = this.getHeuristicManager().selectInsertionHeuristic();
             RemovalHeuristic removalHeuristic = this.getHeuristicManager().selectRemovalHeuristic();
             LocalSearch localSearch = this.getLocalSearch();
             localSearch.setInsertionHeuristic(insertionHeuristic);
             localSearch.setRemovalHeuristic(removalHeuristic);
-            Solution candidateSolution;
+            SolutionJournal journal = solution.getJournal();
+            journal.start(solution);
+            double currentCost = solution.getCost();
             try {
-                candidateSolution = localSearch.run(solution);
+                localSearch.run(solution);
             } catch (UnserviceableOrderException | InfeasibleRouteException | InfeasibleSolutionException e) {
+                journal.rollBack(solution);
                 continue;
             }
-            LocalSearchResult localSearchResult = createLocalSearchResult(solution, candidateSolution);
+            LocalSearchResult localSearchResult = createLocalSearchResult(currentCost, solution);
             this.getHeuristicManager().updateHeuristicStatistics(localSearchResult);
             if (localSearchResult.isNewGlobalBestSolution()) {
-                this.setBestSolution(candidateSolution);
-                System.out.println(String.format("New global best solution: %.2f", candidateSolution.getCost()));
+                updateBestSolution(new Solution(solution));
+                System.out.println(String.format("New global best solution: %.2f", solution.getCost()));
             }
             if (localSearchResult.isNewGlobalBestSolution() || localSearchResult.isLocallyImprovedSolution() ||
                     localSearchResult.isNewSolution())
-                addSolution(candidateSolution);
-                solution = candidateSolution;
+                addSolution(solution);
+            else
+                journal.rollBack(solution);
             this.getAnnealingScheme().updateTemperature();
             iterationIndex ++;
         }
         return this.getBestSolution();
     }
 
+    /**
+     * Returns the deadline of a search started at the given time, or {@link #NO_DEADLINE} if there is no time limit.
+     */
+    public static long calculateDeadline(long startTime, double timeLimitInSeconds){
+        if (timeLimitInSeconds <= 0)
+            return NO_DEADLINE;
+        return startTime + (long) (timeLimitInSeconds * 1e9);
+    }
+
     private void addSolution(Solution solution){
-        this.generatedSolutions.add(solution);
+        this.getGeneratedSolutionFingerprints().add(solution.getFingerprint());
+    }
+
+    private boolean isDeadlinePassed(){
+        return this.getDeadline() != NO_DEADLINE && System.nanoTime() - this.getDeadline() >= 0;
+    }
+
+    private void updateBestSolution(Solution solution){
+        this.setBestSolution(solution);
+        if (this.getBestSolutionListener() != null)
+            this.getBestSolutionListener().onNewBestSolution(solution);
+    }
+
+    private boolean isMigrationIteration(int iterationIndex){
+        int migrationInterval = this.getConfiguration().getMigrationInterval();
+        return this.getIsland() != null && migrationInterval > 0 &&
+                (iterationIndex / this.getConfiguration().getSegmentSize()) % migrationInterval == 0;
     }
 
-    private LocalSearchResult createLocalSearchResult(Solution currentSolution, Solution candidateSolution){
+    /**
+     * Sends the best solution of the chain to the other islands and returns the solution to continue the search from,
+     * the solution received from the other islands if it is better than the current solution.
+     */
+    private Solution migrate(Solution currentSolution){
+        Island island = this.getIsland();
+        island.send(new Solution(this.getBestSolution()), this.getRandom());
+        if (this.getConfiguration().isShareHeuristicWeights())
+            island.shareHeuristicWeights(this.getHeuristicManager());
+        Solution receivedSolution = island.receive();
+        if (receivedSolution == null || receivedSolution.getCost() >= currentSolution.getCost())
+            return currentSolution;
+        Solution solution = new Solution(receivedSolution);
+        solution.setJournal(currentSolution.getJournal());
+        addSolution(solution);
+        if (solution.getCost() < this.getBestSolution().getCost()) {
+            updateBestSolution(new Solution(solution));
+            System.out.println(String.format("New global best solution from island: %.2f", solution.getCost()));
+        }
+        return solution;
+    }
+
+    private LocalSearchResult createLocalSearchResult(double currentCost, Solution candidateSolution){
         boolean newGlobalBestSolution = false;
         boolean locallyImprovedSolution = false;
         boolean newSolution = false;
-        if (this.generatedSolutions.contains(candidateSolution))
+        if (this.getGeneratedSolutionFingerprints().contains(candidateSolution.getFingerprint()))
             return new LocalSearchResult(this.getLocalSearch().getInsertionHeuristic().getType(),
                     this.getLocalSearch().getRemovalHeuristic().getType(), newGlobalBestSolution,
                     locallyImprovedSolution, newSolution);
         if (candidateSolution.getCost() < this.getBestSolution().getCost())
             newGlobalBestSolution = true;
-        else if (candidateSolution.getCost() < currentSolution.getCost())
+        else if (candidateSolution.getCost() < currentCost)
             locallyImprovedSolution = true;
         else {
             double acceptProbability = this.getAnnealingScheme().calculateAcceptProbability(
-                    currentSolution.getCost(), candidateSolution.getCost());
-            double randomVariate = random.nextDouble();
+                    currentCost, candidateSolution.getCost());
+            double randomVariate = this.getRandom().nextDouble();
             if (randomVariate <= acceptProbability)
                 newSolution = true;
         }
@@ -113,20 +223,25 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         InsertionHeuristicType heuristicType = this.getConfiguration().getConstructionHeuristicType();
         InsertionHeuristic heuristic = null;
         if (heuristicType.equals(InsertionHeuristicType.GREEDY_INSERTION))
-            heuristic = new GreedyInsertionHeuristic(this.getInstance(), this.getRouteCostFunction());
+            heuristic = new GreedyInsertionHeuristic(
+                    this.getInstance(), this.getOrderNeighbourGraph(), this.getRouteCostFunction());
         else if (heuristicType.equals(InsertionHeuristicType.REGRET_BASED_INSERTION))
             heuristic = new RegretBasedInsertionHeuristic(
-                    this.getInstance(), this.getRouteCostFunction(), this.getConfiguration().getRegretHorizon());
+                    this.getInstance(), this.getOrderNeighbourGraph(), this.getRouteCostFunction(),
+                    this.getConfiguration().getRegretHorizon());
         else
             assert false;
         PartialSolution partialSolution = new PartialSolution(this.getInstance().getOrders());
         return heuristic.run(partialSolution);
     }
 
-    private void initialize(){
+    private void initialize(SharedSearchData sharedSearchData){
         initializeHeuristicScoringFunction();
-        initializeOrderSimilarityFunction();
-        initializeRouteCostFunction();
+        this.setOrderNeighbourGraph(sharedSearchData.getOrderNeighbourGraph());
+        this.setOrderSimilarityCache(sharedSearchData.getOrderSimilarityCache());
+        this.setOrderSimilarityFunction(sharedSearchData.getOrderSimilarityFunction());
+        this.setPickupGrid(sharedSearchData.getPickupGrid());
+        this.setRouteCostFunction(sharedSearchData.getRouteCostFunction());
         initializeHeuristicManager();
         initializeLocalSearch();
     }
@@ -144,34 +259,39 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
 
     private void initializeHeuristicManager(){
         // register the insertion heuristics
-        Map<InsertionHeuristicType, InsertionHeuristic> insertionHeuristicType2heuristic = new HashMap<>();
+        Map<InsertionHeuristicType, InsertionHeuristic> insertionHeuristicType2heuristic = new EnumMap<>(
+                InsertionHeuristicType.class);
         insertionHeuristicType2heuristic.put(
                 InsertionHeuristicType.GREEDY_INSERTION,
-                new GreedyInsertionHeuristic(this.getInstance(), this.getRouteCostFunction()));
+                new GreedyInsertionHeuristic(
+                        this.getInstance(), this.getOrderNeighbourGraph(), this.getRouteCostFunction()));
         insertionHeuristicType2heuristic.put(
                 InsertionHeuristicType.REGRET_BASED_INSERTION,
                 new RegretBasedInsertionHeuristic(
-                        this.getInstance(), this.getRouteCostFunction(), this.getConfiguration().getRegretHorizon()));
+                        this.getInstance(), this.getOrderNeighbourGraph(), this.getRouteCostFunction(),
+                        this.getConfiguration().getRegretHorizon()));
         // register the removal heuristics
-        Map<RemovalHeuristicType, RemovalHeuristic> removalHeuristicType2heuristic = new HashMap<>();
+        Map<RemovalHeuristicType, RemovalHeuristic> removalHeuristicType2heuristic = new EnumMap<>(
+                RemovalHeuristicType.class);
         removalHeuristicType2heuristic.put(
                 RemovalHeuristicType.RANDOM_REMOVAL,
                 new RandomRemovalHeuristic(
-                        this.getInstance(), this.getConfiguration().getNumOrdersToRemove(),
+                        this.getInstance(), this.getConfiguration().getNumOrdersToRemove(), this.getRandom(),
                         this.getRouteCostFunction()));
         removalHeuristicType2heuristic.put(
                 RemovalHeuristicType.GREEDY_REMOVAL,
                 new GreedyRemovalHeuristic(
-                        this.getInstance(), this.getConfiguration().getNumOrdersToRemove(),
+                        this.getInstance(), this.getConfiguration().getNumOrdersToRemove(), this.getRandom(),
                         this.getConfiguration().getRandomizationCoefficient(), this.getRouteCostFunction()));
         removalHeuristicType2heuristic.put(
                 RemovalHeuristicType.SHAW_REMOVAL,
                 new ShawRemovalHeuristic(
                         this.getInstance(), this.getConfiguration().getNumOrdersToRemove(),
-                        this.getOrderSimilarityFunction(), this.getConfiguration().getRandomizationCoefficient(),
+                        this.getOrderSimilarityCache(), this.getOrderSimilarityFunction(), this.getPickupGrid(),
+                        this.getRandom(), this.getConfiguration().getRandomizationCoefficient(),
                         this.getRouteCostFunction()));
         HeuristicManager heuristicManager = new HeuristicManager(
-                insertionHeuristicType2heuristic, removalHeuristicType2heuristic,
+                insertionHeuristicType2heuristic, removalHeuristicType2heuristic, this.getRandom(),
                 this.getConfiguration().getReactionFactor(), this.getHeuristicScoringFunction());
         this.setHeuristicManager(heuristicManager);
     }
@@ -186,32 +306,24 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
 
     private void initializeLocalSearch(){
         LocalSearch localSearch = new LocalSearch(this.getInstance());
+        ImprovementStrategy improvementStrategy = this.getConfiguration().getImprovementStrategy();
+        for (ImprovementHeuristicType heuristicType : this.getConfiguration().getImprovementHeuristicTypes()) {
+            ImprovementHeuristic heuristic = null;
+            if (heuristicType.equals(ImprovementHeuristicType.OR_OPT))
+                heuristic = new OrOptHeuristic(this.getInstance(), improvementStrategy, this.getRouteCostFunction());
+            else if (heuristicType.equals(ImprovementHeuristicType.PICKUP_DELIVERY_EXCHANGE))
+                heuristic = new PickupDeliveryExchangeHeuristic(
+                        this.getInstance(), improvementStrategy, this.getRouteCostFunction());
+            else if (heuristicType.equals(ImprovementHeuristicType.PICKUP_DELIVERY_RELOCATE))
+                heuristic = new PickupDeliveryRelocateHeuristic(
+                        this.getInstance(), improvementStrategy, this.getRouteCostFunction());
+            else
+                assert false;
+            localSearch.getImprovementHeuristics().add(heuristic);
+        }
         this.setLocalSearch(localSearch);
     }
 
-    private void initializeOrderSimilarityFunction(){
-        // TO_DO: The scaling constants must be instance-specific
-        ScalingFunction taskCompletionTimeDifferenceScalingFunction = new ScalingFunction(2000, 0);
-        ScalingFunction taskDistanceScalingFunction = new ScalingFunction(10, 0);
-        ScalingFunction taskLoadDifferenceScalingFunction = new ScalingFunction(20, 0);
-        OrderSimilarityFunction orderSimilarityFunction = new OrderSimilarityFunction(
-                taskCompletionTimeDifferenceScalingFunction, taskDistanceScalingFunction,
-                taskLoadDifferenceScalingFunction,
-                this.getConfiguration().getOrderSimilarityTaskCompletionTimeCoefficient(),
-                this.getConfiguration().getOrderSimilarityTaskDistanceCoefficient(),
-                this.getConfiguration().getOrderSimilarityTaskLoadCoefficient());
-        this.setOrderSimilarityFunction(orderSimilarityFunction);
-    }
-
-    private void initializeRouteCostFunction(){
-        RouteCostFunction routeCostFunction = new RouteCostFunction(
-                this.getConfiguration().getDistanceTravelledCostWeight(),
-                this.getConfiguration().getNumLateDeliveriesCostWeight(),
-                this.getConfiguration().getTotalDeliveryDelayCostWeight(),
-                this.getConfiguration().getTravelTimeCostWeight());
-        this.setRouteCostFunction(routeCostFunction);
-    }
-
     public AnnealingScheme getAnnealingScheme() {
         return annealingScheme;
     }
@@ -244,6 +356,14 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         this.instance = instance;
     }
 
+    public Island getIsland() {
+        return island;
+    }
+
+    public void setIsland(Island island) {
+        this.island = island;
+    }
+
     public LocalSearch getLocalSearch() {
         return localSearch;
     }
@@ -260,6 +380,22 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         this.heuristicManager = heuristicManager;
     }
 
+    public BestSolutionListener getBestSolutionListener() {
+        return bestSolutionListener;
+    }
+
+    public void setBestSolutionListener(BestSolutionListener bestSolutionListener) {
+        this.bestSolutionListener = bestSolutionListener;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
     public SimulatedAnnealingConfiguration getConfiguration() {
         return configuration;
     }
@@ -268,6 +404,22 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         this.configuration = configuration;
     }
 
+    public OrderNeighbourGraph getOrderNeighbourGraph() {
+        return orderNeighbourGraph;
+    }
+
+    public void setOrderNeighbourGraph(OrderNeighbourGraph orderNeighbourGraph) {
+        this.orderNeighbourGraph = orderNeighbourGraph;
+    }
+
+    public OrderSimilarityCache getOrderSimilarityCache() {
+        return orderSimilarityCache;
+    }
+
+    public void setOrderSimilarityCache(OrderSimilarityCache orderSimilarityCache) {
+        this.orderSimilarityCache = orderSimilarityCache;
+    }
+
     public OrderSimilarityFunction getOrderSimilarityFunction() {
         return orderSimilarityFunction;
     }
@@ -276,6 +428,22 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         this.orderSimilarityFunction = orderSimilarityFunction;
     }
 
+    public SpatialGrid getPickupGrid() {
+        return pickupGrid;
+    }
+
+    public void setPickupGrid(SpatialGrid pickupGrid) {
+        this.pickupGrid = pickupGrid;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
     public RouteCostFunction getRouteCostFunction() {
         return routeCostFunction;
     }
@@ -284,11 +452,11 @@ public class SimulatedAnnealingAlgorithm implements HeuristicAlgorithm {
         this.routeCostFunction = routeCostFunction;
     }
 
-    public List<Solution> getGeneratedSolutions() {
-        return generatedSolutions;
+    public FingerprintSet getGeneratedSolutionFingerprints() {
+        return generatedSolutionFingerprints;
     }
 
-    public void setGeneratedSolutions(List<Solution> generatedSolutions) {
-        this.generatedSolutions = generatedSolutions;
+    public void setGeneratedSolutionFingerprints(FingerprintSet generatedSolutionFingerprints) {
+        this.generatedSolutionFingerprints = generatedSolutionFingerprints;
     }
 }
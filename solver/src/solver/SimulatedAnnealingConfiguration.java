@@ -1,17 +1,60 @@
 package solver;
 
+import algorithms.ImprovementHeuristicType;
+import algorithms.ImprovementStrategy;
 import algorithms.InsertionHeuristicType;
 
+import java.util.List;
+
 public class SimulatedAnnealingConfiguration {
 
     private double coolingRate;
     private InsertionHeuristicType constructionHeuristicType;
+    /**
+     * Types of the improvement heuristics applied to the repaired routes in the given order, none if empty
+     */
+    private List<ImprovementHeuristicType> improvementHeuristicTypes;
+    private ImprovementStrategy improvementStrategy;
+    /**
+     * Number of the most recently generated solutions remembered to detect repeated solutions, 0 to remember all
+     */
+    private int maxNumRememberedSolutions;
+    /**
+     * Number of segments between the migrations of the best solutions of the islands, 0 to disable the migrations
+     */
+    private int migrationInterval;
+    private MigrationPolicy migrationPolicy;
+    /**
+     * Number of independent annealing chains run from different seeds, the best solution of the chains is returned
+     */
+    private int numChains;
     private int numIterations;
+    /**
+     * Number of nearest orders and drivers considered when inserting an order, 0 to consider all drivers
+     */
+    private int numNearestNeighbours;
     private int numOrdersToRemove;
+    /**
+     * Number of threads running the chains
+     */
+    private int numThreads;
     private double randomizationCoefficient;
     private double reactionFactor;
     private int regretHorizon;
+    /**
+     * Seed of the random number generator of the first chain, the following chains use the next seeds
+     */
+    private long seed;
     private int segmentSize;
+    /**
+     * Whether the islands blend their heuristic weights with the weights of the other islands when they migrate
+     */
+    private boolean shareHeuristicWeights;
+    /**
+     * Wall-clock time after which the search stops regardless of the number of iterations, 0 for no limit. The
+     * initial solution is always completed.
+     */
+    private double timeLimitInSeconds;
 
     //order similarity related parameters
     private double orderSimilarityTaskCompletionTimeCoefficient;
@@ -30,21 +73,36 @@ public class SimulatedAnnealingConfiguration {
     private double travelTimeCostWeight;
 
     public SimulatedAnnealingConfiguration(
-            double coolingRate, InsertionHeuristicType constructionHeuristicType, int numIterations,
-            int numOrdersToRemove, double randomizationCoefficient, double reactionFactor, int regretHorizon,
-            int segmentSize, double orderSimilarityTaskCompletionTimeCoefficient,
+            double coolingRate, InsertionHeuristicType constructionHeuristicType,
+            List<ImprovementHeuristicType> improvementHeuristicTypes, ImprovementStrategy improvementStrategy,
+            int maxNumRememberedSolutions, int migrationInterval, MigrationPolicy migrationPolicy, int numChains,
+            int numIterations, int numNearestNeighbours, int numOrdersToRemove, int numThreads,
+            double randomizationCoefficient, double reactionFactor, int regretHorizon, long seed, int segmentSize,
+            boolean shareHeuristicWeights, double timeLimitInSeconds,
+            double orderSimilarityTaskCompletionTimeCoefficient,
             double orderSimilarityTaskDistanceCoefficient, double orderSimilarityTaskLoadCoefficient,
             double rewardForNewGlobalBestSolution, double rewardForLocallyImprovedSolution,
             double rewardForAcceptedSolution, double distanceTravelledCostWeight, double numLateDeliveriesCostWeight,
             double totalDeliveryDelayCostWeight, double travelTimeCostWeight) {
         this.coolingRate = coolingRate;
         this.constructionHeuristicType = constructionHeuristicType;
+        this.improvementHeuristicTypes = improvementHeuristicTypes;
+        this.improvementStrategy = improvementStrategy;
+        this.maxNumRememberedSolutions = maxNumRememberedSolutions;
+        this.migrationInterval = migrationInterval;
+        this.migrationPolicy = migrationPolicy;
+        this.numChains = numChains;
         this.numIterations = numIterations;
+        this.numNearestNeighbours = numNearestNeighbours;
         this.numOrdersToRemove = numOrdersToRemove;
+        this.numThreads = numThreads;
         this.randomizationCoefficient = randomizationCoefficient;
         this.reactionFactor = reactionFactor;
         this.regretHorizon = regretHorizon;
+        this.seed = seed;
         this.segmentSize = segmentSize;
+        this.shareHeuristicWeights = shareHeuristicWeights;
+        this.timeLimitInSeconds = timeLimitInSeconds;
         this.orderSimilarityTaskCompletionTimeCoefficient = orderSimilarityTaskCompletionTimeCoefficient;
         this.orderSimilarityTaskDistanceCoefficient = orderSimilarityTaskDistanceCoefficient;
         this.orderSimilarityTaskLoadCoefficient = orderSimilarityTaskLoadCoefficient;
@@ -73,6 +131,54 @@ public class SimulatedAnnealingConfiguration {
         this.constructionHeuristicType = constructionHeuristicType;
     }
 
+    public List<ImprovementHeuristicType> getImprovementHeuristicTypes() {
+        return improvementHeuristicTypes;
+    }
+
+    public void setImprovementHeuristicTypes(List<ImprovementHeuristicType> improvementHeuristicTypes) {
+        this.improvementHeuristicTypes = improvementHeuristicTypes;
+    }
+
+    public ImprovementStrategy getImprovementStrategy() {
+        return improvementStrategy;
+    }
+
+    public void setImprovementStrategy(ImprovementStrategy improvementStrategy) {
+        this.improvementStrategy = improvementStrategy;
+    }
+
+    public int getMaxNumRememberedSolutions() {
+        return maxNumRememberedSolutions;
+    }
+
+    public void setMaxNumRememberedSolutions(int maxNumRememberedSolutions) {
+        this.maxNumRememberedSolutions = maxNumRememberedSolutions;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    public void setMigrationInterval(int migrationInterval) {
+        this.migrationInterval = migrationInterval;
+    }
+
+    public MigrationPolicy getMigrationPolicy() {
+        return migrationPolicy;
+    }
+
+    public void setMigrationPolicy(MigrationPolicy migrationPolicy) {
+        this.migrationPolicy = migrationPolicy;
+    }
+
+    public int getNumChains() {
+        return numChains;
+    }
+
+    public void setNumChains(int numChains) {
+        this.numChains = numChains;
+    }
+
     public int getNumIterations() {
         return numIterations;
     }
@@ -81,6 +187,14 @@ public class SimulatedAnnealingConfiguration {
         this.numIterations = numIterations;
     }
 
+    public int getNumNearestNeighbours() {
+        return numNearestNeighbours;
+    }
+
+    public void setNumNearestNeighbours(int numNearestNeighbours) {
+        this.numNearestNeighbours = numNearestNeighbours;
+    }
+
     public int getNumOrdersToRemove() {
         return numOrdersToRemove;
     }
@@ -89,6 +203,14 @@ public class SimulatedAnnealingConfiguration {
         this.numOrdersToRemove = numOrdersToRemove;
     }
 
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
     public double getRandomizationCoefficient() {
         return randomizationCoefficient;
     }
@@ -113,6 +235,14 @@ public class SimulatedAnnealingConfiguration {
         this.regretHorizon = regretHorizon;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
     public int getSegmentSize() {
         return segmentSize;
     }
@@ -121,6 +251,22 @@ public class SimulatedAnnealingConfiguration {
         this.segmentSize = segmentSize;
     }
 
+    public boolean isShareHeuristicWeights() {
+        return shareHeuristicWeights;
+    }
+
+    public void setShareHeuristicWeights(boolean shareHeuristicWeights) {
+        this.shareHeuristicWeights = shareHeuristicWeights;
+    }
+
+    public double getTimeLimitInSeconds() {
+        return timeLimitInSeconds;
+    }
+
+    public void setTimeLimitInSeconds(double timeLimitInSeconds) {
+        this.timeLimitInSeconds = timeLimitInSeconds;
+    }
+
     public double getOrderSimilarityTaskCompletionTimeCoefficient() {
         return orderSimilarityTaskCompletionTimeCoefficient;
     }
@@ -1,17 +1,33 @@
 package solver;
 
+import algorithms.ImprovementHeuristicType;
+import algorithms.ImprovementStrategy;
 import algorithms.InsertionHeuristicType;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class SimulatedAnnealingConfigurationBuilder {
 
     private double coolingRate;
     private InsertionHeuristicType constructionHeuristicType;
+    private List<ImprovementHeuristicType> improvementHeuristicTypes;
+    private ImprovementStrategy improvementStrategy;
+    private int maxNumRememberedSolutions;
+    private int migrationInterval;
+    private MigrationPolicy migrationPolicy;
+    private int numChains;
     private int numIterations;
+    private int numNearestNeighbours;
     private int numOrdersToRemove;
+    private int numThreads;
     private double randomizationCoefficient;
     private double reactionFactor;
     private int regretHorizon;
+    private long seed;
     private int segmentSize;
+    private boolean shareHeuristicWeights;
+    private double timeLimitInSeconds;
 
     //order similarity related parameters
     private double orderSimilarityTaskCompletionTimeCoefficient;
@@ -32,12 +48,23 @@ public class SimulatedAnnealingConfigurationBuilder {
     public SimulatedAnnealingConfigurationBuilder() {
         this.coolingRate = 0.99;
         this.constructionHeuristicType = InsertionHeuristicType.REGRET_BASED_INSERTION;
+        this.improvementHeuristicTypes = new ArrayList<>();
+        this.improvementStrategy = ImprovementStrategy.FIRST_IMPROVEMENT;
+        this.maxNumRememberedSolutions = 1 << 20;
+        this.migrationInterval = 1;
+        this.migrationPolicy = MigrationPolicy.RING;
+        this.numChains = 1;
         this.numIterations = 1000;
+        this.numNearestNeighbours = 0;
         this.numOrdersToRemove = 10;
+        this.numThreads = Runtime.getRuntime().availableProcessors();
         this.randomizationCoefficient = 3;
         this.reactionFactor = 0.1;
         this.regretHorizon = 4;
+        this.seed = 0;
         this.segmentSize = 100;
+        this.shareHeuristicWeights = true;
+        this.timeLimitInSeconds = 0;
         this.orderSimilarityTaskCompletionTimeCoefficient = 3;
         this.orderSimilarityTaskDistanceCoefficient = 9;
         this.orderSimilarityTaskLoadCoefficient = 2;
@@ -61,16 +88,57 @@ public class SimulatedAnnealingConfigurationBuilder {
         return this;
     }
 
+    public SimulatedAnnealingConfigurationBuilder setImprovementHeuristicTypes(
+            List<ImprovementHeuristicType> improvementHeuristicTypes) {
+        this.improvementHeuristicTypes = improvementHeuristicTypes;
+        return this;
+    }
+
+    public SimulatedAnnealingConfigurationBuilder setImprovementStrategy(ImprovementStrategy improvementStrategy) {
+        this.improvementStrategy = improvementStrategy;
+        return this;
+    }
+
+    public SimulatedAnnealingConfigurationBuilder setMaxNumRememberedSolutions(int maxNumRememberedSolutions) {
+        this.maxNumRememberedSolutions = maxNumRememberedSolutions;
+        return this;
+    }
+
+    public SimulatedAnnealingConfigurationBuilder setMigrationInterval(int migrationInterval) {
+        this.migrationInterval = migrationInterval;
+        return this;
+    }
+
+    public SimulatedAnnealingConfigurationBuilder setMigrationPolicy(MigrationPolicy migrationPolicy) {
+        this.migrationPolicy = migrationPolicy;
+        return this;
+    }
+
+    public SimulatedAnnealingConfigurationBuilder setNumChains(int numChains) {
+        this.numChains = numChains;
+        return this;
+    }
+
     public SimulatedAnnealingConfigurationBuilder setNumIterations(int numIterations) {
         this.numIterations = numIterations;
         return this;
     }
 
+    public SimulatedAnnealingConfigurationBuilder setNumNearestNeighbours(int numNearestNeighbours) {
+        this.numNearestNeighbours = numNearestNeighbours;
+        return this;
+    }
+
     public SimulatedAnnealingConfigurationBuilder setNumOrdersToRemove(int numOrdersToRemove) {
         this.numOrdersToRemove = numOrdersToRemove;
         return this;
     }
 
+    public SimulatedAnnealingConfigurationBuilder setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+        return this;
+    }
+
     public SimulatedAnnealingConfigurationBuilder setRandomizationCoefficient(double randomizationCoefficient) {
         this.randomizationCoefficient = randomizationCoefficient;
         return this;
@@ -86,11 +154,26 @@ public class SimulatedAnnealingConfigurationBuilder {
         return this;
     }
 
+    public SimulatedAnnealingConfigurationBuilder setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
     public SimulatedAnnealingConfigurationBuilder setSegmentSize(int segmentSize) {
         this.segmentSize = segmentSize;
         return this;
     }
 
+    public SimulatedAnnealingConfigurationBuilder setShareHeuristicWeights(boolean shareHeuristicWeights) {
+        this.shareHeuristicWeights = shareHeuristicWeights;
+        return this;
+    }
+
+    public SimulatedAnnealingConfigurationBuilder setTimeLimitInSeconds(double timeLimitInSeconds) {
+        this.timeLimitInSeconds = timeLimitInSeconds;
+        return this;
+    }
+
     public SimulatedAnnealingConfigurationBuilder setOrderSimilarityTaskCompletionTimeCoefficient(
             double orderSimilarityTaskCompletionTimeCoefficient) {
         this.orderSimilarityTaskCompletionTimeCoefficient = orderSimilarityTaskCompletionTimeCoefficient;
@@ -148,8 +231,11 @@ public class SimulatedAnnealingConfigurationBuilder {
 
     public SimulatedAnnealingConfiguration build(){
         return new SimulatedAnnealingConfiguration(
-                coolingRate, constructionHeuristicType, numIterations, numOrdersToRemove, randomizationCoefficient,
-                reactionFactor, regretHorizon, segmentSize, orderSimilarityTaskCompletionTimeCoefficient,
+                coolingRate, constructionHeuristicType, improvementHeuristicTypes, improvementStrategy,
+                maxNumRememberedSolutions, migrationInterval, migrationPolicy, numChains, numIterations,
+                numNearestNeighbours, numOrdersToRemove, numThreads, randomizationCoefficient, reactionFactor,
+                regretHorizon, seed, segmentSize, shareHeuristicWeights, timeLimitInSeconds,
+                orderSimilarityTaskCompletionTimeCoefficient,
                 orderSimilarityTaskDistanceCoefficient, orderSimilarityTaskLoadCoefficient,
                 rewardForNewGlobalBestSolution, rewardForLocallyImprovedSolution, rewardForAcceptedSolution,
                 distanceTravelledCostWeight, numLateDeliveriesCostWeight, totalDeliveryDelayCostWeight,
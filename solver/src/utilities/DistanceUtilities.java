@@ -18,4 +18,23 @@ public class DistanceUtilities {
         double deltaZ = Math.sin(bLatitudeInRadians) - Math.sin(aLatitudeInRadians);
         return Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2) + Math.pow(deltaZ, 2)) * EARTH_RADIUS_IN_KM;
     }
+
+    /**
+     * Returns a lower bound on the distance between two locations whose latitudes differ by the given degrees.
+     */
+    public static double minDistanceInKmForLatitudeDifference(double latitudeDifference){
+        double angle = Math.toRadians(Math.min(Math.abs(latitudeDifference), 180.0));
+        return 2 * Math.sin(angle / 2) * EARTH_RADIUS_IN_KM;
+    }
+
+    /**
+     * Returns a lower bound on the distance between two locations whose longitudes differ by the given degrees and
+     * whose latitudes are within the given absolute latitude.
+     */
+    public static double minDistanceInKmForLongitudeDifference(
+            double longitudeDifference, double maxAbsoluteLatitude){
+        double angle = Math.toRadians(Math.min(Math.abs(longitudeDifference), 180.0));
+        double minCosLatitude = Math.cos(Math.toRadians(Math.min(Math.abs(maxAbsoluteLatitude), 90.0)));
+        return 2 * Math.sin(angle / 2) * minCosLatitude * EARTH_RADIUS_IN_KM;
+    }
 }
@@ -0,0 +1,41 @@
+package utilities;
+
+import common.Task;
+import common.TaskType;
+
+/**
+ * Fingerprints of the task sequences of routes. A route is fingerprinted as the XOR of the fingerprints of its arcs,
+ * where an arc is identified by the tasks at its ends, so that inserting or removing an order changes the fingerprint
+ * of a few arcs only. A solution combines the fingerprints of its routes with the ids of their drivers.
+ */
+public class FingerprintUtilities {
+
+    /**
+     * Key of the start location of a driver as the tail of the first arc of a route
+     */
+    public static final long START_TASK_KEY = -1;
+
+    public static long calculateArcFingerprint(long fromTaskKey, long toTaskKey){
+        return mix(mix(fromTaskKey) ^ toTaskKey);
+    }
+
+    /**
+     * Returns the contribution of the route of the driver to the fingerprint of a solution, 0 for an empty route.
+     */
+    public static long calculateRouteFingerprint(int driverId, long routeFingerprint){
+        return routeFingerprint != 0 ? mix(mix(driverId) + routeFingerprint) : 0;
+    }
+
+    public static long calculateTaskKey(Task task){
+        return 2L * task.getOrderId() + (task.getType().equals(TaskType.DELIVERY) ? 1 : 0);
+    }
+
+    /**
+     * The finalizer of the SplitMix64 generator, which spreads the bits of the value over the whole result.
+     */
+    private static long mix(long value){
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -1,14 +1,24 @@
 package utilities;
 
 import algorithms.OrderInsertion;
+import algorithms.OrderInsertionEvaluator;
 import algorithms.OrderInsertionImpact;
 import common.*;
 import exceptions.InfeasibleRouteException;
 import exceptions.UnserviceableOrderException;
 import output.Route;
+import output.RouteStatus;
+
+import java.util.List;
+import java.util.stream.IntStream;
 
 public class SearchUtilities {
 
+    /**
+     * Minimum number of insertions evaluated together for the evaluation to be split over the common fork-join pool
+     */
+    private static final int MIN_NUM_ORDER_INSERTIONS_FOR_PARALLEL_EVALUATION = 64;
+
     public static Route insertOrder(
             Route initialRoute, Order order, OrderInsertion orderInsertion, RouteCostFunction costFunction) throws
             InfeasibleRouteException {
@@ -18,44 +28,103 @@ public class SearchUtilities {
         return route;
     }
 
-    public static Route removeOrder(Route initialRoute, Integer orderId, RouteCostFunction costFunction) throws
+    public static Route removeOrder(Route initialRoute, Order order, RouteCostFunction costFunction) throws
             InfeasibleRouteException {
         Route route = new Route(initialRoute);
-        route.remove(orderId);
+        route.remove(order);
+        route.evaluate(costFunction);
+        return route;
+    }
+
+    /**
+     * Returns a copy of the route with the order inserted and evaluated, or null if the insertion is infeasible.
+     */
+    public static Route insertOrderIfFeasible(
+            Route initialRoute, Order order, OrderInsertion orderInsertion, RouteCostFunction costFunction) {
+        Route route = new Route(initialRoute);
+        if (route.tryInsert(order, orderInsertion) != RouteStatus.FEASIBLE)
+            return null;
+        route.evaluate(costFunction);
+        return route;
+    }
+
+    /**
+     * Returns a copy of the route with the order removed and evaluated, or null if the removal is infeasible.
+     */
+    public static Route removeOrderIfFeasible(Route initialRoute, Order order, RouteCostFunction costFunction) {
+        Route route = new Route(initialRoute);
+        if (route.tryRemove(order) != RouteStatus.FEASIBLE)
+            return null;
         route.evaluate(costFunction);
         return route;
     }
 
     public static OrderInsertionImpact findBestOrderInsertion(
             Route route, Order order, RouteCostFunction costFunction) throws InfeasibleRouteException {
-        int numTasks = route.getTasks().size();
-        double minCostDelta = Double.POSITIVE_INFINITY;
-        OrderInsertion bestOrderInsertion = null;
-        Route bestRoute = null;
-        for (int pickUpIndex = 0; pickUpIndex < numTasks + 1; pickUpIndex++) {
-            for (int deliveryIndex = pickUpIndex + 1; deliveryIndex < numTasks + 2; deliveryIndex++) {
-                OrderInsertion orderInsertion = new OrderInsertion(
-                        deliveryIndex, route.getDriver().getId(), order.getId(), pickUpIndex);
-                Route newRoute;
-                try {
-                    newRoute = insertOrder(route, order, orderInsertion, costFunction);
-                } catch (InfeasibleRouteException e) {
-                    continue;
-                }
-                double costDelta = newRoute.getCost() - route.getCost();
-                if (costDelta < minCostDelta){
-                    minCostDelta = costDelta;
-                    bestOrderInsertion = orderInsertion;
-                    bestRoute = newRoute;
-                }
-            }
-        }
-        if (bestRoute == null)
+        OrderInsertionImpact orderInsertionImpact = findBestOrderInsertionIfFeasible(route, order, costFunction);
+        if (orderInsertionImpact == null)
             throw new InfeasibleRouteException(
                     String.format(
                             "Unable to find an insertion point for the order %d in the route of driver %d",
                             order.getId(), route.getDriver().getId()));
-        return new OrderInsertionImpact(minCostDelta, bestOrderInsertion, bestRoute);
+        return orderInsertionImpact;
+    }
+
+    /**
+     * Finds the best insertion of the order into the route as {@link #findBestOrderInsertion} does, but returns null
+     * instead of throwing an exception if the order cannot be inserted into the route.
+     */
+    public static OrderInsertionImpact findBestOrderInsertionIfFeasible(
+            Route route, Order order, RouteCostFunction costFunction) {
+        OrderInsertionImpact orderInsertionImpact = new OrderInsertionEvaluator(route, costFunction)
+                .findBestOrderInsertion(order);
+        if (orderInsertionImpact == null)
+            return null;
+        OrderInsertion bestOrderInsertion = orderInsertionImpact.getOrderInsertion();
+        Route bestRoute = insertOrderIfFeasible(route, order, bestOrderInsertion, costFunction);
+        if (bestRoute == null)
+            return null;
+        return new OrderInsertionImpact(bestRoute.getCost() - route.getCost(), bestOrderInsertion, bestRoute);
+    }
+
+    /**
+     * Finds the best insertion of each order into the route. The evaluations are run in parallel, and the result at an
+     * index belongs to the order at the same index, or is null if the order cannot be inserted into the route.
+     */
+    public static OrderInsertionImpact[] findBestOrderInsertions(
+            List<Order> orders, Route route, RouteCostFunction costFunction) {
+        OrderInsertionImpact[] orderInsertionImpacts = new OrderInsertionImpact[orders.size()];
+        createOrderIndices(orders.size(), orders.size()).forEach(orderIndex ->
+                orderInsertionImpacts[orderIndex] = findBestOrderInsertionIfFeasible(
+                        route, orders.get(orderIndex), costFunction));
+        return orderInsertionImpacts;
+    }
+
+    /**
+     * Finds the best insertion of each order into each of the routes at the same index. The evaluations are run in
+     * parallel, and the results are in the order of the orders and their routes with null for the infeasible ones.
+     */
+    public static OrderInsertionImpact[][] findBestOrderInsertions(
+            List<Order> orders, List<List<Route>> routes, RouteCostFunction costFunction) {
+        assert orders.size() == routes.size();
+        int numOrderInsertions = routes.stream().mapToInt(List::size).sum();
+        OrderInsertionImpact[][] orderInsertionImpacts = new OrderInsertionImpact[orders.size()][];
+        createOrderIndices(orders.size(), numOrderInsertions).forEach(orderIndex -> {
+            Order order = orders.get(orderIndex);
+            List<Route> orderRoutes = routes.get(orderIndex);
+            OrderInsertionImpact[] orderInsertionImpactsOfOrder = new OrderInsertionImpact[orderRoutes.size()];
+            for (int routeIndex = 0; routeIndex < orderRoutes.size(); routeIndex++)
+                orderInsertionImpactsOfOrder[routeIndex] = findBestOrderInsertionIfFeasible(
+                        orderRoutes.get(routeIndex), order, costFunction);
+            orderInsertionImpacts[orderIndex] = orderInsertionImpactsOfOrder;
+        });
+        return orderInsertionImpacts;
+    }
+
+    private static IntStream createOrderIndices(int numOrders, int numOrderInsertions) {
+        IntStream orderIndices = IntStream.range(0, numOrders);
+        return numOrderInsertions >= MIN_NUM_ORDER_INSERTIONS_FOR_PARALLEL_EVALUATION ?
+                orderIndices.parallel() : orderIndices;
     }
 
 }
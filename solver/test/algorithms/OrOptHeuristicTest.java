@@ -0,0 +1,91 @@
+package algorithms;
+
+import common.Driver;
+import common.Order;
+import common.RouteCostFunction;
+import common.Task;
+import input.Instance;
+import input.RandomInstanceGenerator;
+import junit.framework.TestCase;
+import output.Route;
+import output.RouteStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the cost deltas of the Or-opt moves evaluated from the schedule of random routes against the costs of the
+ * routes rebuilt with the moved blocks.
+ */
+public class OrOptHeuristicTest extends TestCase {
+
+    private static final int NUM_INSERTION_ATTEMPTS = 40;
+    private static final int NUM_ROUTES = 30;
+    private static final double TOLERANCE = 1e-6;
+
+    public void testCostDeltaMatchesRebuiltRoute(){
+        Random random = new Random(0);
+        RouteCostFunction routeCostFunction = new RouteCostFunction(1, 1e6, 1e3, 0.1);
+        int numMoves = 0;
+        for (int routeIndex = 0; routeIndex < NUM_ROUTES; routeIndex++) {
+            Instance instance = new RandomInstanceGenerator(random).generate(1, NUM_INSERTION_ATTEMPTS, 8);
+            OrOptHeuristic orOptHeuristic =
+                    new OrOptHeuristic(instance, ImprovementStrategy.BEST_IMPROVEMENT, routeCostFunction);
+            Route route = generateRoute(instance, random);
+            route.evaluate(routeCostFunction);
+            int numTasks = route.getTasks().size();
+            orOptHeuristic.setTaskIndices(new int[numTasks]);
+            for (int blockLength = 1; blockLength <= Math.min(OrOptHeuristic.MAX_BLOCK_LENGTH, numTasks - 1);
+                 blockLength++) {
+                for (int firstTaskIndex = 0; firstTaskIndex + blockLength <= numTasks; firstTaskIndex++) {
+                    for (int targetTaskIndex = 0; targetTaskIndex <= numTasks; targetTaskIndex++) {
+                        if (targetTaskIndex >= firstTaskIndex && targetTaskIndex <= firstTaskIndex + blockLength)
+                            continue;
+                        if (!OrOptHeuristic.isPrecedenceFeasible(route, firstTaskIndex, blockLength, targetTaskIndex))
+                            continue;
+                        double costDelta =
+                                orOptHeuristic.calculateCostDelta(route, firstTaskIndex, blockLength, targetTaskIndex);
+                        Route movedRoute = Route.createIfFeasible(route.getDistanceMatrix(), route.getDriver(),
+                                moveBlock(route.getTasks(), firstTaskIndex, blockLength, targetTaskIndex));
+                        assertEquals(costDelta != Double.POSITIVE_INFINITY, movedRoute != null);
+                        if (movedRoute == null)
+                            continue;
+                        movedRoute.evaluate(routeCostFunction);
+                        assertEquals(movedRoute.getCost() - route.getCost(), costDelta,
+                                TOLERANCE * Math.max(1, route.getCost()));
+                        numMoves++;
+                    }
+                }
+            }
+        }
+        assertTrue(numMoves > 0);
+    }
+
+    /**
+     * Generates a feasible route of the driver of the instance by inserting the orders at random positions.
+     */
+    private static Route generateRoute(Instance instance, Random random){
+        Driver driver = instance.getDrivers().get(0);
+        Route route = new Route(instance.getDistanceMatrix(), driver);
+        for (Order order : instance.getOrders()) {
+            Route candidateRoute = new Route(route);
+            int numTasks = route.getTasks().size();
+            int pickUpTaskIndex = random.nextInt(numTasks + 1);
+            int deliveryTaskIndex = pickUpTaskIndex + 1 + random.nextInt(numTasks - pickUpTaskIndex + 1);
+            RouteStatus status = candidateRoute.tryInsert(
+                    order, new OrderInsertion(deliveryTaskIndex, driver.getId(), order.getId(), pickUpTaskIndex));
+            if (status == RouteStatus.FEASIBLE)
+                route = candidateRoute;
+        }
+        return route;
+    }
+
+    private static List<Task> moveBlock(List<Task> tasks, int firstTaskIndex, int blockLength, int targetTaskIndex){
+        List<Task> movedTasks = new ArrayList<>(tasks);
+        List<Task> block = new ArrayList<>(movedTasks.subList(firstTaskIndex, firstTaskIndex + blockLength));
+        movedTasks.subList(firstTaskIndex, firstTaskIndex + blockLength).clear();
+        movedTasks.addAll(targetTaskIndex < firstTaskIndex ? targetTaskIndex : targetTaskIndex - blockLength, block);
+        return movedTasks;
+    }
+}
@@ -0,0 +1,58 @@
+package common;
+
+import junit.framework.TestCase;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the fingerprint set against a set that keeps the fingerprints in the order they are added and drops the
+ * oldest one when it is full.
+ */
+public class FingerprintSetTest extends TestCase {
+
+    private static final int NUM_OPERATIONS = 100000;
+
+    public void testBoundedSetKeepsMostRecentFingerprints(){
+        for (int maxSize : new int[]{1, 2, 3, 15, 16, 17, 100, 1000})
+            checkAgainstReferenceSet(maxSize, new Random(maxSize));
+    }
+
+    public void testUnboundedSetKeepsAllFingerprints(){
+        checkAgainstReferenceSet(FingerprintSet.UNBOUNDED, new Random(0));
+    }
+
+    private static void checkAgainstReferenceSet(int maxSize, Random random){
+        FingerprintSet fingerprintSet = new FingerprintSet(maxSize);
+        Set<Long> referenceSet = new LinkedHashSet<>();
+        // a small range of fingerprints makes the repeated and the dropped fingerprints frequent
+        int numFingerprints = 4 * Math.max(maxSize, 100);
+        for (int operationIndex = 0; operationIndex < NUM_OPERATIONS; operationIndex++) {
+            long fingerprint = generateFingerprint(random.nextInt(numFingerprints));
+            if (random.nextBoolean()) {
+                assertEquals(referenceSet.contains(fingerprint), fingerprintSet.contains(fingerprint));
+                continue;
+            }
+            boolean added = referenceSet.add(fingerprint);
+            assertEquals(added, fingerprintSet.add(fingerprint));
+            if (added && maxSize != FingerprintSet.UNBOUNDED && referenceSet.size() > maxSize) {
+                Iterator<Long> iterator = referenceSet.iterator();
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        for (int fingerprintIndex = 0; fingerprintIndex < numFingerprints; fingerprintIndex++) {
+            long fingerprint = generateFingerprint(fingerprintIndex);
+            assertEquals(referenceSet.contains(fingerprint), fingerprintSet.contains(fingerprint));
+        }
+    }
+
+    /**
+     * Spreads the fingerprint indices over 64 bits, excluding 0 and 1 as the set does not distinguish them.
+     */
+    private static long generateFingerprint(int fingerprintIndex){
+        return (fingerprintIndex + 2) * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -0,0 +1,70 @@
+package input;
+
+import common.Driver;
+import common.Location;
+import common.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random instances in a small area for the consistency checks, set up the way the CSV input data consumer
+ * sets up the drivers and the orders. The time windows are tight enough that some of the routes are late or infeasible.
+ */
+public class RandomInstanceGenerator {
+
+    private static final double LATITUDE = 41.0;
+    private static final double LONGITUDE = 29.0;
+    private static final double MAX_COORDINATE_OFFSET = 0.05;
+    private static final int MAX_NUM_ITEMS = 4;
+    private static final int PLANNING_HORIZON_IN_SECONDS = 4 * 3600;
+
+    private Random random;
+
+    public RandomInstanceGenerator(Random random) {
+        this.random = random;
+    }
+
+    public Instance generate(int numDrivers, int numOrders, int driverCapacity){
+        List<Driver> drivers = new ArrayList<>();
+        for (int driverId = 1; driverId <= numDrivers; driverId++) {
+            Driver driver = new Driver();
+            driver.setCapacity(driverCapacity);
+            driver.setId(driverId);
+            driver.setStartLocation(generateLocation());
+            driver.getTimeWindow().setStart(0);
+            driver.getTimeWindow().setEnd(PLANNING_HORIZON_IN_SECONDS);
+            drivers.add(driver);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int orderId = 1; orderId <= numOrders; orderId++) {
+            Order order = new Order();
+            order.setId(orderId);
+            order.getPickup().setLocation(generateLocation());
+            order.getDelivery().setLocation(generateLocation());
+            int numItems = 1 + this.getRandom().nextInt(MAX_NUM_ITEMS);
+            order.getPickup().setNumItems(numItems);
+            order.getDelivery().setNumItems(-numItems);
+            int timeWindowStart = this.getRandom().nextInt(PLANNING_HORIZON_IN_SECONDS / 2);
+            order.getPickup().getTimeWindow().setStart(timeWindowStart);
+            order.getDelivery().getTimeWindow().setEnd(
+                    timeWindowStart + this.getRandom().nextInt(PLANNING_HORIZON_IN_SECONDS / 4));
+            orders.add(order);
+        }
+        return new Instance(drivers, orders);
+    }
+
+    private Location generateLocation(){
+        return new Location(LATITUDE + (2 * this.getRandom().nextDouble() - 1) * MAX_COORDINATE_OFFSET,
+                LONGITUDE + (2 * this.getRandom().nextDouble() - 1) * MAX_COORDINATE_OFFSET);
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+}
@@ -0,0 +1,97 @@
+package output;
+
+import algorithms.OrderInsertion;
+import common.Driver;
+import common.Order;
+import input.Instance;
+import input.RandomInstanceGenerator;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the routes updated incrementally by random insertions and removals have the same status, schedule and
+ * fingerprint as the routes built from scratch from their tasks.
+ */
+public class RouteTest extends TestCase {
+
+    private static final double TOLERANCE = 1e-6;
+    private static final int NUM_INSTANCES = 20;
+    private static final int NUM_OPERATIONS = 200;
+
+    public void testIncrementalUpdatesMatchRebuiltRoute(){
+        Random random = new Random(0);
+        for (int instanceIndex = 0; instanceIndex < NUM_INSTANCES; instanceIndex++) {
+            Instance instance = new RandomInstanceGenerator(random).generate(1, 30, 8);
+            Driver driver = instance.getDrivers().get(0);
+            Route route = new Route(instance.getDistanceMatrix(), driver);
+            List<Order> servedOrders = new ArrayList<>();
+            for (int operationIndex = 0; operationIndex < NUM_OPERATIONS; operationIndex++) {
+                Route candidateRoute = new Route(route);
+                RouteStatus status;
+                Order order;
+                boolean insertion = servedOrders.isEmpty() || random.nextInt(3) > 0;
+                if (insertion) {
+                    order = instance.getOrders().get(random.nextInt(instance.getOrders().size()));
+                    int numTasks = route.getTasks().size();
+                    int pickUpTaskIndex = random.nextInt(numTasks + 1);
+                    int deliveryTaskIndex = pickUpTaskIndex + 1 + random.nextInt(numTasks - pickUpTaskIndex + 1);
+                    OrderInsertion orderInsertion =
+                            new OrderInsertion(deliveryTaskIndex, driver.getId(), order.getId(), pickUpTaskIndex);
+                    status = candidateRoute.tryInsert(order, orderInsertion);
+                }
+                else {
+                    order = servedOrders.get(random.nextInt(servedOrders.size()));
+                    status = candidateRoute.tryRemove(order);
+                }
+                Route rebuiltRoute = status == RouteStatus.ORDER_SERVED_MULTIPLE_TIMES ? null :
+                        Route.createIfFeasible(instance.getDistanceMatrix(), driver, candidateRoute.getTasks());
+                assertEquals(status == RouteStatus.FEASIBLE, rebuiltRoute != null);
+                if (rebuiltRoute == null)
+                    continue;
+                assertSameRoute(rebuiltRoute, candidateRoute, instance);
+                route = candidateRoute;
+                if (insertion)
+                    servedOrders.add(order);
+                else
+                    servedOrders.remove(order);
+            }
+        }
+    }
+
+    private static void assertSameRoute(Route expectedRoute, Route route, Instance instance){
+        int numTasks = expectedRoute.getTasks().size();
+        assertEquals(expectedRoute.getTasks(), route.getTasks());
+        assertEquals(expectedRoute.getOrderIds(), route.getOrderIds());
+        for (int taskIndex = 0; taskIndex < numTasks; taskIndex++) {
+            assertEquals(expectedRoute.getArcDistances()[taskIndex], route.getArcDistances()[taskIndex], TOLERANCE);
+            assertEquals(expectedRoute.getArrivalTimes()[taskIndex], route.getArrivalTimes()[taskIndex], TOLERANCE);
+            assertEquals(expectedRoute.getCumulativeDistances()[taskIndex], route.getCumulativeDistances()[taskIndex],
+                    TOLERANCE);
+            assertEquals(expectedRoute.getCumulativeWaitingTimes()[taskIndex + 1],
+                    route.getCumulativeWaitingTimes()[taskIndex + 1], TOLERANCE);
+            assertEquals(expectedRoute.getDriverLoads()[taskIndex], route.getDriverLoads()[taskIndex]);
+            assertEquals(expectedRoute.getLatestArrivalTimes()[taskIndex], route.getLatestArrivalTimes()[taskIndex],
+                    TOLERANCE);
+            assertEquals(expectedRoute.getLatestPenaltyFreeArrivalTimes()[taskIndex],
+                    route.getLatestPenaltyFreeArrivalTimes()[taskIndex], TOLERANCE);
+            assertEquals(expectedRoute.getTaskCompletionTimes()[taskIndex], route.getTaskCompletionTimes()[taskIndex],
+                    TOLERANCE);
+        }
+        for (Order order : instance.getOrders()) {
+            assertEquals(expectedRoute.getDeliveryTaskIndex(order.getIndex()),
+                    route.getDeliveryTaskIndex(order.getIndex()));
+            assertEquals(expectedRoute.getPickupTaskIndex(order.getIndex()),
+                    route.getPickupTaskIndex(order.getIndex()));
+        }
+        assertEquals(expectedRoute.getDistanceTravelled(), route.getDistanceTravelled(), TOLERANCE);
+        assertEquals(expectedRoute.getLateDeliveredOrderId2delay().keySet(),
+                route.getLateDeliveredOrderId2delay().keySet());
+        assertEquals(expectedRoute.getTotalDeliveryDelay(), route.getTotalDeliveryDelay(), TOLERANCE);
+        assertEquals(expectedRoute.getTravelTime(), route.getTravelTime(), TOLERANCE);
+        assertEquals(expectedRoute.getFingerprint(), route.getFingerprint());
+        assertEquals(route.calculateFingerprint(), route.getFingerprint());
+    }
+}